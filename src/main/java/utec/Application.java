@@ -1,31 +1,126 @@
 package utec;
 
+import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import utec.cli.parser.CommandLineParser;
 import picocli.CommandLine;
 import utec.controllers.*;
+import utec.metrics.Metrics;
+import utec.metrics.RouteMetrics;
+import utec.server.AdmissionConfig;
+import utec.server.AdmissionHandler;
+import utec.server.BodyLimitHandler;
+import utec.server.CompressionHandler;
+import utec.server.ConcurrencyLimit;
+import utec.server.MetricsHandler;
+import utec.server.OverloadHandler;
+import utec.server.Router;
+import utec.server.ServerConfig;
+import utec.server.TokenBuckets;
+import utec.services.ServiceRegistry;
 
+import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.function.UnaryOperator;
 
 public class Application {
+    private static final Logger logger = LoggerFactory.getLogger(Application.class);
+
     public static void main(String[] args) throws Exception {
-        HttpServer server = HttpServer.create(new InetSocketAddress(8080), 0);
+        ServerConfig config = ServerConfig.from(args);
+        ServiceRegistry.recover();
+        HttpServer server = start(config);
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> stop(server), "http-shutdown"));
+        logger.info("Servidor escuchando en http://localhost:{} (executor={}, backlog={})",
+                server.getAddress().getPort(), config.executorMode(), config.backlog());
+    }
+
+    public static HttpServer start(ServerConfig config) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(config.port()), config.backlog());
 
-        // Rutas
-        server.createContext("/users/register", new UserController.RegisterHandler());
-        server.createContext("/users", new UserController.GetUserHandler());
+        // Rutas (admisión, límite de body, compresión y métricas por ruta), resueltas por un único handler raíz
+        long maxBody = config.maxBody();
+        AdmissionConfig admission = config.admission();
+        TokenBuckets buckets = admission.rateLimit() > 0
+                ? new TokenBuckets(admission.rateLimit(), admission.rateBurst()) : null;
+        ConcurrencyLimit limit = concurrencyLimit(admission);
+        UnaryOperator<HttpHandler> admit = admission(buckets, limit);
+        // Un lote grande tarda por su tamaño: bajaría el límite de todas las rutas. Va con un tope fijo
+        UnaryOperator<HttpHandler> admitBulk = admission(buckets, bulkLimit(admission));
+        Router router = new Router();
+        route(router, config, admit, "POST", "/users/register", new UserController.RegisterHandler(), maxBody);
+        route(router, config, admit, "GET", "/users/{id}", new UserController.GetUserHandler(), maxBody);
 
-        server.createContext("/auth/login", new AuthController.LoginHandler());
+        route(router, config, admit, "POST", "/auth/login", new AuthController.LoginHandler(), maxBody);
 
-        server.createContext("/flights/create", new FlightController.CreateFlightHandler());
-        server.createContext("/flights/search", new FlightController.SearchFlightsHandler());
-        server.createContext("/flights/book", new BookingController.BookFlightHandler());
-        server.createContext("/flights/book/", new BookingController.GetBookingHandler()); // con id
+        route(router, config, admit, "POST", "/flights/create", new FlightController.CreateFlightHandler(), maxBody);
+        route(router, config, admitBulk, "POST", "/flights/create-many", new FlightController.CreateManyFlightsHandler(),
+                config.maxBulkBody());
+        route(router, config, admit, "GET", "/flights/search", new FlightController.SearchFlightsHandler(), maxBody);
+        route(router, config, admit, "GET", "/flights/airlines", new FlightController.AirlinesHandler(), maxBody);
+        route(router, config, admit, "POST", "/flights/book", new BookingController.BookFlightHandler(), maxBody);
+        route(router, config, admit, "GET", "/flights/book/{id}", new BookingController.GetBookingHandler(), maxBody);
+        route(router, config, admit, "POST", "/flights/book-many", new BookingController.BookManyHandler(), maxBody);
 
-        server.createContext("/cleanup", new CleanupController());
+        route(router, config, admit, "POST", "/cleanup", new CleanupController(), maxBody);
+        // Las métricas tienen que poder leerse justamente cuando el servidor está saturado
+        route(router, config, UnaryOperator.identity(), "GET", "/metrics", new MetricsController(), maxBody);
+        server.createContext("/", new OverloadHandler(router));
 
-        server.setExecutor(null);
-        System.out.println("Servidor escuchando en http://localhost:8080");
+        server.setExecutor(config.executorMode().create(config.threads(), config.queueSize()));
         server.start();
+        return server;
+    }
+
+    private static void route(Router router, ServerConfig config, UnaryOperator<HttpHandler> admit, String method,
+                              String pattern, HttpHandler handler, long maxBody) {
+        HttpHandler chain = new BodyLimitHandler(handler, maxBody);
+        if (config.compressionThreshold() >= 0) {
+            chain = new CompressionHandler(chain, config.compressionThreshold(), config.compressionLevel());
+        }
+        // Mismo nombre que usan los controllers para medir sus etapas
+        RouteMetrics metrics = Metrics.route(method + " " + pattern);
+        router.add(method, pattern, new MetricsHandler(admit.apply(chain), metrics));
+    }
+
+    // Límite compartido por todas las rutas que pasan por la admisión, o null si está desactivado.
+    // Arranca en el techo: sin calibrar actúa como un tope fijo que la latencia alta puede bajar
+    private static ConcurrencyLimit concurrencyLimit(AdmissionConfig config) {
+        int max = config.maxConcurrency();
+        if (max <= 0) return null;
+        ConcurrencyLimit limit = new ConcurrencyLimit(max, config.minConcurrency(), max,
+                config.latencyTargetMillis() * 1_000_000);
+        Metrics.gauge("utec_concurrency_limit", "Límite adaptativo de requests en curso.", limit::limit);
+        Metrics.gauge("utec_concurrency_in_flight", "Requests admitidos en curso.", limit::inFlight);
+        return limit;
+    }
+
+    // Tope fijo (mínimo = máximo) de las cargas en lote en curso
+    private static ConcurrencyLimit bulkLimit(AdmissionConfig config) {
+        if (config.maxConcurrency() <= 0) return null;
+        int max = config.minConcurrency();
+        ConcurrencyLimit limit = new ConcurrencyLimit(max, max, max, Long.MAX_VALUE);
+        Metrics.gauge("utec_concurrency_bulk_in_flight", "Cargas en lote admitidas en curso.", limit::inFlight);
+        return limit;
+    }
+
+    private static UnaryOperator<HttpHandler> admission(TokenBuckets buckets, ConcurrencyLimit limit) {
+        if (buckets == null && limit == null) return UnaryOperator.identity();
+        return chain -> new AdmissionHandler(chain, buckets, limit);
+    }
+
+    public static void stop(HttpServer server) {
+        server.stop(1);
+        if (server.getExecutor() instanceof ExecutorService executor) {
+            executor.shutdown();
+        }
+        // Escribir los correos de confirmación pendientes antes de salir
+        ServiceRegistry.EMAIL.shutdown(Duration.ofSeconds(10));
+        ServiceRegistry.PERSISTENCE.close();
     }
 }
@@ -2,44 +2,89 @@ package utec.apitester.utils;
 
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
+import java.security.MessageDigest;
 import java.util.Base64;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 public class JwtUtil {
     private static final String SECRET = "SuperSecreto-ChangeMe";
+    private static final SecretKeySpec KEY = new SecretKeySpec(SECRET.getBytes(), "HmacSHA256");
 
-    public static String generateToken(String userId) {
-        String header = Base64.getUrlEncoder().withoutPadding()
-                .encodeToString("{\"alg\":\"HS256\",\"typ\":\"JWT\"}".getBytes());
+    // El header es siempre el mismo: se codifica una sola vez
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final String HEADER = ENCODER.encodeToString("{\"alg\":\"HS256\",\"typ\":\"JWT\"}".getBytes());
+    private static final String PAYLOAD_PREFIX = "{\"sub\":\"";
+    private static final String PAYLOAD_SUFFIX = "\"}";
+
+    // Pool de Mac ya inicializados. Un ThreadLocal no sirve con un hilo virtual por request
+    // (cada hilo crearía el suyo), así que los Mac se prestan y se devuelven.
+    private static final BlockingQueue<Mac> MAC_POOL = new ArrayBlockingQueue<>(64);
 
-        String payload = Base64.getUrlEncoder().withoutPadding()
-                .encodeToString(("{\"sub\":\"" + userId + "\"}").getBytes());
+    public static String generateToken(String userId) {
+        String payload = ENCODER.encodeToString((PAYLOAD_PREFIX + userId + PAYLOAD_SUFFIX).getBytes());
 
-        String signature = hmacSha256(header + "." + payload, SECRET);
-        return header + "." + payload + "." + signature;
+        String signingInput = HEADER + "." + payload;
+        String signature = ENCODER.encodeToString(sign(signingInput, signingInput.length()));
+        return signingInput + "." + signature;
     }
 
     public static String validateToken(String token) {
         try {
-            String[] parts = token.split("\\.");
-            if (parts.length != 3) return null;
+            int first = token.indexOf('.');
+            int second = first < 0 ? -1 : token.indexOf('.', first + 1);
+            if (second < 0 || token.indexOf('.', second + 1) >= 0) return null;
 
-            String signatureCheck = hmacSha256(parts[0] + "." + parts[1], SECRET);
-            if (!signatureCheck.equals(parts[2])) return null;
+            // Se compara la firma codificada y no los bytes decodificados: el decoder acepta padding
+            // y bits sobrantes en el último carácter, y así un mismo MAC tendría varios tokens
+            byte[] expected = ENCODER.encode(sign(token, second));
+            byte[] actual = ascii(token, second + 1);
+            if (actual == null || !MessageDigest.isEqual(expected, actual)) return null;
 
-            String payloadJson = new String(Base64.getUrlDecoder().decode(parts[1]));
-            return payloadJson.replace("{\"sub\":\"", "").replace("\"}", "");
+            String payloadJson = new String(Base64.getUrlDecoder().decode(token.substring(first + 1, second)));
+            if (payloadJson.startsWith(PAYLOAD_PREFIX) && payloadJson.endsWith(PAYLOAD_SUFFIX)) {
+                return payloadJson.substring(PAYLOAD_PREFIX.length(), payloadJson.length() - PAYLOAD_SUFFIX.length());
+            }
+            return payloadJson.replace(PAYLOAD_PREFIX, "").replace(PAYLOAD_SUFFIX, "");
         } catch (Exception e) {
             return null;
         }
     }
 
-    private static String hmacSha256(String data, String secret) {
+    // Caracteres de data desde from como bytes, o null si alguno no es ASCII
+    private static byte[] ascii(String data, int from) {
+        byte[] bytes = new byte[data.length() - from];
+        for (int i = 0; i < bytes.length; i++) {
+            char c = data.charAt(from + i);
+            if (c > 0x7F) return null;
+            bytes[i] = (byte) c;
+        }
+        return bytes;
+    }
+
+    /**
+     * HMAC-SHA256 de los primeros length caracteres de data, sin copiar el substring.
+     */
+    private static byte[] sign(String data, int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            char c = data.charAt(i);
+            // Los tokens son base64url + '.', siempre ASCII
+            if (c > 0x7F) throw new IllegalArgumentException("Invalid token character");
+            bytes[i] = (byte) c;
+        }
+
         try {
-            Mac mac = Mac.getInstance("HmacSHA256");
-            mac.init(new SecretKeySpec(secret.getBytes(), "HmacSHA256"));
-            return Base64.getUrlEncoder().withoutPadding().encodeToString(mac.doFinal(data.getBytes()));
+            Mac mac = MAC_POOL.poll();
+            if (mac == null) {
+                mac = Mac.getInstance("HmacSHA256");
+                mac.init(KEY);
+            }
+            byte[] result = mac.doFinal(bytes);
+            MAC_POOL.offer(mac); // si el pool está lleno, se descarta
+            return result;
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
     }
-}
\ No newline at end of file
+}
@@ -3,6 +3,17 @@ package utec.controllers;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import utec.dto.LoginDTO;
+import utec.json.DtoCodec;
+import utec.json.MalformedJsonException;
+import utec.metrics.Metrics;
+import utec.metrics.RouteMetrics;
+import utec.metrics.Stage;
+import utec.server.ExchangeJsonWriter;
+import utec.server.RequestBodies;
+import utec.server.RequestBodyTooLargeException;
 import utec.services.ServiceRegistry;
 
 import java.io.IOException;
@@ -10,36 +21,42 @@ import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 
 public class AuthController {
+    private static final Logger logger = LoggerFactory.getLogger(AuthController.class);
 
     public static class LoginHandler implements HttpHandler {
+        private static final RouteMetrics METRICS = Metrics.route("POST /auth/login");
+
         @Override
         public void handle(HttpExchange exchange) throws IOException {
             try {
-                if (!exchange.getRequestMethod().equalsIgnoreCase("POST")) {
-                    exchange.sendResponseHeaders(405, -1);
-                    return;
+                long t = System.nanoTime();
+                LoginDTO credentials;
+                try {
+                    credentials = DtoCodec.readLogin(exchange.getRequestBody());
+                } catch (MalformedJsonException e) {
+                    throw new Exception("Invalid JSON");
                 }
+                METRICS.recordParse(t, RequestBodies.readNanos(exchange));
+                if (credentials == null) {
+                    throw new Exception("Missing body");
+                }
+                logger.debug("Pedido de login email={}", credentials.email);
 
-                String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
-                System.out.println("DEBUG: Login request body: " + body);
-                JSONObject json = new JSONObject(body);
-
-                String token = ServiceRegistry.AUTH.login(json);
-                System.out.println("DEBUG: Login successful, token generated: " + token);
-
-                JSONObject response = new JSONObject();
-                response.put("token", token);
+                t = System.nanoTime();
+                String token = ServiceRegistry.AUTH.login(credentials);
+                t = METRICS.record(Stage.SERVICE, t);
 
-                byte[] respBytes = response.toString().getBytes(StandardCharsets.UTF_8);
-                exchange.getResponseHeaders().add("Content-Type", "application/json");
-                exchange.sendResponseHeaders(200, respBytes.length);
-                try (OutputStream os = exchange.getResponseBody()) {
-                    os.write(respBytes);
+                try (ExchangeJsonWriter writer = new ExchangeJsonWriter(exchange, 200)) {
+                    DtoCodec.writeToken(writer, token);
                 }
+                METRICS.record(Stage.SERIALIZE, t);
+                logger.debug("Login correcto email={}", credentials.email);
 
+            } catch (RequestBodyTooLargeException e) {
+                // Lo responde BodyLimitHandler con 413
+                throw e;
             } catch (Exception e) {
-                System.out.println("DEBUG: Login error: " + e.getMessage());
-                e.printStackTrace();
+                logger.warn("Login rechazado: {}", e.getMessage());
                 JSONObject error = new JSONObject();
                 error.put("error", e.getMessage());
                 byte[] respBytes = error.toString().getBytes(StandardCharsets.UTF_8);
@@ -2,137 +2,243 @@ package utec.controllers;
 
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
-import org.json.JSONObject;
 import utec.apitester.utils.ResponseUtils;
+import utec.dto.BookManyRequestDTO;
+import utec.dto.FlightBookRequestDTO;
 import utec.dtos.BookingDTO;
 import utec.dtos.FlightDTO;
 import utec.dtos.UserDTO;
+import utec.json.DtoCodec;
+import utec.json.MalformedJsonException;
+import utec.metrics.Metrics;
+import utec.metrics.RouteMetrics;
+import utec.metrics.Stage;
+import utec.server.ETags;
+import utec.server.ExchangeJsonWriter;
+import utec.server.RequestBodies;
+import utec.server.Router;
+import utec.services.BatchBookingResult;
+import utec.services.BookingService;
 import utec.services.ServiceRegistry;
 
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.util.Scanner;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
 
 public class BookingController {
 
     // POST /flights/book
     public static class BookFlightHandler implements HttpHandler {
+        private static final RouteMetrics METRICS = Metrics.route("POST /flights/book");
+
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            if (!"POST".equalsIgnoreCase(exchange.getRequestMethod())) {
-                ResponseUtils.sendError(exchange, 405, "Method not allowed");
+            String userId = authenticate(exchange);
+            if (userId == null) {
+                ResponseUtils.sendError(exchange, 401, "Unauthorized");
                 return;
             }
 
-            String auth = exchange.getRequestHeaders().getFirst("Authorization");
-            if (auth == null || !auth.startsWith("Bearer ")) {
-                ResponseUtils.sendError(exchange, 401, "Unauthorized");
+            long t = System.nanoTime();
+            FlightBookRequestDTO request;
+            try {
+                request = DtoCodec.readFlightBook(exchange.getRequestBody());
+            } catch (MalformedJsonException e) {
+                ResponseUtils.sendError(exchange, 400, "Invalid JSON");
                 return;
             }
-            String token = auth.substring(7);
-            String userId = ServiceRegistry.AUTH.getUserIdFromToken(token);
-            if (userId == null) {
-                ResponseUtils.sendError(exchange, 401, "Unauthorized");
+            METRICS.recordParse(t, RequestBodies.readNanos(exchange));
+
+            if (request == null) {
+                ResponseUtils.sendError(exchange, 400, "Missing body");
                 return;
             }
 
-            // Corregir la lectura del body - solo leer una vez
-            String body;
-            try (Scanner scanner = new Scanner(exchange.getRequestBody(), StandardCharsets.UTF_8)) {
-                body = scanner.useDelimiter("\\A").hasNext() ? scanner.next() : "";
+            if (request.flightId == null) {
+                ResponseUtils.sendError(exchange, 400, "Missing flightId");
+                return;
             }
 
-            if (body == null || body.isBlank()) {
-                ResponseUtils.sendError(exchange, 400, "Missing body");
+            String flightId = request.flightId;
+
+            BookingDTO booking;
+            try {
+                t = System.nanoTime();
+                booking = ServiceRegistry.BOOKING.createBooking(flightId, userId);
+
+                FlightDTO flight = ServiceRegistry.FLIGHT.getFlightById(flightId);
+                UserDTO user = ServiceRegistry.USER.getUserById(userId);
+
+                // El correo se escribe en segundo plano (BookingEmailService)
+                ServiceRegistry.EMAIL.publish(booking, flight, user);
+                t = METRICS.record(Stage.SERVICE, t);
+            } catch (Exception e) {
+                ResponseUtils.sendError(exchange, 400, e.getMessage());
                 return;
             }
 
-            JSONObject json;
+            try (ExchangeJsonWriter writer = new ExchangeJsonWriter(exchange, 200)) {
+                DtoCodec.writeId(writer, booking.id);
+            }
+            METRICS.record(Stage.SERIALIZE, t);
+        }
+    }
+
+    // POST /flights/book-many
+    // {mode: ALL_OR_NOTHING|BEST_EFFORT, items: [{flightId, seats}]}: un solo token, un solo correo
+    public static class BookManyHandler implements HttpHandler {
+        private static final int MAX_BATCH_SEATS = 1000;
+        private static final RouteMetrics METRICS = Metrics.route("POST /flights/book-many");
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            String userId = authenticate(exchange);
+            if (userId == null) {
+                ResponseUtils.sendError(exchange, 401, "Unauthorized");
+                return;
+            }
+
+            long t = System.nanoTime();
+            BookManyRequestDTO request;
             try {
-                json = new JSONObject(body);
-            } catch (Exception e) {
+                request = DtoCodec.readBookMany(exchange.getRequestBody());
+            } catch (MalformedJsonException e) {
                 ResponseUtils.sendError(exchange, 400, "Invalid JSON");
                 return;
             }
+            METRICS.recordParse(t, RequestBodies.readNanos(exchange));
 
-            if (!json.has("flightId")) {
-                ResponseUtils.sendError(exchange, 400, "Missing flightId");
+            if (request == null) {
+                ResponseUtils.sendError(exchange, 400, "Missing body");
                 return;
             }
 
-            String flightId = json.getString("flightId");
-
+            BookingService.BatchMode mode;
             try {
-                BookingDTO booking = ServiceRegistry.BOOKING.createBooking(flightId, userId);
+                mode = BookingService.BatchMode.valueOf(
+                        (request.mode != null ? request.mode : "ALL_OR_NOTHING").toUpperCase());
+            } catch (IllegalArgumentException e) {
+                ResponseUtils.sendError(exchange, 400, "Invalid mode");
+                return;
+            }
 
-                FlightDTO flight = ServiceRegistry.FLIGHT.getFlightById(flightId);
-                UserDTO user = ServiceRegistry.USER.getUserById(userId);
+            if (request.items == null || request.items.isEmpty()) {
+                ResponseUtils.sendError(exchange, 400, "Missing items");
+                return;
+            }
 
-                String firstName = user != null && user.firstName != null ? user.firstName : "";
-                String lastName  = user != null && user.lastName  != null ? user.lastName  : "";
-
-                String content = String.format(
-                        "Hello %s %s,%n%nYour booking was successful!%n%nThe booking is for flight %s with departure date of %s and arrival date of %s.%n%nThe booking was registered at %s.%n%nBon Voyage!%nFly Away Travel",
-                        firstName, lastName,
-                        flight != null ? flight.flightNumber : "N/A",
-                        flight != null ? flight.estDepartureTime : "N/A",
-                        flight != null ? flight.estArrivalTime : "N/A",
-                        booking.bookingDate
-                );
-
-                try {
-                    Files.writeString(Path.of("flight_booking_email_" + booking.id + ".txt"), content);
-                } catch (Exception ex) {
-                    System.err.println("No se pudo escribir archivo de confirmación: " + ex.getMessage());
+            // Varios ítems del mismo vuelo se suman en una sola reserva de n asientos
+            Map<String, Integer> seatsPerFlight = new LinkedHashMap<>();
+            int totalSeats = 0;
+            for (BookManyRequestDTO.Item item : request.items) {
+                int seats = item.seats != null ? item.seats : 1;
+                if (item.flightId == null) {
+                    ResponseUtils.sendError(exchange, 400, "Missing flightId");
+                    return;
+                }
+                if (seats <= 0) {
+                    ResponseUtils.sendError(exchange, 400, "Seats must be greater than zero");
+                    return;
                 }
+                seatsPerFlight.merge(item.flightId, seats, Integer::sum);
+                totalSeats += seats;
+                if (totalSeats > MAX_BATCH_SEATS) {
+                    ResponseUtils.sendError(exchange, 400, "Too many seats");
+                    return;
+                }
+            }
 
-                ResponseUtils.sendJSON(exchange, 200, new JSONObject().put("id", booking.id));
+            BatchBookingResult result;
+            try {
+                t = System.nanoTime();
+                result = ServiceRegistry.BOOKING.createBookings(userId, seatsPerFlight, mode);
             } catch (Exception e) {
                 ResponseUtils.sendError(exchange, 400, e.getMessage());
+                return;
             }
+
+            if (result.bookings().isEmpty()) {
+                try (ExchangeJsonWriter writer = new ExchangeJsonWriter(exchange, 400)) {
+                    writer.beginObject().field("error", "No seats available");
+                    writeFailures(writer, result, seatsPerFlight);
+                    writer.endObject();
+                }
+                return;
+            }
+
+            Map<String, FlightDTO> flights = new HashMap<>();
+            for (String flightId : seatsPerFlight.keySet()) {
+                FlightDTO flight = ServiceRegistry.FLIGHT.getFlightById(flightId);
+                if (flight != null) flights.put(flightId, flight);
+            }
+            String confirmationId = UUID.randomUUID().toString();
+            ServiceRegistry.EMAIL.publishGroup(confirmationId, result.bookings(), flights,
+                    ServiceRegistry.USER.getUserById(userId));
+            t = METRICS.record(Stage.SERVICE, t);
+
+            try (ExchangeJsonWriter writer = new ExchangeJsonWriter(exchange, 200)) {
+                writer.beginObject().field("confirmationId", confirmationId).name("bookings").beginArray();
+                for (BookingDTO booking : result.bookings()) {
+                    writer.beginObject().field("id", booking.id).field("flightId", booking.flightId).endObject();
+                }
+                writer.endArray();
+                writeFailures(writer, result, seatsPerFlight);
+                writer.endObject();
+            }
+            METRICS.record(Stage.SERIALIZE, t);
         }
     }
 
     // GET /flights/book/{id}
     public static class GetBookingHandler implements HttpHandler {
+        private static final RouteMetrics METRICS = Metrics.route("GET /flights/book/{id}");
+
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            if (!"GET".equalsIgnoreCase(exchange.getRequestMethod())) {
-                ResponseUtils.sendError(exchange, 405, "Method not allowed");
-                return;
-            }
-
-            String path = exchange.getRequestURI().getPath();
-            String[] parts = path.split("/");
-            if (parts.length < 4 || parts[3].isBlank()) {
-                ResponseUtils.sendError(exchange, 400, "Missing booking id");
-                return;
-            }
-            String id = parts[3];
+            String id = Router.pathParam(exchange, "id");
 
+            long t = System.nanoTime();
             BookingDTO booking = ServiceRegistry.BOOKING.getBooking(id);
             if (booking == null) {
                 ResponseUtils.sendError(exchange, 404, "Booking not found");
                 return;
             }
+            // Los datos del vuelo que se muestran no cambian: alcanza con la versión de la reserva
+            if (ETags.notModified(exchange, ETags.of(booking.version))) return;
 
             // Obtener información adicional del vuelo
             FlightDTO flight = ServiceRegistry.FLIGHT.getFlightById(booking.flightId);
+            t = METRICS.record(Stage.SERVICE, t);
+
+            try (ExchangeJsonWriter writer = new ExchangeJsonWriter(exchange, 200)) {
+                DtoCodec.writeBooking(writer, booking, flight);
+            }
+            METRICS.record(Stage.SERIALIZE, t);
+        }
+    }
+
+    // Vuelos que no se pudieron reservar, con los asientos pedidos a cada uno
+    private static void writeFailures(ExchangeJsonWriter writer, BatchBookingResult result,
+                                      Map<String, Integer> seatsPerFlight) throws IOException {
+        writer.name("failures").beginArray();
+        for (Map.Entry<String, String> failure : result.failures().entrySet()) {
+            writer.beginObject()
+                    .field("flightId", failure.getKey())
+                    .field("seats", seatsPerFlight.get(failure.getKey()))
+                    .field("error", failure.getValue())
+                    .endObject();
+        }
+        writer.endArray();
+    }
 
-            JSONObject resp = new JSONObject()
-                    .put("id", booking.id)
-                    .put("bookingDate", booking.bookingDate)
-                    .put("flightId", booking.flightId)
-                    .put("flightNumber", booking.flightNumber)
-                    .put("customerId", booking.customerId)
-                    .put("customerFirstName", booking.customerFirstName)
-                    .put("customerLastName", booking.customerLastName)
-                    .put("estDepartureTime", flight != null ? flight.estDepartureTime : "")
-                    .put("estArrivalTime", flight != null ? flight.estArrivalTime : "");
-
-            ResponseUtils.sendJSON(exchange, 200, resp);
+    // Id del usuario del token Bearer, o null si falta o no es válido
+    private static String authenticate(HttpExchange exchange) {
+        String auth = exchange.getRequestHeaders().getFirst("Authorization");
+        if (auth == null || !auth.startsWith("Bearer ")) {
+            return null;
         }
+        return ServiceRegistry.AUTH.getUserIdFromToken(auth.substring(7));
     }
-}
\ No newline at end of file
+}
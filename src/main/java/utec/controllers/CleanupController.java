@@ -11,16 +11,8 @@ import java.nio.charset.StandardCharsets;
 public class CleanupController implements HttpHandler {
     @Override
     public void handle(HttpExchange exchange) throws IOException {
-        if (!"POST".equalsIgnoreCase(exchange.getRequestMethod())) {
-            exchange.sendResponseHeaders(405, -1);
-            return;
-        }
-
-        // limpiar servicios
-        ServiceRegistry.USER.clear();
-        ServiceRegistry.FLIGHT.clear();
-        ServiceRegistry.BOOKING.clear();
-        ServiceRegistry.AUTH.clear();
+        // limpiar servicios (queda registrado en el log)
+        ServiceRegistry.clearAll();
 
         JSONObject resp = new JSONObject().put("status", "cleaned");
         byte[] out = resp.toString().getBytes(StandardCharsets.UTF_8);
@@ -2,82 +2,212 @@ package utec.controllers;
 
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
+import org.json.JSONArray;
 import org.json.JSONObject;
+import utec.dto.NewFlightRequestDTO;
 import utec.dtos.FlightDTO;
+import utec.json.DtoCodec;
+import utec.json.MalformedJsonException;
+import utec.metrics.Metrics;
+import utec.metrics.RouteMetrics;
+import utec.metrics.Stage;
+import utec.server.ETags;
+import utec.server.ExchangeJsonWriter;
+import utec.server.RequestBodies;
+import utec.services.AirlineCount;
+import utec.services.FlightAlreadyExistsException;
+import utec.services.FlightPage;
 import utec.services.ServiceRegistry;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import java.util.List;
-import java.util.Scanner;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
 
 public class FlightController {
 
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final Pattern FLIGHT_NUMBER = Pattern.compile("^[A-Z]{2,3}[0-9]{3}$");
+
     public static class CreateFlightHandler implements HttpHandler {
+        private static final RouteMetrics METRICS = Metrics.route("POST /flights/create");
+
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            if (!exchange.getRequestMethod().equalsIgnoreCase("POST")) {
-                exchange.sendResponseHeaders(405, -1);
+            // El body se decodifica directo al DTO, sin pasar por String ni JSONObject
+            long t = System.nanoTime();
+            NewFlightRequestDTO request;
+            try {
+                request = DtoCodec.readNewFlight(exchange.getRequestBody());
+            } catch (MalformedJsonException e) {
+                sendResponse(exchange, 400, new JSONObject().put("error", "Invalid JSON"));
                 return;
             }
+            METRICS.recordParse(t, RequestBodies.readNanos(exchange));
 
-            String body;
-            try (Scanner scanner = new Scanner(exchange.getRequestBody(), StandardCharsets.UTF_8)) {
-                body = scanner.useDelimiter("\\A").hasNext() ? scanner.next() : "";
+            if (request == null) {
+                sendResponse(exchange, 400, new JSONObject().put("error", "Missing body"));
+                return;
             }
 
-            if (body.isBlank()) {
-                sendResponse(exchange, 400, new JSONObject().put("error", "Missing body"));
+            String error = validate(request);
+            if (error != null) {
+                sendResponse(exchange, 400, new JSONObject().put("error", error));
                 return;
             }
 
-            JSONObject json;
+            // Único (chequeo atómico dentro de createFlight)
             try {
-                json = new JSONObject(body);
-            } catch (Exception e) {
+                t = System.nanoTime();
+                FlightDTO flight = ServiceRegistry.FLIGHT.createFlight(request);
+                t = METRICS.record(Stage.SERVICE, t);
+                try (ExchangeJsonWriter writer = new ExchangeJsonWriter(exchange, 201)) {
+                    DtoCodec.writeId(writer, flight.id);
+                }
+                METRICS.record(Stage.SERIALIZE, t);
+            } catch (FlightAlreadyExistsException e) {
+                sendResponse(exchange, 400, new JSONObject()
+                        .put("error", "Flight already exists")
+                        .put("id", e.getExistingId()));
+            }
+        }
+    }
+
+    /**
+     * POST /flights/create-many con {inputs: [...]}: se crean todos los vuelos o ninguno.
+     * La validación corre en paralelo y, si falla, devuelve todos los errores con su índice.
+     */
+    public static class CreateManyFlightsHandler implements HttpHandler {
+        private static final RouteMetrics METRICS = Metrics.route("POST /flights/create-many");
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            long t = System.nanoTime();
+            List<NewFlightRequestDTO> inputs;
+            try {
+                inputs = DtoCodec.readNewFlights(exchange.getRequestBody());
+            } catch (MalformedJsonException e) {
                 sendResponse(exchange, 400, new JSONObject().put("error", "Invalid JSON"));
                 return;
             }
-
-            if (!json.has("airlineName") || !json.has("flightNumber") ||
-                    !json.has("estDepartureTime") || !json.has("estArrivalTime") ||
-                    !json.has("availableSeats")) {
-                sendResponse(exchange, 400, new JSONObject().put("error", "Missing fields"));
+            METRICS.recordParse(t, RequestBodies.readNanos(exchange));
+            if (inputs == null) {
+                sendResponse(exchange, 400, new JSONObject().put("error", "Missing body"));
                 return;
             }
-
-            String flightNumber = json.getString("flightNumber");
-            int availableSeats = json.getInt("availableSeats");
-
-            // Validación número de vuelo
-            if (!flightNumber.matches("^[A-Z]{2,3}[0-9]{3}$")) {
-                sendResponse(exchange, 400, new JSONObject().put("error", "Invalid flight number format"));
+            if (inputs.isEmpty()) {
+                sendResponse(exchange, 400, new JSONObject().put("error", "Missing inputs"));
                 return;
             }
 
-            // Validación seats > 0
-            if (availableSeats <= 0) {
-                sendResponse(exchange, 400, new JSONObject().put("error", "Available seats must be greater than zero"));
+            JSONArray errors = validateBatch(inputs);
+            if (!errors.isEmpty()) {
+                sendResponse(exchange, 400, new JSONObject().put("error", "Invalid flights").put("errors", errors));
                 return;
             }
 
-            // Único
-            if (ServiceRegistry.FLIGHT.existsFlightNumber(flightNumber)) {
-                sendResponse(exchange, 400, new JSONObject().put("error", "Flight already exists"));
+            List<FlightDTO> created;
+            try {
+                t = System.nanoTime();
+                created = ServiceRegistry.FLIGHT.createFlights(inputs);
+                t = METRICS.record(Stage.SERVICE, t);
+            } catch (FlightAlreadyExistsException e) {
+                // Otro request tomó el número después de la validación
+                sendResponse(exchange, 400, new JSONObject()
+                        .put("error", "Flight already exists")
+                        .put("flightNumber", e.getFlightNumber())
+                        .put("id", e.getExistingId()));
                 return;
             }
 
-            FlightDTO flight = ServiceRegistry.FLIGHT.createFlight(json);
-            sendResponse(exchange, 201, new JSONObject().put("id", flight.id));
+            try (ExchangeJsonWriter writer = new ExchangeJsonWriter(exchange, 201)) {
+                writer.beginObject().name("ids").beginArray();
+                for (FlightDTO f : created) {
+                    writer.value(f.id);
+                }
+                writer.endArray().endObject();
+            }
+            METRICS.record(Stage.SERIALIZE, t);
+        }
+
+        /**
+         * Formato, asientos, números repetidos dentro del lote y números ya existentes.
+         */
+        private static JSONArray validateBatch(List<NewFlightRequestDTO> inputs) {
+            // Primer índice de cada número en el lote, para marcar como repetidos a los demás
+            Map<String, Integer> firstIndex = new ConcurrentHashMap<>();
+            String[] errors = new String[inputs.size()];
+            String[] existingIds = new String[inputs.size()];
+
+            IntStream.range(0, inputs.size()).parallel().forEach(i -> {
+                NewFlightRequestDTO input = inputs.get(i);
+                errors[i] = validate(input);
+                if (errors[i] == null) {
+                    String flightNumber = input.flightNumber;
+                    firstIndex.merge(flightNumber, i, Math::min);
+                    FlightDTO existing = ServiceRegistry.FLIGHT.findByFlightNumber(flightNumber);
+                    if (existing != null) {
+                        errors[i] = "Flight already exists";
+                        existingIds[i] = existing.id;
+                    }
+                }
+            });
+            IntStream.range(0, inputs.size()).parallel().forEach(i -> {
+                if (errors[i] == null && firstIndex.get(inputs.get(i).flightNumber) != i) {
+                    errors[i] = "Duplicate flight number in batch";
+                }
+            });
+
+            JSONArray result = new JSONArray();
+            for (int i = 0; i < errors.length; i++) {
+                if (errors[i] != null) {
+                    result.put(new JSONObject().put("index", i).put("error", errors[i]).putOpt("id", existingIds[i]));
+                }
+            }
+            return result;
         }
     }
 
+    /**
+     * Devuelve el mensaje de error de un vuelo inválido, o null si es válido.
+     */
+    private static String validate(NewFlightRequestDTO request) {
+        if (request.airlineName == null || request.flightNumber == null ||
+                request.estDepartureTime == null || request.estArrivalTime == null ||
+                request.availableSeats == null) {
+            return "Missing fields";
+        }
+
+        String flightNumber = request.flightNumber;
+        int availableSeats = request.availableSeats;
+
+        // Validación número de vuelo
+        if (!FLIGHT_NUMBER.matcher(flightNumber).matches()) {
+            return "Invalid flight number format";
+        }
+
+        // Validación seats > 0
+        if (availableSeats <= 0) {
+            return "Available seats must be greater than zero";
+        }
+        return null;
+    }
+
     public static class SearchFlightsHandler implements HttpHandler {
+        private static final RouteMetrics METRICS = Metrics.route("GET /flights/search");
+
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            String query = exchange.getRequestURI().getQuery();
+            // Sin decodificar: cada valor se decodifica una sola vez, después de separar por & y =
+            String query = exchange.getRequestURI().getRawQuery();
             String flightNumber = null;
             String airlineName = null;
+            String limitParam = null;
+            String cursor = null;
 
             if (query != null) {
                 String[] params = query.split("&");
@@ -91,23 +221,94 @@ public class FlightController {
                             flightNumber = value;
                         } else if ("airlineName".equals(key)) {
                             airlineName = value;
+                        } else if ("limit".equals(key)) {
+                            limitParam = value;
+                        } else if ("cursor".equals(key)) {
+                            cursor = value;
                         }
                     }
                 }
             }
 
-            List<FlightDTO> results = ServiceRegistry.FLIGHT.searchFlights(flightNumber, airlineName);
-            JSONObject response = new JSONObject();
-            response.put("items", results.stream().map(f ->
-                    new JSONObject()
-                            .put("id", f.id)
-                            .put("airlineName", f.airlineName)
-                            .put("flightNumber", f.flightNumber)
-                            .put("estDepartureTime", f.estDepartureTime)
-                            .put("estArrivalTime", f.estArrivalTime)
-                            .put("availableSeats", f.availableSeats)
-            ).toArray());
-            sendResponse(exchange, 200, response);
+            // Paginación opcional: sin limit se devuelven todos los resultados
+            int limit = Integer.MAX_VALUE;
+            if (limitParam != null) {
+                try {
+                    limit = Integer.parseInt(limitParam);
+                } catch (NumberFormatException e) {
+                    limit = -1;
+                }
+                if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+                    sendResponse(exchange, 400, new JSONObject().put("error", "Invalid limit"));
+                    return;
+                }
+            }
+
+            String after = null;
+            if (cursor != null && !cursor.isEmpty()) {
+                after = decodeCursor(cursor);
+                if (after == null) {
+                    sendResponse(exchange, 400, new JSONObject().put("error", "Invalid cursor"));
+                    return;
+                }
+            }
+
+            // La versión se lee antes de buscar: si el catálogo cambia durante la búsqueda el
+            // próximo request no coincide y recibe los datos nuevos
+            if (ETags.notModified(exchange, ETags.of(ServiceRegistry.FLIGHT.catalogVersion()))) return;
+
+            long t = System.nanoTime();
+            FlightPage page = ServiceRegistry.FLIGHT.searchFlights(flightNumber, airlineName, after, limit);
+            t = METRICS.record(Stage.SERVICE, t);
+            List<FlightDTO> results = page.items();
+
+            // Se serializa ítem por ítem directo a la respuesta, sin armar el árbol JSON completo
+            try (ExchangeJsonWriter writer = new ExchangeJsonWriter(exchange, 200)) {
+                writer.beginObject().name("items").beginArray();
+                for (FlightDTO f : results) {
+                    DtoCodec.writeFlight(writer, f, ServiceRegistry.FLIGHT.getAvailableSeats(f));
+                }
+                writer.endArray();
+                writer.field("nextCursor", page.nextAfter() != null ? encodeCursor(page.nextAfter()) : null);
+                writer.endObject();
+            }
+            METRICS.record(Stage.SERIALIZE, t);
+        }
+    }
+
+    public static class AirlinesHandler implements HttpHandler {
+        private static final RouteMetrics METRICS = Metrics.route("GET /flights/airlines");
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            // La lista solo cambia con altas y limpiezas del catálogo, no con ventas de asientos
+            if (ETags.notModified(exchange, ETags.of(ServiceRegistry.FLIGHT.airlinesVersion()))) return;
+
+            long t = System.nanoTime();
+            List<AirlineCount> airlines = ServiceRegistry.FLIGHT.getAirlines();
+            t = METRICS.record(Stage.SERVICE, t);
+
+            try (ExchangeJsonWriter writer = new ExchangeJsonWriter(exchange, 200)) {
+                writer.beginObject().name("items").beginArray();
+                for (AirlineCount airline : airlines) {
+                    writer.beginObject().field("name", airline.name()).field("flights", airline.flights()).endObject();
+                }
+                writer.endArray().endObject();
+            }
+            METRICS.record(Stage.SERIALIZE, t);
+        }
+    }
+
+    // El cursor es el último número de vuelo de la página, opaco para el cliente
+    private static String encodeCursor(String flightNumber) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(flightNumber.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodeCursor(String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return null;
         }
     }
 
@@ -0,0 +1,20 @@
+package utec.controllers;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import utec.metrics.Metrics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+// GET /metrics en formato de texto de Prometheus
+public class MetricsController implements HttpHandler {
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        byte[] out = Metrics.prometheus().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+        exchange.sendResponseHeaders(200, out.length);
+        exchange.getResponseBody().write(out);
+        exchange.getResponseBody().close();
+    }
+}
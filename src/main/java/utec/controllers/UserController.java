@@ -3,12 +3,23 @@ package utec.controllers;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import org.json.JSONObject;
+import utec.dto.RegisterUserDTO;
 import utec.dtos.UserDTO;
+import utec.json.DtoCodec;
+import utec.json.MalformedJsonException;
+import utec.metrics.Metrics;
+import utec.metrics.RouteMetrics;
+import utec.metrics.Stage;
+import utec.server.ETags;
+import utec.server.ExchangeJsonWriter;
+import utec.server.RequestBodies;
+import utec.server.Router;
 import utec.services.ServiceRegistry;
 
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.Objects;
 import java.util.regex.Pattern;
 
 public class UserController {
@@ -22,22 +33,30 @@ public class UserController {
             Pattern.compile("^(?=.*[A-Z])(?=.*\\d)[A-Za-z\\d]{8,}$");
 
 
-    // Handler para registrar usuarios
+    // POST /users/register
     public static class RegisterHandler implements HttpHandler {
+        private static final RouteMetrics METRICS = Metrics.route("POST /users/register");
+
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            if (!"POST".equals(exchange.getRequestMethod())) {
-                exchange.sendResponseHeaders(405, -1);
+            long t = System.nanoTime();
+            RegisterUserDTO request;
+            try {
+                request = DtoCodec.readRegisterUser(exchange.getRequestBody());
+            } catch (MalformedJsonException e) {
+                sendJSON(exchange, 400, new JSONObject().put("error", "Invalid JSON"));
+                return;
+            }
+            METRICS.recordParse(t, RequestBodies.readNanos(exchange));
+            if (request == null) {
+                sendJSON(exchange, 400, new JSONObject().put("error", "Missing body"));
                 return;
             }
 
-            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
-            JSONObject json = new JSONObject(body);
-
-            String firstName = json.optString("firstName", "");
-            String lastName = json.optString("lastName", "");
-            String email = json.optString("email", "");
-            String password = json.optString("password", "");
+            String firstName = Objects.requireNonNullElse(request.firstName, "");
+            String lastName = Objects.requireNonNullElse(request.lastName, "");
+            String email = Objects.requireNonNullElse(request.email, "");
+            String password = Objects.requireNonNullElse(request.password, "");
 
             // Validaciones
             if (firstName.isEmpty() || lastName.isEmpty() || email.isEmpty() || password.isEmpty()) {
@@ -65,50 +84,42 @@ public class UserController {
                 return;
             }
 
-            if (ServiceRegistry.USER.existsEmail(email)) {
-                sendJSON(exchange, 400, new JSONObject().put("error", "Email already exists"));
-                return;
-            }
-
+            // El chequeo de email duplicado lo hace registerUser de forma atómica
             try {
-                UserDTO user = ServiceRegistry.USER.registerUser(json);
-                sendJSON(exchange, 201, new JSONObject().put("id", user.id));
+                t = System.nanoTime();
+                UserDTO user = ServiceRegistry.USER.registerUser(request);
+                t = METRICS.record(Stage.SERVICE, t);
+                try (ExchangeJsonWriter writer = new ExchangeJsonWriter(exchange, 201)) {
+                    DtoCodec.writeId(writer, user.id);
+                }
+                METRICS.record(Stage.SERIALIZE, t);
             } catch (Exception e) {
                 sendJSON(exchange, 400, new JSONObject().put("error", e.getMessage()));
             }
         }
     }
 
-    // Handler para obtener usuario por ID
+    // GET /users/{id}
     public static class GetUserHandler implements HttpHandler {
+        private static final RouteMetrics METRICS = Metrics.route("GET /users/{id}");
+
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            if (!"GET".equals(exchange.getRequestMethod())) {
-                exchange.sendResponseHeaders(405, -1);
-                return;
-            }
-
-            String path = exchange.getRequestURI().getPath();
-            String[] parts = path.split("/");
-            if (parts.length < 3) {
-                sendJSON(exchange, 400, new JSONObject().put("error", "User ID missing"));
-                return;
-            }
-
-            String userId = parts[2];
+            String userId = Router.pathParam(exchange, "id");
+            long t = System.nanoTime();
             UserDTO user = ServiceRegistry.USER.getUserById(userId);
+            t = METRICS.record(Stage.SERVICE, t);
             if (user == null) {
                 sendJSON(exchange, 404, new JSONObject().put("error", "User not found"));
                 return;
             }
+            // El cliente ya tiene esta versión: 304 sin serializar
+            if (ETags.notModified(exchange, ETags.of(user.version))) return;
 
-            JSONObject json = new JSONObject()
-                    .put("id", user.id)
-                    .put("firstName", user.firstName)
-                    .put("lastName", user.lastName)
-                    .put("email", user.email);
-
-            sendJSON(exchange, 200, json);
+            try (ExchangeJsonWriter writer = new ExchangeJsonWriter(exchange, 200)) {
+                DtoCodec.writeUser(writer, user);
+            }
+            METRICS.record(Stage.SERIALIZE, t);
         }
     }
 
@@ -0,0 +1,13 @@
+package utec.dto;
+
+import java.util.List;
+
+public class BookManyRequestDTO {
+    public String mode;
+    public List<Item> items;
+
+    public static class Item {
+        public String flightId;
+        public Integer seats; // null si no vino en el request
+    }
+}
@@ -5,5 +5,5 @@ public class NewFlightRequestDTO {
     public String flightNumber;
     public String estDepartureTime; // en ISO-8601 (Instant)
     public String estArrivalTime;
-    public int availableSeats;
+    public Integer availableSeats; // null si no vino en el request
 }
@@ -8,4 +8,5 @@ public class BookingDTO {
     public String customerId;
     public String customerFirstName;
     public String customerLastName;
+    public long version; // la asigna el servicio al publicarlo; respalda el ETag
 }
@@ -6,5 +6,6 @@ public class FlightDTO {
     public String flightNumber;
     public String estDepartureTime;
     public String estArrivalTime;
-    public int availableSeats;
+    public int availableSeats; // capacidad inicial; el stock vivo está en SeatInventory
+    public long version; // la asigna el servicio al publicarlo; respalda el ETag
 }
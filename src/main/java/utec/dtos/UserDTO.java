@@ -6,4 +6,5 @@ public class UserDTO {
     public String lastName;
     public String email;
     public String password;
+    public long version; // la asigna el servicio al publicarlo; respalda el ETag
 }
@@ -0,0 +1,214 @@
+package utec.json;
+
+import utec.dto.BookManyRequestDTO;
+import utec.dto.FlightBookRequestDTO;
+import utec.dto.LoginDTO;
+import utec.dto.NewFlightRequestDTO;
+import utec.dto.RegisterUserDTO;
+import utec.dtos.BookingDTO;
+import utec.dtos.FlightDTO;
+import utec.dtos.UserDTO;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lectura de los DTOs de request directo desde el body y escritura de los DTOs de respuesta
+ * directo a UTF-8, sin pasar por JSONObject. Los read* devuelven null si el body está vacío.
+ * Campos desconocidos se ignoran; los que faltan quedan en null.
+ */
+public final class DtoCodec {
+    private static final JsonReader.Names LOGIN = new JsonReader.Names("email", "password");
+    private static final JsonReader.Names REGISTER_USER =
+            new JsonReader.Names("firstName", "lastName", "email", "password");
+    private static final JsonReader.Names NEW_FLIGHT = new JsonReader.Names(
+            "airlineName", "flightNumber", "estDepartureTime", "estArrivalTime", "availableSeats");
+    private static final JsonReader.Names NEW_FLIGHTS = new JsonReader.Names("inputs");
+    private static final JsonReader.Names FLIGHT_BOOK = new JsonReader.Names("flightId");
+    private static final JsonReader.Names BOOK_MANY = new JsonReader.Names("mode", "items");
+    private static final JsonReader.Names BOOK_MANY_ITEM = new JsonReader.Names("flightId", "seats");
+
+    private DtoCodec() {
+    }
+
+    private interface FieldReader<T> {
+        void read(JsonReader reader, T dto, int field) throws IOException;
+    }
+
+    public static LoginDTO readLogin(InputStream in) throws IOException {
+        return readDocument(in, new LoginDTO(), LOGIN, (r, dto, field) -> {
+            switch (field) {
+                case 0 -> dto.email = r.nextString();
+                case 1 -> dto.password = r.nextString();
+                default -> r.skipValue();
+            }
+        });
+    }
+
+    public static RegisterUserDTO readRegisterUser(InputStream in) throws IOException {
+        return readDocument(in, new RegisterUserDTO(), REGISTER_USER, (r, dto, field) -> {
+            switch (field) {
+                case 0 -> dto.firstName = r.nextString();
+                case 1 -> dto.lastName = r.nextString();
+                case 2 -> dto.email = r.nextString();
+                case 3 -> dto.password = r.nextString();
+                default -> r.skipValue();
+            }
+        });
+    }
+
+    public static NewFlightRequestDTO readNewFlight(InputStream in) throws IOException {
+        return readDocument(in, new NewFlightRequestDTO(), NEW_FLIGHT, DtoCodec::readNewFlightField);
+    }
+
+    /**
+     * {inputs: [vuelo, ...]} de /flights/create-many; sin inputs devuelve una lista vacía.
+     */
+    public static List<NewFlightRequestDTO> readNewFlights(InputStream in) throws IOException {
+        return readDocument(in, new ArrayList<>(), NEW_FLIGHTS, (r, list, field) -> {
+            if (field != 0) {
+                r.skipValue();
+                return;
+            }
+            r.beginArray();
+            while (r.hasNext()) {
+                list.add(readObject(r, new NewFlightRequestDTO(), NEW_FLIGHT, DtoCodec::readNewFlightField));
+            }
+            r.endArray();
+        });
+    }
+
+    public static FlightBookRequestDTO readFlightBook(InputStream in) throws IOException {
+        return readDocument(in, new FlightBookRequestDTO(), FLIGHT_BOOK, (r, dto, field) -> {
+            if (field == 0) {
+                dto.flightId = r.nextString();
+            } else {
+                r.skipValue();
+            }
+        });
+    }
+
+    /**
+     * {mode, items: [{flightId, seats}]} de /flights/book-many. seats tiene que ser un entero
+     * (número o texto); cualquier otra cosa es MalformedJsonException, no un valor por defecto.
+     */
+    public static BookManyRequestDTO readBookMany(InputStream in) throws IOException {
+        return readDocument(in, new BookManyRequestDTO(), BOOK_MANY, (r, dto, field) -> {
+            switch (field) {
+                case 0 -> dto.mode = r.nextString();
+                case 1 -> {
+                    dto.items = new ArrayList<>();
+                    r.beginArray();
+                    while (r.hasNext()) {
+                        dto.items.add(readObject(r, new BookManyRequestDTO.Item(), BOOK_MANY_ITEM,
+                                DtoCodec::readBookManyItemField));
+                    }
+                    r.endArray();
+                }
+                default -> r.skipValue();
+            }
+        });
+    }
+
+    private static void readBookManyItemField(JsonReader r, BookManyRequestDTO.Item item, int field)
+            throws IOException {
+        switch (field) {
+            case 0 -> item.flightId = r.nextString();
+            case 1 -> {
+                String seats = r.nextString();
+                try {
+                    item.seats = seats != null ? Integer.parseInt(seats) : null;
+                } catch (NumberFormatException e) {
+                    throw new MalformedJsonException("seats must be an integer");
+                }
+            }
+            default -> r.skipValue();
+        }
+    }
+
+    private static void readNewFlightField(JsonReader r, NewFlightRequestDTO dto, int field) throws IOException {
+        switch (field) {
+            case 0 -> dto.airlineName = r.nextString();
+            case 1 -> dto.flightNumber = r.nextString();
+            case 2 -> dto.estDepartureTime = r.nextString();
+            case 3 -> dto.estArrivalTime = r.nextString();
+            case 4 -> dto.availableSeats = r.nextInt();
+            default -> r.skipValue();
+        }
+    }
+
+    private static <T> T readDocument(InputStream in, T dto, JsonReader.Names names, FieldReader<T> fields)
+            throws IOException {
+        try (JsonReader reader = new JsonReader(in)) {
+            if (reader.isEmpty()) return null;
+            readObject(reader, dto, names, fields);
+            reader.endDocument();
+            return dto;
+        }
+    }
+
+    private static <T> T readObject(JsonReader reader, T dto, JsonReader.Names names, FieldReader<T> fields)
+            throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            fields.read(reader, dto, reader.selectName(names));
+        }
+        reader.endObject();
+        return dto;
+    }
+
+    public static void writeId(JsonWriter writer, String id) throws IOException {
+        writer.beginObject().field("id", id).endObject();
+    }
+
+    public static void writeToken(JsonWriter writer, String token) throws IOException {
+        writer.beginObject().field("token", token).endObject();
+    }
+
+    public static void writeError(JsonWriter writer, String message) throws IOException {
+        writer.beginObject().field("error", message).endObject();
+    }
+
+    // Sin password
+    public static void writeUser(JsonWriter writer, UserDTO user) throws IOException {
+        writer.beginObject()
+                .field("id", user.id)
+                .field("firstName", user.firstName)
+                .field("lastName", user.lastName)
+                .field("email", user.email)
+                .endObject();
+    }
+
+    /**
+     * availableSeats es el stock vivo (SeatInventory), no la capacidad guardada en el DTO.
+     */
+    public static void writeFlight(JsonWriter writer, FlightDTO flight, int availableSeats) throws IOException {
+        writer.beginObject()
+                .field("id", flight.id)
+                .field("airlineName", flight.airlineName)
+                .field("flightNumber", flight.flightNumber)
+                .field("estDepartureTime", flight.estDepartureTime)
+                .field("estArrivalTime", flight.estArrivalTime)
+                .field("availableSeats", availableSeats)
+                .endObject();
+    }
+
+    /**
+     * Reserva con los horarios del vuelo (vacíos si el vuelo ya no existe).
+     */
+    public static void writeBooking(JsonWriter writer, BookingDTO booking, FlightDTO flight) throws IOException {
+        writer.beginObject()
+                .field("id", booking.id)
+                .field("bookingDate", booking.bookingDate)
+                .field("flightId", booking.flightId)
+                .field("flightNumber", booking.flightNumber)
+                .field("customerId", booking.customerId)
+                .field("customerFirstName", booking.customerFirstName)
+                .field("customerLastName", booking.customerLastName)
+                .field("estDepartureTime", flight != null ? flight.estDepartureTime : "")
+                .field("estArrivalTime", flight != null ? flight.estArrivalTime : "")
+                .endObject();
+    }
+}
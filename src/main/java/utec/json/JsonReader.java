@@ -0,0 +1,367 @@
+package utec.json;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Lector JSON tipo pull que decodifica directo de los bytes UTF-8 del InputStream, sobre un
+ * buffer reutilizable (pool). Los nombres de campo se comparan como bytes contra nombres ya
+ * codificados (Names), sin crear Strings; solo se materializan los valores que se leen.
+ * <p>
+ * Es permisivo como org.json en los tipos: nextString acepta números y literales y nextInt
+ * acepta números entre comillas.
+ */
+public class JsonReader implements Closeable {
+    private static final int BUFFER_SIZE = 8 * 1024;
+    private static final BlockingQueue<byte[]> BUFFERS = new ArrayBlockingQueue<>(256);
+    private static final int MAX_DEPTH = 64;
+
+    /**
+     * Nombres de campo de un DTO, codificados una sola vez.
+     */
+    public static final class Names {
+        private final byte[][] names;
+
+        public Names(String... names) {
+            this.names = new byte[names.length][];
+            for (int i = 0; i < names.length; i++) {
+                this.names[i] = names[i].getBytes(StandardCharsets.UTF_8);
+            }
+        }
+    }
+
+    private final InputStream in;
+    private byte[] buf;
+    private int pos;
+    private int limit;
+    // Bytes del string o número que se está leyendo
+    private byte[] scratch = new byte[64];
+    private int scratchLength;
+    // expectComma[depth]: ya se leyó un elemento del objeto/arreglo actual
+    private final boolean[] expectComma = new boolean[MAX_DEPTH];
+    private int depth;
+
+    public JsonReader(InputStream in) {
+        this.in = in;
+        byte[] pooled = BUFFERS.poll();
+        this.buf = pooled != null ? pooled : new byte[BUFFER_SIZE];
+    }
+
+    /**
+     * true si no queda nada más que espacios (por ejemplo, un body vacío).
+     */
+    public boolean isEmpty() throws IOException {
+        return peekToken() < 0;
+    }
+
+    public void beginObject() throws IOException {
+        expect('{');
+        push();
+    }
+
+    public void endObject() throws IOException {
+        expect('}');
+        pop();
+    }
+
+    public void beginArray() throws IOException {
+        expect('[');
+        push();
+    }
+
+    public void endArray() throws IOException {
+        expect(']');
+        pop();
+    }
+
+    /**
+     * true si el objeto/arreglo actual tiene otro elemento; consume la coma que lo separa.
+     */
+    public boolean hasNext() throws IOException {
+        int c = peekToken();
+        if (expectComma[depth]) {
+            if (c == '}' || c == ']') return false;
+            if (c != ',') throw malformed("Expected ','");
+            pos++;
+            expectComma[depth] = false;
+            c = peekToken();
+            if (c == '}' || c == ']') throw malformed("Trailing ','");
+            return true;
+        }
+        return c != '}' && c != ']' && c >= 0;
+    }
+
+    /**
+     * Lee el próximo nombre de campo y devuelve su posición en names, o -1 si no es ninguno
+     * (el valor se puede saltar con skipValue).
+     */
+    public int selectName(Names names) throws IOException {
+        expect('"');
+        readStringBytes();
+        expect(':');
+        for (int i = 0; i < names.names.length; i++) {
+            if (Arrays.equals(scratch, 0, scratchLength, names.names[i], 0, names.names[i].length)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * El próximo valor como String; null si es null. Números y literales se devuelven como texto.
+     */
+    public String nextString() throws IOException {
+        int c = peekToken();
+        String value;
+        if (c == '"') {
+            pos++;
+            readStringBytes();
+            value = new String(scratch, 0, scratchLength, StandardCharsets.UTF_8);
+        } else if (c == '{' || c == '[' || c < 0) {
+            throw malformed("Expected a string");
+        } else {
+            readLiteral();
+            value = isNull() ? null : new String(scratch, 0, scratchLength, StandardCharsets.ISO_8859_1);
+        }
+        expectComma[depth] = true;
+        return value;
+    }
+
+    /**
+     * El próximo valor como int (los decimales se truncan, como getInt de org.json).
+     */
+    public int nextInt() throws IOException {
+        int c = peekToken();
+        if (c == '"') {
+            pos++;
+            readStringBytes();
+        } else {
+            readLiteral();
+        }
+        expectComma[depth] = true;
+        return parseInt();
+    }
+
+    public void skipValue() throws IOException {
+        int c = peekToken();
+        if (c == '{') {
+            beginObject();
+            while (hasNext()) {
+                expect('"');
+                readStringBytes();
+                expect(':');
+                skipValue();
+            }
+            endObject();
+        } else if (c == '[') {
+            beginArray();
+            while (hasNext()) skipValue();
+            endArray();
+        } else {
+            nextString();
+        }
+    }
+
+    /**
+     * Verifica que después del documento solo queden espacios.
+     */
+    public void endDocument() throws IOException {
+        if (peekToken() >= 0) throw malformed("Unexpected data after JSON document");
+    }
+
+    @Override
+    public void close() {
+        if (buf == null) return;
+        BUFFERS.offer(buf);
+        buf = null;
+    }
+
+    private void push() throws MalformedJsonException {
+        expectComma[depth] = true;
+        if (++depth >= MAX_DEPTH) throw malformed("JSON nesting too deep");
+        expectComma[depth] = false;
+    }
+
+    private void pop() throws MalformedJsonException {
+        if (depth == 0) throw malformed("Unbalanced JSON");
+        depth--;
+    }
+
+    private void expect(char expected) throws IOException {
+        if (peekToken() != expected) throw malformed("Expected '" + expected + "'");
+        pos++;
+    }
+
+    // Próximo byte que no es espacio, sin consumirlo; -1 al final
+    private int peekToken() throws IOException {
+        while (true) {
+            if (pos == limit && !fill()) return -1;
+            byte b = buf[pos];
+            if (b == ' ' || b == '\n' || b == '\r' || b == '\t') {
+                pos++;
+            } else {
+                return b & 0xFF;
+            }
+        }
+    }
+
+    private boolean fill() throws IOException {
+        int n = in.read(buf, 0, buf.length);
+        if (n <= 0) return false;
+        pos = 0;
+        limit = n;
+        return true;
+    }
+
+    private int read() throws IOException {
+        if (pos == limit && !fill()) throw malformed("Unexpected end of JSON");
+        return buf[pos++] & 0xFF;
+    }
+
+    // Lee hasta la comilla de cierre (ya consumida la de apertura) y deja los bytes en scratch
+    private void readStringBytes() throws IOException {
+        scratchLength = 0;
+        while (true) {
+            int b = read();
+            if (b == '"') return;
+            if (b == '\\') {
+                readEscape();
+            } else if (b < 0x20) {
+                throw malformed("Control character in string");
+            } else {
+                append(b);
+            }
+        }
+    }
+
+    private void readEscape() throws IOException {
+        escape(read());
+    }
+
+    private void escape(int c) throws IOException {
+        switch (c) {
+            case '"', '\\', '/' -> append(c);
+            case 'n' -> append('\n');
+            case 'r' -> append('\r');
+            case 't' -> append('\t');
+            case 'b' -> append('\b');
+            case 'f' -> append('\f');
+            case 'u' -> {
+                int cp = readHex();
+                if (!Character.isHighSurrogate((char) cp) || peek() != '\\') {
+                    appendCodePoint(Character.isSurrogate((char) cp) ? '?' : cp);
+                    return;
+                }
+                // El par puede quedar partido entre dos lecturas del buffer: se lee byte a byte
+                pos++;
+                int next = read();
+                if (next != 'u') {
+                    appendCodePoint('?');
+                    escape(next);
+                    return;
+                }
+                int low = readHex();
+                if (Character.isLowSurrogate((char) low)) {
+                    appendCodePoint(Character.toCodePoint((char) cp, (char) low));
+                } else {
+                    appendCodePoint('?');
+                    appendCodePoint(Character.isSurrogate((char) low) ? '?' : low);
+                }
+            }
+            default -> throw malformed("Invalid escape");
+        }
+    }
+
+    // Próximo byte sin consumirlo (cargando el buffer si hace falta)
+    private int peek() throws IOException {
+        if (pos == limit && !fill()) throw malformed("Unexpected end of JSON");
+        return buf[pos] & 0xFF;
+    }
+
+    private int readHex() throws IOException {
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            int digit = Character.digit(read(), 16);
+            if (digit < 0) throw malformed("Invalid \\u escape");
+            value = (value << 4) | digit;
+        }
+        return value;
+    }
+
+    // Número, true, false o null: hasta el próximo separador
+    private void readLiteral() throws IOException {
+        scratchLength = 0;
+        while (true) {
+            if (pos == limit && !fill()) break;
+            int b = buf[pos] & 0xFF;
+            if (b == ',' || b == '}' || b == ']' || b == ' ' || b == '\n' || b == '\r' || b == '\t') break;
+            if (b == '"' || b == '{' || b == '[' || b == ':') throw malformed("Unexpected character");
+            append(b);
+            pos++;
+        }
+        if (scratchLength == 0) throw malformed("Expected a value");
+    }
+
+    private boolean isNull() {
+        return scratchLength == 4 && scratch[0] == 'n' && scratch[1] == 'u' && scratch[2] == 'l' && scratch[3] == 'l';
+    }
+
+    private int parseInt() throws MalformedJsonException {
+        long value = 0;
+        int i = 0;
+        boolean negative = scratchLength > 0 && scratch[0] == '-';
+        if (negative) i++;
+        if (i == scratchLength) throw malformed("Expected a number");
+        for (; i < scratchLength; i++) {
+            int d = scratch[i] - '0';
+            if (d < 0 || d > 9) return parseDecimal();
+            value = value * 10 + d;
+            if (value > Integer.MAX_VALUE + 1L) throw malformed("Number out of range");
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) throw malformed("Number out of range");
+        return (int) value;
+    }
+
+    private int parseDecimal() throws MalformedJsonException {
+        try {
+            double d = Double.parseDouble(new String(scratch, 0, scratchLength, StandardCharsets.ISO_8859_1));
+            if (d > Integer.MAX_VALUE || d < Integer.MIN_VALUE || Double.isNaN(d)) throw malformed("Number out of range");
+            return (int) d;
+        } catch (NumberFormatException e) {
+            throw malformed("Expected a number");
+        }
+    }
+
+    private void appendCodePoint(int cp) {
+        if (cp < 0x80) {
+            append(cp);
+        } else if (cp < 0x800) {
+            append(0xC0 | (cp >> 6));
+            append(0x80 | (cp & 0x3F));
+        } else if (cp < 0x10000) {
+            append(0xE0 | (cp >> 12));
+            append(0x80 | ((cp >> 6) & 0x3F));
+            append(0x80 | (cp & 0x3F));
+        } else {
+            append(0xF0 | (cp >> 18));
+            append(0x80 | ((cp >> 12) & 0x3F));
+            append(0x80 | ((cp >> 6) & 0x3F));
+            append(0x80 | (cp & 0x3F));
+        }
+    }
+
+    private void append(int b) {
+        if (scratchLength == scratch.length) scratch = Arrays.copyOf(scratch, scratch.length * 2);
+        scratch[scratchLength++] = (byte) b;
+    }
+
+    private static MalformedJsonException malformed(String message) {
+        return new MalformedJsonException(message);
+    }
+}
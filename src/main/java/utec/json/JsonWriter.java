@@ -0,0 +1,207 @@
+package utec.json;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Escritor JSON que codifica directo a UTF-8 sobre un buffer reutilizable (pool) y lo vuelca
+ * al OutputStream cuando se llena. La memoria por respuesta es la del buffer, sin importar
+ * el tamaño del documento.
+ */
+public class JsonWriter implements Closeable {
+    private static final int BUFFER_SIZE = 8 * 1024;
+    private static final BlockingQueue<byte[]> BUFFERS = new ArrayBlockingQueue<>(256);
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+    private static final int MAX_DEPTH = 64;
+
+    private final OutputStream out;
+    private byte[] buf;
+    private int pos;
+    // needsComma[depth]: ya hay un elemento en el objeto/arreglo actual
+    private final boolean[] needsComma = new boolean[MAX_DEPTH];
+    private int depth;
+    private boolean afterName;
+    private boolean flushedOnce;
+
+    public JsonWriter(OutputStream out) {
+        this.out = out;
+        byte[] pooled = BUFFERS.poll();
+        this.buf = pooled != null ? pooled : new byte[BUFFER_SIZE];
+    }
+
+    public JsonWriter beginObject() throws IOException {
+        beforeValue();
+        writeByte('{');
+        push();
+        return this;
+    }
+
+    public JsonWriter endObject() throws IOException {
+        depth--;
+        writeByte('}');
+        return this;
+    }
+
+    public JsonWriter beginArray() throws IOException {
+        beforeValue();
+        writeByte('[');
+        push();
+        return this;
+    }
+
+    public JsonWriter endArray() throws IOException {
+        depth--;
+        writeByte(']');
+        return this;
+    }
+
+    public JsonWriter name(String name) throws IOException {
+        if (needsComma[depth]) writeByte(',');
+        needsComma[depth] = true;
+        writeString(name);
+        writeByte(':');
+        afterName = true;
+        return this;
+    }
+
+    public JsonWriter value(String value) throws IOException {
+        if (value == null) return nullValue();
+        beforeValue();
+        writeString(value);
+        return this;
+    }
+
+    public JsonWriter value(long value) throws IOException {
+        beforeValue();
+        writeAscii(Long.toString(value));
+        return this;
+    }
+
+    public JsonWriter value(boolean value) throws IOException {
+        beforeValue();
+        writeAscii(value ? "true" : "false");
+        return this;
+    }
+
+    public JsonWriter nullValue() throws IOException {
+        beforeValue();
+        writeAscii("null");
+        return this;
+    }
+
+    public JsonWriter field(String name, String value) throws IOException {
+        return name(name).value(value);
+    }
+
+    public JsonWriter field(String name, long value) throws IOException {
+        return name(name).value(value);
+    }
+
+    /**
+     * true si el documento ya se empezó a enviar (no cupo en un solo buffer).
+     */
+    protected boolean isFlushedOnce() {
+        return flushedOnce;
+    }
+
+    /**
+     * Vuelca el buffer. last indica que es el último bloque del documento.
+     */
+    protected void flushBuffer(byte[] bytes, int length, boolean last) throws IOException {
+        out.write(bytes, 0, length);
+        if (last) out.close();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (buf == null) return;
+        try {
+            flushBuffer(buf, pos, true);
+        } finally {
+            BUFFERS.offer(buf);
+            buf = null;
+        }
+    }
+
+    private void push() {
+        if (++depth >= MAX_DEPTH) throw new IllegalStateException("JSON nesting too deep");
+        needsComma[depth] = false;
+    }
+
+    private void beforeValue() throws IOException {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        if (depth > 0) {
+            if (needsComma[depth]) writeByte(',');
+            needsComma[depth] = true;
+        }
+    }
+
+    private void writeString(String s) throws IOException {
+        writeByte('"');
+        for (int i = 0, n = s.length(); i < n; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                switch (c) {
+                    case '"' -> writeEscape('"');
+                    case '\\' -> writeEscape('\\');
+                    case '\n' -> writeEscape('n');
+                    case '\r' -> writeEscape('r');
+                    case '\t' -> writeEscape('t');
+                    case '\b' -> writeEscape('b');
+                    case '\f' -> writeEscape('f');
+                    default -> {
+                        if (c < 0x20) {
+                            writeEscape('u');
+                            writeByte('0');
+                            writeByte('0');
+                            writeByte(HEX[c >> 4]);
+                            writeByte(HEX[c & 0xF]);
+                        } else {
+                            writeByte(c);
+                        }
+                    }
+                }
+            } else if (c < 0x800) {
+                writeByte(0xC0 | (c >> 6));
+                writeByte(0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                writeByte(0xF0 | (cp >> 18));
+                writeByte(0x80 | ((cp >> 12) & 0x3F));
+                writeByte(0x80 | ((cp >> 6) & 0x3F));
+                writeByte(0x80 | (cp & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                writeByte('?');
+            } else {
+                writeByte(0xE0 | (c >> 12));
+                writeByte(0x80 | ((c >> 6) & 0x3F));
+                writeByte(0x80 | (c & 0x3F));
+            }
+        }
+        writeByte('"');
+    }
+
+    private void writeEscape(char c) throws IOException {
+        writeByte('\\');
+        writeByte(c);
+    }
+
+    private void writeAscii(String s) throws IOException {
+        for (int i = 0, n = s.length(); i < n; i++) writeByte(s.charAt(i));
+    }
+
+    private void writeByte(int b) throws IOException {
+        if (pos == buf.length) {
+            flushBuffer(buf, pos, false);
+            flushedOnce = true;
+            pos = 0;
+        }
+        buf[pos++] = (byte) b;
+    }
+}
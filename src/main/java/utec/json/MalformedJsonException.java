@@ -0,0 +1,13 @@
+package utec.json;
+
+import java.io.IOException;
+
+/**
+ * El cuerpo no es JSON válido o no tiene la forma esperada.
+ */
+public class MalformedJsonException extends IOException {
+
+    public MalformedJsonException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,75 @@
+package utec.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Limita los WARN y ERROR repetidos: cada combinación logger + mensaje (el formato, sin los
+ * parámetros) deja pasar maxPerInterval eventos por intervalo y descarta el resto. Al abrir
+ * el intervalo siguiente se informa cuántos se descartaron. Los niveles menores pasan sin
+ * tocar nada, así un debug desactivado no paga más que una comparación.
+ */
+public class ErrorRateLimitFilter extends TurboFilter {
+    private static final String SUMMARY_LOGGER = ErrorRateLimitFilter.class.getName();
+
+    private int maxPerInterval = 5;
+    private long intervalMillis = 10_000;
+    private int maxKeys = 1000;
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+
+    private static final class Window {
+        private long start;
+        private int count;
+        private int suppressed;
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        // format == null: es un isXxxEnabled(), no un evento
+        if (level == null || level.levelInt < Level.WARN_INT || format == null) return FilterReply.NEUTRAL;
+        if (!level.isGreaterOrEqual(logger.getEffectiveLevel())) return FilterReply.NEUTRAL;
+        if (SUMMARY_LOGGER.equals(logger.getName())) return FilterReply.NEUTRAL;
+
+        if (windows.size() >= maxKeys) windows.clear();
+        Window window = windows.computeIfAbsent(logger.getName() + '|' + format, k -> new Window());
+
+        long now = System.currentTimeMillis();
+        int suppressed = 0;
+        synchronized (window) {
+            if (now - window.start >= intervalMillis) {
+                suppressed = window.suppressed;
+                window.start = now;
+                window.count = 0;
+                window.suppressed = 0;
+            }
+            if (window.count >= maxPerInterval) {
+                window.suppressed++;
+                return FilterReply.DENY;
+            }
+            window.count++;
+        }
+        if (suppressed > 0) {
+            logger.getLoggerContext().getLogger(SUMMARY_LOGGER)
+                    .warn("Se descartaron {} eventos repetidos de {}: {}", suppressed, logger.getName(), format);
+        }
+        return FilterReply.NEUTRAL;
+    }
+
+    public void setMaxPerInterval(int maxPerInterval) {
+        this.maxPerInterval = maxPerInterval;
+    }
+
+    public void setIntervalSeconds(long intervalSeconds) {
+        this.intervalMillis = intervalSeconds * 1000;
+    }
+
+    public void setMaxKeys(int maxKeys) {
+        this.maxKeys = maxKeys;
+    }
+}
@@ -0,0 +1,45 @@
+package utec.logging;
+
+import ch.qos.logback.classic.pattern.MessageConverter;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+import java.util.regex.Pattern;
+
+/**
+ * %redactedMsg: el mensaje con las credenciales tapadas (passwords en JSON, tokens Bearer y
+ * JWTs), por si alguna termina en un log. Corre en el hilo del appender asíncrono y solo
+ * aplica los regex si el mensaje contiene algo sospechoso.
+ */
+public class RedactingMessageConverter extends MessageConverter {
+    private static final String MASK = "****";
+    private static final Pattern PASSWORD = Pattern.compile("(\"password\"\\s*:\\s*\")[^\"]*(\")", Pattern.CASE_INSENSITIVE);
+    private static final Pattern BEARER = Pattern.compile("(Bearer\\s+)[A-Za-z0-9._~+/=-]+");
+    private static final Pattern JWT = Pattern.compile("eyJ[A-Za-z0-9_-]*\\.[A-Za-z0-9_-]+\\.[A-Za-z0-9_-]*");
+
+    @Override
+    public String convert(ILoggingEvent event) {
+        return redact(super.convert(event));
+    }
+
+    static String redact(String message) {
+        if (message == null) return null;
+        String result = message;
+        if (containsIgnoreCase(result, "password")) {
+            result = PASSWORD.matcher(result).replaceAll("$1" + MASK + "$2");
+        }
+        if (result.contains("Bearer")) {
+            result = BEARER.matcher(result).replaceAll("$1" + MASK);
+        }
+        if (result.contains("eyJ")) {
+            result = JWT.matcher(result).replaceAll(MASK);
+        }
+        return result;
+    }
+
+    private static boolean containsIgnoreCase(String s, String part) {
+        for (int i = 0; i + part.length() <= s.length(); i++) {
+            if (s.regionMatches(true, i, part, 0, part.length())) return true;
+        }
+        return false;
+    }
+}
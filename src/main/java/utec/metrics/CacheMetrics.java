@@ -0,0 +1,55 @@
+package utec.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contadores de un cache: aciertos, fallos, desalojos por tamaño y entradas actuales.
+ */
+public final class CacheMetrics {
+    private final String name;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private volatile long entries;
+
+    CacheMetrics(String name) {
+        this.name = name;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public void hit() {
+        hits.increment();
+    }
+
+    public void miss() {
+        misses.increment();
+    }
+
+    public void evicted() {
+        evictions.increment();
+    }
+
+    // Lo actualiza el cache cada vez que cambia de tamaño
+    public void entries(long entries) {
+        this.entries = entries;
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    public long entries() {
+        return entries;
+    }
+}
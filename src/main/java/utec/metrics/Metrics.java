@@ -0,0 +1,142 @@
+package utec.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Registro de métricas del proceso y su exposición en el formato de texto de Prometheus.
+ * Los route se identifican como "METHOD /patrón"; un mismo nombre devuelve siempre la misma
+ * instancia, así el handler que envuelve el route y el controller que mide sus etapas
+ * comparten contadores.
+ */
+public final class Metrics {
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+    private static final Map<String, StageTimings> TIMINGS = new ConcurrentSkipListMap<>();
+    private static final Map<String, CacheMetrics> CACHES = new ConcurrentSkipListMap<>();
+    private static final Map<String, Gauge> GAUGES = new ConcurrentSkipListMap<>();
+
+    private record Gauge(String help, LongSupplier value) {
+    }
+
+    private Metrics() {
+    }
+
+    public static RouteMetrics route(String name) {
+        StageTimings timings = TIMINGS.computeIfAbsent(name, RouteMetrics::new);
+        if (!(timings instanceof RouteMetrics route)) {
+            throw new IllegalArgumentException(name + " is not a route");
+        }
+        return route;
+    }
+
+    /**
+     * Etapas de un proceso que no es un route (por ejemplo, la escritura de correos).
+     */
+    public static StageTimings background(String name) {
+        return TIMINGS.computeIfAbsent(name, StageTimings::new);
+    }
+
+    public static CacheMetrics cache(String name) {
+        return CACHES.computeIfAbsent(name, CacheMetrics::new);
+    }
+
+    /**
+     * Valor leído al exponer las métricas. Registrar otra vez el mismo nombre reemplaza al anterior.
+     */
+    public static void gauge(String name, String help, LongSupplier value) {
+        GAUGES.put(name, new Gauge(help, value));
+    }
+
+    public static String prometheus() {
+        StringBuilder out = new StringBuilder(16 * 1024);
+
+        family(out, "utec_http_requests_total", "counter", "Requests recibidos por route.");
+        for (RouteMetrics route : routes()) {
+            sample(out, "utec_http_requests_total", route, null, route.requests());
+        }
+
+        family(out, "utec_http_errors_total", "counter", "Respuestas con status >= 400 por route y status.");
+        for (RouteMetrics route : routes()) {
+            for (int status = 400; status < 600; status++) {
+                long count = route.responses(status);
+                if (count > 0) sample(out, "utec_http_errors_total", route, "status=\"" + status + "\"", count);
+            }
+            long failed = route.responses(0);
+            if (failed > 0) sample(out, "utec_http_errors_total", route, "status=\"unknown\"", failed);
+        }
+
+        family(out, "utec_http_requests_in_flight", "gauge", "Requests en curso por route.");
+        for (RouteMetrics route : routes()) {
+            sample(out, "utec_http_requests_in_flight", route, null, route.inFlight());
+        }
+
+        family(out, "utec_http_request_duration_seconds", "summary", "Latencia total del request por route.");
+        for (RouteMetrics route : routes()) {
+            summary(out, "utec_http_request_duration_seconds", route, null, route.latency().snapshot());
+        }
+
+        family(out, "utec_stage_duration_seconds", "summary", "Latencia por etapa del request.");
+        for (StageTimings timings : TIMINGS.values()) {
+            for (Stage stage : Stage.values()) {
+                LatencyHistogram histogram = timings.stage(stage);
+                if (histogram != null) {
+                    summary(out, "utec_stage_duration_seconds", timings,
+                            "stage=\"" + stage.label() + "\"", histogram.snapshot());
+                }
+            }
+        }
+
+        family(out, "utec_cache_hits_total", "counter", "Lecturas resueltas desde el cache.");
+        CACHES.values().forEach(c -> cacheSample(out, "utec_cache_hits_total", c, c.hits()));
+        family(out, "utec_cache_misses_total", "counter", "Lecturas que no estaban en el cache.");
+        CACHES.values().forEach(c -> cacheSample(out, "utec_cache_misses_total", c, c.misses()));
+        family(out, "utec_cache_evictions_total", "counter", "Entradas desalojadas por tamaño.");
+        CACHES.values().forEach(c -> cacheSample(out, "utec_cache_evictions_total", c, c.evictions()));
+        family(out, "utec_cache_entries", "gauge", "Entradas en el cache.");
+        CACHES.values().forEach(c -> cacheSample(out, "utec_cache_entries", c, c.entries()));
+
+        GAUGES.forEach((name, gauge) -> {
+            family(out, name, "gauge", gauge.help());
+            out.append(name).append(' ').append(gauge.value().getAsLong()).append('\n');
+        });
+        return out.toString();
+    }
+
+    private static Iterable<RouteMetrics> routes() {
+        return TIMINGS.values().stream()
+                .filter(RouteMetrics.class::isInstance)
+                .map(RouteMetrics.class::cast)
+                .toList();
+    }
+
+    private static void family(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void summary(StringBuilder out, String name, StageTimings timings, String labels,
+                                LatencyHistogram.Snapshot snapshot) {
+        for (double q : QUANTILES) {
+            String quantile = "quantile=\"" + q + "\"";
+            sample(out, name, timings, labels == null ? quantile : labels + "," + quantile,
+                    seconds(snapshot.quantile(q)));
+        }
+        sample(out, name + "_sum", timings, labels, seconds(snapshot.sumNanos()));
+        sample(out, name + "_count", timings, labels, snapshot.count());
+    }
+
+    private static void sample(StringBuilder out, String name, StageTimings timings, String labels, Object value) {
+        out.append(name).append("{route=\"").append(timings.name()).append('"');
+        if (labels != null) out.append(',').append(labels);
+        out.append("} ").append(value).append('\n');
+    }
+
+    private static void cacheSample(StringBuilder out, String name, CacheMetrics cache, long value) {
+        out.append(name).append("{cache=\"").append(cache.name()).append("\"} ").append(value).append('\n');
+    }
+
+    private static double seconds(long nanos) {
+        return nanos / 1e9;
+    }
+}
@@ -0,0 +1,56 @@
+package utec.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contadores de un route: requests, respuestas por status, requests en curso y latencia total,
+ * además de las etapas de StageTimings. Todo se actualiza con operaciones atómicas, sin locks
+ * ni asignaciones.
+ */
+public class RouteMetrics extends StageTimings {
+    private static final int MAX_STATUS = 600;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder inFlight = new LongAdder();
+    private final AtomicLongArray statuses = new AtomicLongArray(MAX_STATUS);
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    RouteMetrics(String name) {
+        super(name);
+    }
+
+    /**
+     * Marca el inicio de un request y devuelve el instante para completed.
+     */
+    public long started() {
+        requests.increment();
+        inFlight.increment();
+        return System.nanoTime();
+    }
+
+    public void completed(long start, int status) {
+        latency.record(System.nanoTime() - start);
+        inFlight.decrement();
+        statuses.incrementAndGet(status >= 0 && status < MAX_STATUS ? status : 0);
+    }
+
+    long requests() {
+        return requests.sum();
+    }
+
+    long inFlight() {
+        return inFlight.sum();
+    }
+
+    /**
+     * Respuestas con ese status (0 agrupa los status fuera de rango).
+     */
+    long responses(int status) {
+        return statuses.get(status);
+    }
+
+    LatencyHistogram latency() {
+        return latency;
+    }
+}
@@ -0,0 +1,22 @@
+package utec.metrics;
+
+/**
+ * Etapas de un request que se miden por separado.
+ */
+public enum Stage {
+    BODY_READ("body_read"),
+    JSON_PARSE("json_parse"),
+    SERVICE("service"),
+    SERIALIZE("serialize"),
+    EMAIL_WRITE("email_write");
+
+    private final String label;
+
+    Stage(String label) {
+        this.label = label;
+    }
+
+    public String label() {
+        return label;
+    }
+}
@@ -0,0 +1,66 @@
+package utec.metrics;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Histogramas por etapa de un route (o de un proceso en segundo plano). Cada histograma se
+ * crea la primera vez que se usa su etapa; después registrar no asigna memoria.
+ * <p>
+ * record devuelve el instante final para encadenar etapas:
+ * <pre>
+ * long t = System.nanoTime();
+ * ...
+ * t = METRICS.record(Stage.SERVICE, t);
+ * ...
+ * METRICS.record(Stage.SERIALIZE, t);
+ * </pre>
+ */
+public class StageTimings {
+    private final String name;
+    private final AtomicReferenceArray<LatencyHistogram> stages =
+            new AtomicReferenceArray<>(Stage.values().length);
+
+    StageTimings(String name) {
+        this.name = name;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Registra now - start en la etapa y devuelve now.
+     */
+    public long record(Stage stage, long start) {
+        long now = System.nanoTime();
+        histogram(stage).record(now - start);
+        return now;
+    }
+
+    /**
+     * Lectura y decodificación del body hechas en una sola pasada: readNanos (el tiempo dentro
+     * de las lecturas del stream) va a BODY_READ y el resto desde start a JSON_PARSE.
+     */
+    public long recordParse(long start, long readNanos) {
+        long now = System.nanoTime();
+        histogram(Stage.BODY_READ).record(readNanos);
+        histogram(Stage.JSON_PARSE).record(now - start - readNanos);
+        return now;
+    }
+
+    /**
+     * Histograma de la etapa, o null si todavía no se registró nada.
+     */
+    LatencyHistogram stage(Stage stage) {
+        return stages.get(stage.ordinal());
+    }
+
+    private LatencyHistogram histogram(Stage stage) {
+        LatencyHistogram histogram = stages.get(stage.ordinal());
+        if (histogram == null) {
+            stages.compareAndSet(stage.ordinal(), null, new LatencyHistogram());
+            histogram = stages.get(stage.ordinal());
+        }
+        return histogram;
+    }
+}
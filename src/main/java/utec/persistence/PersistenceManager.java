@@ -0,0 +1,142 @@
+package utec.persistence;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import utec.services.BookingService;
+import utec.services.FlightService;
+import utec.services.UserService;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Arranque y snapshots del estado en memoria: snapshot + write-ahead log.
+ * <p>
+ * Un snapshot rota el log (corte consistente), copia el estado y borra el log rotado recién cuando
+ * el snapshot está en disco. El estado copiado puede incluir cambios posteriores a la rotación;
+ * por eso el replay es idempotente y los asientos se recalculan a partir de las reservas.
+ */
+public class PersistenceManager {
+    private static final Logger logger = LoggerFactory.getLogger(PersistenceManager.class);
+
+    private final WriteAheadLog wal;
+    private final SnapshotStore snapshots;
+    private final UserService users;
+    private final FlightService flights;
+    private final BookingService bookings;
+    private ScheduledExecutorService scheduler;
+
+    public PersistenceManager(WriteAheadLog wal, SnapshotStore snapshots,
+                              UserService users, FlightService flights, BookingService bookings) {
+        this.wal = wal;
+        this.snapshots = snapshots;
+        this.users = users;
+        this.flights = flights;
+        this.bookings = bookings;
+    }
+
+    /**
+     * Snapshot en -Dsnapshot.path (por defecto {wal.path}.snapshot); solo con el log activo.
+     */
+    public static SnapshotStore snapshotStoreFor(WriteAheadLog wal) {
+        if (!wal.isEnabled()) return null;
+        String file = System.getProperty("snapshot.path");
+        return new SnapshotStore(file != null && !file.isBlank()
+                ? Path.of(file)
+                : wal.getPath().resolveSibling(wal.getPath().getFileName() + ".snapshot"));
+    }
+
+    /**
+     * Carga el snapshot (si no hay un CLEARED posterior) y aplica el log encima.
+     */
+    public void recover() throws IOException {
+        List<WalRecord> records = wal.open();
+
+        int lastClear = -1;
+        for (int i = records.size() - 1; i >= 0; i--) {
+            if (records.get(i).type() == WalRecord.Type.CLEARED) {
+                lastClear = i;
+                break;
+            }
+        }
+
+        if (lastClear >= 0) {
+            records = records.subList(lastClear + 1, records.size());
+        } else if (snapshots != null && snapshots.exists()) {
+            snapshots.load(users::restoreUser, flights::restoreFlight, bookings::restoreBooking);
+        }
+
+        replay(records);
+        flights.rebuildSearchIndex();
+        bookings.restoreSeatReservations();
+        logger.info("Estado recuperado: {} registros del log aplicados", records.size());
+    }
+
+    /**
+     * Usuarios y vuelos son independientes y se cargan en paralelo; las reservas van después,
+     * salvo las anuladas por un BOOKING_REJECTED.
+     */
+    private void replay(List<WalRecord> records) {
+        if (records.isEmpty()) return;
+
+        CompletableFuture<Void> u = CompletableFuture.runAsync(() -> records.parallelStream()
+                .filter(r -> r.type() == WalRecord.Type.USER_REGISTERED)
+                .forEach(r -> users.restoreUser(r.toUser())));
+        CompletableFuture<Void> f = CompletableFuture.runAsync(() -> records.parallelStream()
+                .filter(r -> r.type() == WalRecord.Type.FLIGHT_CREATED)
+                .forEach(r -> flights.restoreFlight(r.toFlight())));
+        CompletableFuture.allOf(u, f).join();
+
+        Set<String> rejected = records.stream()
+                .filter(r -> r.type() == WalRecord.Type.BOOKING_REJECTED)
+                .map(r -> r.fields()[0])
+                .collect(Collectors.toSet());
+        records.parallelStream()
+                .filter(r -> r.type() == WalRecord.Type.BOOKING_CREATED && !rejected.contains(r.fields()[0]))
+                .forEach(r -> bookings.restoreBooking(r.toBooking()));
+    }
+
+    public synchronized void snapshot() throws IOException {
+        if (snapshots == null) return;
+        wal.rotate();
+        snapshots.write(users.getAllUsers(), flights.getAllFlights(), bookings.getAllBookings());
+        wal.deletePrevious();
+    }
+
+    /**
+     * -Dsnapshot.interval=segundos activa los snapshots periódicos (0 = desactivado).
+     */
+    public void startPeriodicSnapshots() {
+        long interval = Long.getLong("snapshot.interval", 0L);
+        if (snapshots == null || interval <= 0) return;
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> Thread.ofPlatform()
+                .name("snapshot-writer").daemon(true).unstarted(r));
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                snapshot();
+            } catch (Exception e) {
+                logger.error("No se pudo escribir el snapshot", e);
+            }
+        }, interval, interval, TimeUnit.SECONDS);
+    }
+
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            try {
+                scheduler.awaitTermination(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        wal.close();
+    }
+}
@@ -0,0 +1,251 @@
+package utec.persistence;
+
+import utec.dtos.BookingDTO;
+import utec.dtos.FlightDTO;
+import utec.dtos.UserDTO;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Snapshot binario del estado en memoria.
+ * <p>
+ * Layout: bloques de datos (chunks de hasta CHUNK_ENTRIES entidades) seguidos de un footer con,
+ * por sección (usuarios, vuelos, reservas), la tabla [offset, largo, entidades] de sus chunks.
+ * Los últimos 12 bytes son [long offset del footer][int MAGIC]. Cada chunk se mapea con
+ * FileChannel.map y se deserializa en paralelo con los demás.
+ */
+public class SnapshotStore {
+    private static final int MAGIC = 0x55534E50; // "USNP"
+    private static final int VERSION = 1;
+    private static final int CHUNK_ENTRIES = 65_536;
+
+    private record Chunk(long offset, long length, int entries) {
+    }
+
+    private final Path path;
+
+    public SnapshotStore(Path path) {
+        this.path = path;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public boolean exists() {
+        return Files.exists(path);
+    }
+
+    /**
+     * Escribe el snapshot en un archivo temporal y lo reemplaza de forma atómica cuando ya está en disco.
+     */
+    public void write(Collection<UserDTO> users, Collection<FlightDTO> flights, Collection<BookingDTO> bookings)
+            throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            List<List<Chunk>> sections = List.of(
+                    writeSection(channel, users, SnapshotStore::writeUser),
+                    writeSection(channel, flights, SnapshotStore::writeFlight),
+                    writeSection(channel, bookings, SnapshotStore::writeBooking));
+
+            long footerOffset = channel.position();
+            ByteArrayOutputStream footerBytes = new ByteArrayOutputStream();
+            DataOutputStream footer = new DataOutputStream(footerBytes);
+            footer.writeInt(VERSION);
+            footer.writeInt(sections.size());
+            for (List<Chunk> chunks : sections) {
+                footer.writeInt(chunks.size());
+                for (Chunk chunk : chunks) {
+                    footer.writeLong(chunk.offset);
+                    footer.writeLong(chunk.length);
+                    footer.writeInt(chunk.entries);
+                }
+            }
+            footer.writeLong(footerOffset);
+            footer.writeInt(MAGIC);
+            writeFully(channel, ByteBuffer.wrap(footerBytes.toByteArray()));
+            channel.force(true);
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Carga el snapshot: cada chunk de cada sección se deserializa en paralelo y se entrega a los
+     * consumidores, que deben ser thread-safe (los restore* de los servicios lo son).
+     * Las reservas se cargan después de usuarios y vuelos.
+     */
+    public void load(Consumer<UserDTO> users, Consumer<FlightDTO> flights, Consumer<BookingDTO> bookings)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer trailer = channel.map(FileChannel.MapMode.READ_ONLY, size - 12, 12);
+            long footerOffset = trailer.getLong();
+            if (trailer.getInt() != MAGIC) throw new IOException("Not a snapshot file: " + path);
+
+            ByteBuffer footer = channel.map(FileChannel.MapMode.READ_ONLY, footerOffset, size - 12 - footerOffset);
+            if (footer.getInt() != VERSION) throw new IOException("Unsupported snapshot version: " + path);
+            int sectionCount = footer.getInt();
+            List<List<Chunk>> sections = new ArrayList<>(sectionCount);
+            for (int s = 0; s < sectionCount; s++) {
+                int chunkCount = footer.getInt();
+                List<Chunk> chunks = new ArrayList<>(chunkCount);
+                for (int c = 0; c < chunkCount; c++) {
+                    chunks.add(new Chunk(footer.getLong(), footer.getLong(), footer.getInt()));
+                }
+                sections.add(chunks);
+            }
+
+            List<Runnable> first = new ArrayList<>();
+            addChunkTasks(first, channel, sections.get(0), SnapshotStore::readUser, users);
+            addChunkTasks(first, channel, sections.get(1), SnapshotStore::readFlight, flights);
+            first.parallelStream().forEach(Runnable::run);
+
+            List<Runnable> second = new ArrayList<>();
+            addChunkTasks(second, channel, sections.get(2), SnapshotStore::readBooking, bookings);
+            second.parallelStream().forEach(Runnable::run);
+        }
+    }
+
+    private static <T> void addChunkTasks(List<Runnable> tasks, FileChannel channel, List<Chunk> chunks,
+                                          Function<ByteBuffer, T> reader, Consumer<T> consumer) throws IOException {
+        for (Chunk chunk : chunks) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, chunk.offset, chunk.length);
+            tasks.add(() -> {
+                for (int i = 0; i < chunk.entries; i++) {
+                    consumer.accept(reader.apply(buffer));
+                }
+            });
+        }
+    }
+
+    private interface EntryWriter<T> {
+        void write(DataOutputStream out, T value) throws IOException;
+    }
+
+    private static <T> List<Chunk> writeSection(FileChannel channel, Collection<T> values, EntryWriter<T> writer)
+            throws IOException {
+        List<Chunk> chunks = new ArrayList<>();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1 << 20);
+        DataOutputStream out = new DataOutputStream(bytes);
+        int entries = 0;
+
+        for (T value : values) {
+            writer.write(out, value);
+            if (++entries == CHUNK_ENTRIES) {
+                chunks.add(flushChunk(channel, bytes, entries));
+                entries = 0;
+            }
+        }
+        if (entries > 0) {
+            chunks.add(flushChunk(channel, bytes, entries));
+        }
+        return chunks;
+    }
+
+    private static Chunk flushChunk(FileChannel channel, ByteArrayOutputStream bytes, int entries) throws IOException {
+        long offset = channel.position();
+        writeFully(channel, ByteBuffer.wrap(bytes.toByteArray()));
+        Chunk chunk = new Chunk(offset, bytes.size(), entries);
+        bytes.reset();
+        return chunk;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) channel.write(buffer);
+    }
+
+    private static void writeUser(DataOutputStream out, UserDTO u) throws IOException {
+        writeString(out, u.id);
+        writeString(out, u.firstName);
+        writeString(out, u.lastName);
+        writeString(out, u.email);
+        writeString(out, u.password);
+    }
+
+    private static void writeFlight(DataOutputStream out, FlightDTO f) throws IOException {
+        writeString(out, f.id);
+        writeString(out, f.airlineName);
+        writeString(out, f.flightNumber);
+        writeString(out, f.estDepartureTime);
+        writeString(out, f.estArrivalTime);
+        out.writeInt(f.availableSeats);
+    }
+
+    private static void writeBooking(DataOutputStream out, BookingDTO b) throws IOException {
+        writeString(out, b.id);
+        writeString(out, b.bookingDate);
+        writeString(out, b.flightId);
+        writeString(out, b.flightNumber);
+        writeString(out, b.customerId);
+        writeString(out, b.customerFirstName);
+        writeString(out, b.customerLastName);
+    }
+
+    private static UserDTO readUser(ByteBuffer in) {
+        UserDTO u = new UserDTO();
+        u.id = readString(in);
+        u.firstName = readString(in);
+        u.lastName = readString(in);
+        u.email = readString(in);
+        u.password = readString(in);
+        return u;
+    }
+
+    private static FlightDTO readFlight(ByteBuffer in) {
+        FlightDTO f = new FlightDTO();
+        f.id = readString(in);
+        f.airlineName = readString(in);
+        f.flightNumber = readString(in);
+        f.estDepartureTime = readString(in);
+        f.estArrivalTime = readString(in);
+        f.availableSeats = in.getInt();
+        return f;
+    }
+
+    private static BookingDTO readBooking(ByteBuffer in) {
+        BookingDTO b = new BookingDTO();
+        b.id = readString(in);
+        b.bookingDate = readString(in);
+        b.flightId = readString(in);
+        b.flightNumber = readString(in);
+        b.customerId = readString(in);
+        b.customerFirstName = readString(in);
+        b.customerLastName = readString(in);
+        return b;
+    }
+
+    // Strings como [int largo][UTF-8]; -1 representa null
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,124 @@
+package utec.persistence;
+
+import utec.dtos.BookingDTO;
+import utec.dtos.FlightDTO;
+import utec.dtos.UserDTO;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Evento del write-ahead log. Cada BOOKING_CREATED implica el descuento de un asiento del vuelo;
+ * un BOOKING_REJECTED anula una reserva ya escrita que no se llegó a publicar.
+ */
+public record WalRecord(Type type, String[] fields) {
+    private static final byte[] EMPTY = new byte[0];
+
+    public enum Type {
+        USER_REGISTERED,
+        FLIGHT_CREATED,
+        BOOKING_CREATED,
+        CLEARED,
+        BOOKING_REJECTED
+    }
+
+    public static WalRecord user(UserDTO u) {
+        return new WalRecord(Type.USER_REGISTERED, new String[]{u.id, u.firstName, u.lastName, u.email, u.password});
+    }
+
+    public static WalRecord flight(FlightDTO f) {
+        return new WalRecord(Type.FLIGHT_CREATED, new String[]{f.id, f.airlineName, f.flightNumber,
+                f.estDepartureTime, f.estArrivalTime, String.valueOf(f.availableSeats)});
+    }
+
+    public static WalRecord booking(BookingDTO b) {
+        return new WalRecord(Type.BOOKING_CREATED, new String[]{b.id, b.bookingDate, b.flightId, b.flightNumber,
+                b.customerId, b.customerFirstName, b.customerLastName});
+    }
+
+    public static WalRecord bookingRejected(BookingDTO b) {
+        return new WalRecord(Type.BOOKING_REJECTED, new String[]{b.id});
+    }
+
+    public static WalRecord cleared() {
+        return new WalRecord(Type.CLEARED, new String[0]);
+    }
+
+    public UserDTO toUser() {
+        UserDTO u = new UserDTO();
+        u.id = fields[0];
+        u.firstName = fields[1];
+        u.lastName = fields[2];
+        u.email = fields[3];
+        u.password = fields[4];
+        return u;
+    }
+
+    public FlightDTO toFlight() {
+        FlightDTO f = new FlightDTO();
+        f.id = fields[0];
+        f.airlineName = fields[1];
+        f.flightNumber = fields[2];
+        f.estDepartureTime = fields[3];
+        f.estArrivalTime = fields[4];
+        f.availableSeats = Integer.parseInt(fields[5]);
+        return f;
+    }
+
+    public BookingDTO toBooking() {
+        BookingDTO b = new BookingDTO();
+        b.id = fields[0];
+        b.bookingDate = fields[1];
+        b.flightId = fields[2];
+        b.flightNumber = fields[3];
+        b.customerId = fields[4];
+        b.customerFirstName = fields[5];
+        b.customerLastName = fields[6];
+        return b;
+    }
+
+    byte[] encode() {
+        return encode(List.of(this));
+    }
+
+    /**
+     * Varios registros en un mismo payload: se escriben (y se pierden ante un corte) juntos.
+     */
+    static byte[] encode(List<WalRecord> records) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(128 * records.size());
+            DataOutputStream out = new DataOutputStream(bytes);
+            for (WalRecord record : records) {
+                out.writeByte(record.type.ordinal());
+                out.writeByte(record.fields.length);
+                for (String field : record.fields) {
+                    // Largo de 4 bytes: writeUTF no admite campos de más de 64 KB
+                    byte[] utf8 = field != null ? field.getBytes(StandardCharsets.UTF_8) : EMPTY;
+                    out.writeInt(utf8.length);
+                    out.write(utf8);
+                }
+            }
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static WalRecord decode(DataInputStream in) throws IOException {
+        Type type = Type.values()[in.readUnsignedByte()];
+        String[] fields = new String[in.readUnsignedByte()];
+        for (int i = 0; i < fields.length; i++) {
+            int length = in.readInt();
+            if (length < 0) throw new IOException("Invalid field length: " + length);
+            byte[] utf8 = in.readNBytes(length);
+            if (utf8.length != length) throw new EOFException();
+            fields[i] = new String(utf8, StandardCharsets.UTF_8);
+        }
+        return new WalRecord(type, fields);
+    }
+}
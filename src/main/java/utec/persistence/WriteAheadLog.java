@@ -0,0 +1,365 @@
+package utec.persistence;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+/**
+ * Log de solo-append con group commit: los hilos que escriben encolan su registro ya serializado
+ * y un único hilo escritor los agrupa, los escribe con una sola escritura y hace un solo fsync por grupo.
+ * <p>
+ * Formato de cada registro: [int largo][int crc32][payload]; el payload trae uno o más eventos.
+ * <p>
+ * Para los snapshots, rotate() cierra el archivo actual como {path}.prev (con un corte consistente:
+ * ninguna mutación queda a medias) y sigue en un archivo nuevo; deletePrevious() lo borra cuando el
+ * snapshot ya es durable.
+ */
+public class WriteAheadLog implements AutoCloseable {
+
+    public enum FsyncPolicy {
+        // fsync antes de confirmar cada grupo
+        ALWAYS,
+        // fsync cada intervalMillis; se confirma apenas se escribe
+        INTERVAL,
+        // sin fsync, queda en manos del sistema operativo
+        NONE
+    }
+
+    private static final WriteAheadLog DISABLED = new WriteAheadLog();
+    private static final int MAX_GROUP = 4096;
+    // Tope de un registro al leer (un lote de appendAll puede ocupar varios MB)
+    private static final int MAX_PAYLOAD = 1 << 30;
+
+    private record Pending(byte[] payload, CompletableFuture<Void> done) {
+    }
+
+    private final Path path;
+    private final FsyncPolicy policy;
+    private final long intervalMillis;
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    // Las mutaciones (append + aplicar en memoria) toman el read lock; rotate() el write lock
+    private final ReadWriteLock gate = new ReentrantReadWriteLock();
+    private volatile FileChannel channel;
+    private Thread writer;
+    private volatile boolean running;
+
+    private WriteAheadLog() {
+        this.path = null;
+        this.policy = FsyncPolicy.NONE;
+        this.intervalMillis = 0;
+    }
+
+    public WriteAheadLog(Path path, FsyncPolicy policy, long intervalMillis) {
+        this.path = path;
+        this.policy = policy;
+        this.intervalMillis = Math.max(1, intervalMillis);
+    }
+
+    /**
+     * Log que no escribe nada (persistencia desactivada).
+     */
+    public static WriteAheadLog disabled() {
+        return DISABLED;
+    }
+
+    /**
+     * -Dwal.path=data/wal.log activa el log; -Dwal.fsync=always|interval|none y -Dwal.interval=ms lo ajustan.
+     */
+    public static WriteAheadLog fromSystemProperties() {
+        String file = System.getProperty("wal.path");
+        if (file == null || file.isBlank()) {
+            return disabled();
+        }
+        return new WriteAheadLog(Path.of(file),
+                FsyncPolicy.valueOf(System.getProperty("wal.fsync", "always").toUpperCase()),
+                Long.getLong("wal.interval", 10L));
+    }
+
+    public boolean isEnabled() {
+        return path != null;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    private Path previousPath() {
+        return path.resolveSibling(path.getFileName() + ".prev");
+    }
+
+    /**
+     * Lee los registros válidos ({path}.prev y luego {path}), corta una cola incompleta
+     * (escritura interrumpida) y deja el log abierto para seguir escribiendo.
+     * Los CLEARED se devuelven tal cual; quien hace el replay decide desde dónde aplicar.
+     */
+    public synchronized List<WalRecord> open() throws IOException {
+        if (!isEnabled()) return List.of();
+        if (running) throw new IllegalStateException("WAL already open");
+
+        if (path.getParent() != null) Files.createDirectories(path.getParent());
+        List<WalRecord> records = new ArrayList<>();
+        read(previousPath(), records);
+        long validLength = read(path, records);
+
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        channel.truncate(validLength);
+        channel.position(validLength);
+
+        running = true;
+        writer = Thread.ofPlatform().name("wal-writer").daemon(true).start(this::run);
+        return records;
+    }
+
+    /**
+     * Agrega un registro, espera a que su grupo quede escrito (y sincronizado, según la política)
+     * y recién entonces aplica el cambio en memoria. Si falla la escritura, apply no se ejecuta.
+     */
+    public void append(WalRecord record, Runnable apply) {
+        if (!isEnabled()) {
+            apply.run();
+            return;
+        }
+
+        gate.readLock().lock();
+        try {
+            append(record.encode());
+            apply.run();
+        } finally {
+            gate.readLock().unlock();
+        }
+    }
+
+    /**
+     * Como append(record, apply), pero el lote va en un solo registro del log: tras un corte
+     * el replay encuentra todos sus eventos o ninguno.
+     */
+    public void appendAll(List<WalRecord> records, Runnable apply) {
+        if (!isEnabled()) {
+            apply.run();
+            return;
+        }
+
+        gate.readLock().lock();
+        try {
+            append(WalRecord.encode(records));
+            apply.run();
+        } finally {
+            gate.readLock().unlock();
+        }
+    }
+
+    private void append(byte[] payload) {
+        if (!running) throw new IllegalStateException("WAL is not open");
+
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        queue.add(new Pending(payload, done));
+        try {
+            done.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new IOException("Interrupted while waiting for WAL commit"));
+        } catch (ExecutionException e) {
+            throw new UncheckedIOException(e.getCause() instanceof IOException io ? io : new IOException(e.getCause()));
+        }
+    }
+
+    /**
+     * Corte consistente para un snapshot: con todas las mutaciones en curso ya aplicadas, el archivo
+     * actual pasa a {path}.prev y se sigue escribiendo en uno vacío. Todo lo que no esté en memoria
+     * al copiar el estado queda en el archivo nuevo.
+     */
+    public void rotate() throws IOException {
+        if (!isEnabled() || !running) return;
+
+        gate.writeLock().lock();
+        try {
+            FileChannel old = channel;
+            old.force(false);
+            old.close();
+
+            Path previous = previousPath();
+            if (Files.exists(previous)) {
+                // Un snapshot anterior no terminó: se concatena para no perder registros
+                try (FileChannel prev = FileChannel.open(previous, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                     FileChannel cur = FileChannel.open(path, StandardOpenOption.READ)) {
+                    long size = cur.size();
+                    for (long pos = 0; pos < size; ) {
+                        pos += cur.transferTo(pos, size - pos, prev);
+                    }
+                    prev.force(false);
+                }
+                Files.delete(path);
+            } else {
+                Files.move(path, previous, StandardCopyOption.ATOMIC_MOVE);
+            }
+
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        } finally {
+            gate.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Borra el log anterior a la última rotación (el snapshot ya lo contiene).
+     */
+    public void deletePrevious() throws IOException {
+        if (isEnabled()) Files.deleteIfExists(previousPath());
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!running) return;
+        running = false;
+        try {
+            writer.join();
+            // Lo que llegó después de que el escritor terminó no se escribió
+            Pending late;
+            while ((late = queue.poll()) != null) {
+                late.done.completeExceptionally(new IOException("WAL closed"));
+            }
+            channel.force(false);
+            channel.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException ignored) {
+            // el último fsync es best-effort al cerrar
+        }
+    }
+
+    private void run() {
+        List<Pending> group = new ArrayList<>();
+        long lastForce = System.currentTimeMillis();
+        boolean dirty = false;
+
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(policy == FsyncPolicy.INTERVAL ? intervalMillis : 100, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    group.add(first);
+                    queue.drainTo(group, MAX_GROUP - 1);
+                }
+            } catch (InterruptedException e) {
+                break;
+            }
+
+            IOException failure = null;
+            long start = -1;
+            try {
+                if (!group.isEmpty()) {
+                    start = channel.position();
+                    writeGroup(group);
+                    dirty = true;
+                }
+                long now = System.currentTimeMillis();
+                if (dirty && (policy == FsyncPolicy.ALWAYS ||
+                        (policy == FsyncPolicy.INTERVAL && now - lastForce >= intervalMillis))) {
+                    channel.force(false);
+                    lastForce = now;
+                    dirty = false;
+                }
+            } catch (IOException e) {
+                failure = e;
+                discardPartialWrite(start);
+            }
+
+            for (Pending pending : group) {
+                if (failure == null) {
+                    pending.done.complete(null);
+                } else {
+                    pending.done.completeExceptionally(failure);
+                }
+            }
+            group.clear();
+        }
+    }
+
+    /**
+     * Si un grupo falló a medias se corta lo escrito, para que el replay no se detenga
+     * en un registro roto antes de los grupos siguientes.
+     */
+    private void discardPartialWrite(long start) {
+        if (start < 0) return;
+        try {
+            channel.truncate(start);
+            channel.position(start);
+        } catch (IOException ignored) {
+            // el replay igual se detiene en el primer registro inválido
+        }
+    }
+
+    private void writeGroup(List<Pending> group) throws IOException {
+        ByteBuffer[] buffers = new ByteBuffer[group.size() * 2];
+        CRC32 crc = new CRC32();
+        for (int i = 0; i < group.size(); i++) {
+            byte[] payload = group.get(i).payload;
+            crc.reset();
+            crc.update(payload);
+            buffers[2 * i] = ByteBuffer.allocate(8).putInt(payload.length).putInt((int) crc.getValue()).flip();
+            buffers[2 * i + 1] = ByteBuffer.wrap(payload);
+        }
+
+        // Una escritura vectorizada por grupo
+        long remaining = 0;
+        for (ByteBuffer b : buffers) remaining += b.remaining();
+        while (remaining > 0) {
+            remaining -= channel.write(buffers);
+        }
+    }
+
+    /**
+     * Lee el archivo y devuelve el largo de la parte válida.
+     */
+    private static long read(Path path, List<WalRecord> out) throws IOException {
+        if (!Files.exists(path)) return 0;
+
+        long valid = 0;
+        CRC32 crc = new CRC32();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+            while (true) {
+                int length;
+                int checksum;
+                byte[] payload;
+                try {
+                    length = in.readInt();
+                    checksum = in.readInt();
+                    if (length < 0 || length > MAX_PAYLOAD) break;
+                    payload = in.readNBytes(length);
+                    if (payload.length != length) break;
+                } catch (EOFException e) {
+                    break;
+                }
+
+                crc.reset();
+                crc.update(payload);
+                if ((int) crc.getValue() != checksum) break;
+
+                ByteArrayInputStream bytes = new ByteArrayInputStream(payload);
+                DataInputStream records = new DataInputStream(bytes);
+                while (bytes.available() > 0) {
+                    out.add(WalRecord.decode(records));
+                }
+                valid += 8 + length;
+            }
+        }
+        return valid;
+    }
+}
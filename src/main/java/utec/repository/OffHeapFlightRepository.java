@@ -0,0 +1,523 @@
+package utec.repository;
+
+import utec.dtos.FlightDTO;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Vuelos guardados fuera del heap en columnas de ancho fijo, una fila por vuelo: id como dos
+ * longs, número de vuelo empaquetado en un long (hasta 8 caracteres ASCII), salida y llegada
+ * en epoch millis, asientos, versión y la aerolínea como código de un diccionario. El índice
+ * id -> fila es una tabla hash abierta, también fuera del heap. Al GC solo le quedan unos
+ * pocos buffers por columna, sin importar la cantidad de vuelos.
+ * <p>
+ * Los FlightDTO se arman en cada get/values (al serializar), así que cambiar un DTO después de
+ * guardarlo no cambia lo guardado. Un vuelo que no se puede codificar sin perder nada (id que
+ * no es un UUID canónico, horario que no es un instante ISO en millis) queda en un mapa del
+ * heap aparte.
+ * <p>
+ * Las escrituras se serializan con un StampedLock; las lecturas son optimistas y se repiten
+ * con el lock si se cruzaron con una escritura.
+ */
+public class OffHeapFlightRepository implements Repository<FlightDTO> {
+    // Filas por bloque de cada columna: crecer agrega bloques sin copiar los anteriores
+    private static final int CHUNK_BITS = 16;
+    private static final int CHUNK_ROWS = 1 << CHUNK_BITS;
+    private static final int INITIAL_SLOTS = 1 << 10;
+    private static final long NOT_ENCODED = Long.MIN_VALUE;
+    private static final int DELETED = -1;
+    private static final int TOMBSTONE = -1;
+
+    private final StampedLock lock = new StampedLock();
+    private final LongColumn idHigh = new LongColumn();
+    private final LongColumn idLow = new LongColumn();
+    private final LongColumn number = new LongColumn();
+    private final LongColumn departure = new LongColumn();
+    private final LongColumn arrival = new LongColumn();
+    private final LongColumn version = new LongColumn();
+    private final IntColumn seats = new IntColumn();
+    // Código de aerolínea, o DELETED si la fila se borró
+    private final IntColumn airline = new IntColumn();
+
+    // Diccionario de aerolíneas (pocas): nombre exacto <-> código
+    private final Map<String, Integer> airlineCodes = new HashMap<>();
+    private volatile String[] airlineNames = new String[16];
+
+    private final Map<String, FlightDTO> fallback = new ConcurrentHashMap<>();
+
+    // Tabla id -> fila + 1 (0 libre, TOMBSTONE borrada), capacidad potencia de dos
+    private volatile IntBuffer slots = allocateSlots(INITIAL_SLOTS);
+    private int usedSlots;
+    private volatile int rows;
+    private volatile int live;
+
+    @Override
+    public FlightDTO get(String key) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                FlightDTO flight = read(key);
+                if (lock.validate(stamp)) return flight;
+            } catch (RuntimeException e) {
+                // Se cruzó con una escritura (bloques o tabla a medio crecer); se repite con el lock
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return read(key);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                boolean found = contains(key);
+                if (lock.validate(stamp)) return found;
+            } catch (RuntimeException e) {
+                // Igual que en get
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return contains(key);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public FlightDTO putIfAbsent(String key, FlightDTO value) {
+        long stamp = lock.writeLock();
+        try {
+            FlightDTO existing = read(key);
+            if (existing == null) write(key, value);
+            return existing;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public void put(String key, FlightDTO value) {
+        long stamp = lock.writeLock();
+        try {
+            write(key, value);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Las filas son copias: se comparan todos los campos en vez de la identidad del DTO.
+     */
+    @Override
+    public boolean remove(String key, FlightDTO value) {
+        long stamp = lock.writeLock();
+        try {
+            FlightDTO existing = read(key);
+            if (existing == null || !sameFields(existing, value)) return false;
+            delete(key);
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public List<FlightDTO> values() {
+        long stamp = lock.readLock();
+        try {
+            List<FlightDTO> values = new ArrayList<>(live + fallback.size());
+            for (int row = 0; row < rows; row++) {
+                if (airline.get(row) != DELETED) values.add(materialize(row));
+            }
+            for (FlightDTO flight : fallback.values()) values.add(copy(flight));
+            return values;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public int size() {
+        return live + fallback.size();
+    }
+
+    /**
+     * Libera las columnas y la tabla (los buffers directos se liberan cuando el GC los recoge).
+     */
+    @Override
+    public void clear() {
+        long stamp = lock.writeLock();
+        try {
+            idHigh.clear();
+            idLow.clear();
+            number.clear();
+            departure.clear();
+            arrival.clear();
+            version.clear();
+            seats.clear();
+            airline.clear();
+            airlineCodes.clear();
+            airlineNames = new String[16];
+            fallback.clear();
+            slots = allocateSlots(INITIAL_SLOTS);
+            usedSlots = 0;
+            rows = 0;
+            live = 0;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Bytes reservados fuera del heap (columnas y tabla de ids).
+     */
+    public long offHeapBytes() {
+        long bytes = (long) slots.capacity() * Integer.BYTES;
+        for (LongColumn column : new LongColumn[]{idHigh, idLow, number, departure, arrival, version}) {
+            bytes += column.bytes();
+        }
+        return bytes + seats.bytes() + airline.bytes();
+    }
+
+    private FlightDTO read(String key) {
+        FlightDTO flight = fallback.get(key);
+        if (flight != null) return copy(flight);
+        UUID id = parseId(key);
+        if (id == null) return null;
+        int row = find(id.getMostSignificantBits(), id.getLeastSignificantBits());
+        return row >= 0 ? materialize(row) : null;
+    }
+
+    private boolean contains(String key) {
+        if (fallback.containsKey(key)) return true;
+        UUID id = parseId(key);
+        return id != null && find(id.getMostSignificantBits(), id.getLeastSignificantBits()) >= 0;
+    }
+
+    private void write(String key, FlightDTO flight) {
+        UUID id = parseId(key);
+        long packedNumber = packNumber(flight.flightNumber);
+        long departureMillis = encodeTime(flight.estDepartureTime);
+        long arrivalMillis = encodeTime(flight.estArrivalTime);
+        if (id == null || !key.equals(flight.id) || flight.airlineName == null || packedNumber == NOT_ENCODED ||
+                departureMillis == NOT_ENCODED || arrivalMillis == NOT_ENCODED) {
+            // Una clave no puede estar en las columnas y en el mapa a la vez
+            if (id != null) delete(key);
+            fallback.put(key, copy(flight));
+            return;
+        }
+        fallback.remove(key);
+
+        long high = id.getMostSignificantBits();
+        long low = id.getLeastSignificantBits();
+        int row = find(high, low);
+        if (row < 0) {
+            row = rows;
+            ensureCapacity(row + 1);
+            idHigh.set(row, high);
+            idLow.set(row, low);
+            insertSlot(high, low, row);
+            live++;
+        }
+        number.set(row, packedNumber);
+        departure.set(row, departureMillis);
+        arrival.set(row, arrivalMillis);
+        version.set(row, flight.version);
+        seats.set(row, flight.availableSeats);
+        airline.set(row, airlineCode(flight.airlineName));
+        // Se publica al final: un lector optimista nunca ve una fila sin escribir
+        if (row == rows) rows = row + 1;
+    }
+
+    private void delete(String key) {
+        if (fallback.remove(key) != null) return;
+        UUID id = parseId(key);
+        if (id == null) return;
+        IntBuffer table = slots;
+        int mask = table.capacity() - 1;
+        for (int slot = hash(id.getMostSignificantBits(), id.getLeastSignificantBits()) & mask; ;
+             slot = (slot + 1) & mask) {
+            int entry = table.get(slot);
+            if (entry == 0) return;
+            if (entry != TOMBSTONE && idHigh.get(entry - 1) == id.getMostSignificantBits() &&
+                    idLow.get(entry - 1) == id.getLeastSignificantBits()) {
+                table.put(slot, TOMBSTONE);
+                airline.set(entry - 1, DELETED);
+                live--;
+                return;
+            }
+        }
+    }
+
+    private int find(long high, long low) {
+        IntBuffer table = slots;
+        int mask = table.capacity() - 1;
+        for (int slot = hash(high, low) & mask; ; slot = (slot + 1) & mask) {
+            int entry = table.get(slot);
+            if (entry == 0) return -1;
+            if (entry != TOMBSTONE && idHigh.get(entry - 1) == high && idLow.get(entry - 1) == low) {
+                return entry - 1;
+            }
+        }
+    }
+
+    private void insertSlot(long high, long low, int row) {
+        // Carga máxima 3/4 contando borradas; al crecer se descartan las borradas
+        if ((usedSlots + 1) * 4L > slots.capacity() * 3L) rehash();
+        IntBuffer table = slots;
+        int mask = table.capacity() - 1;
+        int slot = hash(high, low) & mask;
+        while (table.get(slot) != 0) slot = (slot + 1) & mask;
+        table.put(slot, row + 1);
+        usedSlots++;
+    }
+
+    private void rehash() {
+        int capacity = slots.capacity();
+        while (live * 2L >= capacity) capacity <<= 1;
+        IntBuffer table = allocateSlots(capacity);
+        int mask = capacity - 1;
+        for (int row = 0; row < rows; row++) {
+            if (airline.get(row) == DELETED) continue;
+            int slot = hash(idHigh.get(row), idLow.get(row)) & mask;
+            while (table.get(slot) != 0) slot = (slot + 1) & mask;
+            table.put(slot, row + 1);
+        }
+        usedSlots = live;
+        slots = table;
+    }
+
+    private void ensureCapacity(int rowCount) {
+        idHigh.ensure(rowCount);
+        idLow.ensure(rowCount);
+        number.ensure(rowCount);
+        departure.ensure(rowCount);
+        arrival.ensure(rowCount);
+        version.ensure(rowCount);
+        seats.ensure(rowCount);
+        airline.ensure(rowCount);
+    }
+
+    private int airlineCode(String name) {
+        Integer code = airlineCodes.get(name);
+        if (code != null) return code;
+        int next = airlineCodes.size();
+        String[] names = airlineNames;
+        if (next == names.length) names = Arrays.copyOf(names, names.length * 2);
+        names[next] = name;
+        airlineNames = names;
+        airlineCodes.put(name, next);
+        return next;
+    }
+
+    private FlightDTO materialize(int row) {
+        FlightDTO flight = new FlightDTO();
+        flight.id = new UUID(idHigh.get(row), idLow.get(row)).toString();
+        flight.airlineName = airlineNames[airline.get(row)];
+        flight.flightNumber = unpackNumber(number.get(row));
+        flight.estDepartureTime = formatTime(departure.get(row));
+        flight.estArrivalTime = formatTime(arrival.get(row));
+        flight.availableSeats = seats.get(row);
+        flight.version = version.get(row);
+        return flight;
+    }
+
+    private static boolean sameFields(FlightDTO a, FlightDTO b) {
+        return Objects.equals(a.id, b.id) && Objects.equals(a.airlineName, b.airlineName) &&
+                Objects.equals(a.flightNumber, b.flightNumber) &&
+                Objects.equals(a.estDepartureTime, b.estDepartureTime) &&
+                Objects.equals(a.estArrivalTime, b.estArrivalTime) &&
+                a.availableSeats == b.availableSeats && a.version == b.version;
+    }
+
+    private static FlightDTO copy(FlightDTO flight) {
+        FlightDTO copy = new FlightDTO();
+        copy.id = flight.id;
+        copy.airlineName = flight.airlineName;
+        copy.flightNumber = flight.flightNumber;
+        copy.estDepartureTime = flight.estDepartureTime;
+        copy.estArrivalTime = flight.estArrivalTime;
+        copy.availableSeats = flight.availableSeats;
+        copy.version = flight.version;
+        return copy;
+    }
+
+    /**
+     * El UUID del id, o null si el texto no es exactamente su forma canónica.
+     */
+    private static UUID parseId(String key) {
+        if (key.length() != 36) return null;
+        try {
+            UUID id = UUID.fromString(key);
+            return id.toString().equals(key) ? id : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static long encodeTime(String value) {
+        if (value == null) return NOT_ENCODED;
+        try {
+            Instant instant = Instant.parse(value);
+            if (instant.getNano() % 1_000_000 != 0) return NOT_ENCODED;
+            long millis = instant.toEpochMilli();
+            return millis != NOT_ENCODED && formatTime(millis).equals(value) ? millis : NOT_ENCODED;
+        } catch (DateTimeException | ArithmeticException e) {
+            return NOT_ENCODED;
+        }
+    }
+
+    /**
+     * Igual que Instant.ofEpochMilli(millis).toString() pero sin pasar por DateTimeFormatter,
+     * para los años de cuatro cifras (el resto usa Instant).
+     */
+    static String formatTime(long millis) {
+        long seconds = Math.floorDiv(millis, 1000);
+        int milli = Math.floorMod(millis, 1000);
+        LocalDateTime time = LocalDateTime.ofEpochSecond(seconds, 0, ZoneOffset.UTC);
+        if (time.getYear() < 0 || time.getYear() > 9999) return Instant.ofEpochMilli(millis).toString();
+
+        byte[] text = new byte[milli == 0 ? 20 : 24];
+        digits(text, 0, time.getYear(), 4);
+        text[4] = '-';
+        digits(text, 5, time.getMonthValue(), 2);
+        text[7] = '-';
+        digits(text, 8, time.getDayOfMonth(), 2);
+        text[10] = 'T';
+        digits(text, 11, time.getHour(), 2);
+        text[13] = ':';
+        digits(text, 14, time.getMinute(), 2);
+        text[16] = ':';
+        digits(text, 17, time.getSecond(), 2);
+        if (milli != 0) {
+            text[19] = '.';
+            digits(text, 20, milli, 3);
+        }
+        text[text.length - 1] = 'Z';
+        return new String(text, StandardCharsets.ISO_8859_1);
+    }
+
+    private static void digits(byte[] text, int offset, int value, int width) {
+        for (int i = offset + width - 1; i >= offset; i--) {
+            text[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    // Hasta 8 caracteres ASCII (sin '\0'), el primero en el byte más alto
+    private static long packNumber(String value) {
+        if (value == null || value.isEmpty() || value.length() > Long.BYTES) return NOT_ENCODED;
+        long packed = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            int c = i < value.length() ? value.charAt(i) : 0;
+            if (i < value.length() && (c == 0 || c > 0x7f)) return NOT_ENCODED;
+            packed = (packed << 8) | c;
+        }
+        return packed;
+    }
+
+    private static String unpackNumber(long packed) {
+        char[] chars = new char[Long.BYTES];
+        int length = 0;
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            char c = (char) ((packed >>> shift) & 0xff);
+            if (c == 0) break;
+            chars[length++] = c;
+        }
+        return new String(chars, 0, length);
+    }
+
+    private static int hash(long high, long low) {
+        long h = (high ^ low) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static IntBuffer allocateSlots(int capacity) {
+        return ByteBuffer.allocateDirect(capacity * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer();
+    }
+
+    private static final class LongColumn {
+        private volatile LongBuffer[] chunks = new LongBuffer[0];
+
+        long get(int row) {
+            return chunks[row >>> CHUNK_BITS].get(row & (CHUNK_ROWS - 1));
+        }
+
+        void set(int row, long value) {
+            chunks[row >>> CHUNK_BITS].put(row & (CHUNK_ROWS - 1), value);
+        }
+
+        void ensure(int rowCount) {
+            int needed = (rowCount + CHUNK_ROWS - 1) >>> CHUNK_BITS;
+            if (needed <= chunks.length) return;
+            LongBuffer[] grown = Arrays.copyOf(chunks, needed);
+            for (int i = chunks.length; i < needed; i++) {
+                grown[i] = ByteBuffer.allocateDirect(CHUNK_ROWS * Long.BYTES).order(ByteOrder.nativeOrder())
+                        .asLongBuffer();
+            }
+            chunks = grown;
+        }
+
+        long bytes() {
+            return (long) chunks.length * CHUNK_ROWS * Long.BYTES;
+        }
+
+        void clear() {
+            chunks = new LongBuffer[0];
+        }
+    }
+
+    private static final class IntColumn {
+        private volatile IntBuffer[] chunks = new IntBuffer[0];
+
+        int get(int row) {
+            return chunks[row >>> CHUNK_BITS].get(row & (CHUNK_ROWS - 1));
+        }
+
+        void set(int row, int value) {
+            chunks[row >>> CHUNK_BITS].put(row & (CHUNK_ROWS - 1), value);
+        }
+
+        void ensure(int rowCount) {
+            int needed = (rowCount + CHUNK_ROWS - 1) >>> CHUNK_BITS;
+            if (needed <= chunks.length) return;
+            IntBuffer[] grown = Arrays.copyOf(chunks, needed);
+            for (int i = chunks.length; i < needed; i++) {
+                grown[i] = ByteBuffer.allocateDirect(CHUNK_ROWS * Integer.BYTES).order(ByteOrder.nativeOrder())
+                        .asIntBuffer();
+            }
+            chunks = grown;
+        }
+
+        long bytes() {
+            return (long) chunks.length * CHUNK_ROWS * Integer.BYTES;
+        }
+
+        void clear() {
+            chunks = new IntBuffer[0];
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package utec.repository;
+
+import utec.dtos.BookingDTO;
+import utec.dtos.FlightDTO;
+import utec.dtos.UserDTO;
+
+import java.util.ServiceLoader;
+import java.util.function.Supplier;
+
+/**
+ * Almacenamiento de usuarios, vuelos y reservas contra el que programan los servicios, con
+ * los índices únicos (email -> id de usuario, número de vuelo -> id) para que una base
+ * externa los pueda respaldar con sus propias restricciones.
+ * <p>
+ * Otra implementación se enchufa como servicio de ServiceLoader (META-INF/services/
+ * utec.repository.Repositories); si no hay ninguna se usa ShardedRepositories.
+ */
+public interface Repositories {
+
+    Repository<UserDTO> users();
+
+    Repository<String> userEmails();
+
+    Repository<FlightDTO> flights();
+
+    Repository<String> flightNumbers();
+
+    Repository<BookingDTO> bookings();
+
+    /**
+     * Ejecuta action sin que ninguna otra escritura toque entidades con esas claves, aunque
+     * sean de repositorios distintos (por ejemplo el vuelo y la reserva nueva).
+     */
+    <R> R atomically(Supplier<R> action, String... keys);
+
+    /**
+     * Vacía todos los repositorios sin que quede a medias ninguna operación de atomically.
+     */
+    void clear();
+
+    static Repositories load() {
+        return ServiceLoader.load(Repositories.class).findFirst()
+                .orElseGet(ShardedRepositories::fromSystemProperties);
+    }
+}
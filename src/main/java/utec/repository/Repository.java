@@ -0,0 +1,33 @@
+package utec.repository;
+
+import java.util.List;
+
+/**
+ * Almacén de entidades por clave. Las operaciones sobre una clave son atómicas; values()
+ * devuelve una copia, así que se puede recorrer mientras otros escriben.
+ */
+public interface Repository<T> {
+
+    T get(String key);
+
+    /**
+     * Guarda value si la clave no existe. Devuelve el valor que ya estaba, o null si se guardó.
+     */
+    T putIfAbsent(String key, T value);
+
+    void put(String key, T value);
+
+    /**
+     * Borra la clave solo si todavía apunta a value: el mismo objeto o, en las implementaciones
+     * que guardan copias (OffHeapFlightRepository), uno con todos los campos iguales.
+     */
+    boolean remove(String key, T value);
+
+    boolean containsKey(String key);
+
+    List<T> values();
+
+    int size();
+
+    void clear();
+}
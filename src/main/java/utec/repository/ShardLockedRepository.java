@@ -0,0 +1,78 @@
+package utec.repository;
+
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Envuelve un repositorio con su propia sincronización (como OffHeapFlightRepository) para que
+ * sus escrituras también tomen el lock del shard de la clave y respeten atomically y clear de
+ * ShardedRepositories.
+ */
+final class ShardLockedRepository<T> implements Repository<T> {
+    private final ShardLocks locks;
+    private final Repository<T> delegate;
+
+    ShardLockedRepository(ShardLocks locks, Repository<T> delegate) {
+        this.locks = locks;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public T get(String key) {
+        return delegate.get(key);
+    }
+
+    @Override
+    public T putIfAbsent(String key, T value) {
+        ReentrantLock lock = locks.lock(locks.shard(key));
+        lock.lock();
+        try {
+            return delegate.putIfAbsent(key, value);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void put(String key, T value) {
+        ReentrantLock lock = locks.lock(locks.shard(key));
+        lock.lock();
+        try {
+            delegate.put(key, value);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(String key, T value) {
+        ReentrantLock lock = locks.lock(locks.shard(key));
+        lock.lock();
+        try {
+            return delegate.remove(key, value);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        return delegate.containsKey(key);
+    }
+
+    @Override
+    public List<T> values() {
+        return delegate.values();
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    // Se llama con todos los locks tomados (ShardedRepositories.clear) o sin ninguno
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+}
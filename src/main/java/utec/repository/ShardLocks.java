@@ -0,0 +1,37 @@
+package utec.repository;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Shards de ShardedRepositories: un lock por shard (potencia de dos) y la función que asigna
+ * cada clave a su shard. El shard sale de los bits altos del hash mezclado; los bajos son los
+ * que usa ConcurrentHashMap para elegir bucket, y si fueran los mismos todas las claves de un
+ * shard caerían en una fracción de los buckets de su mapa.
+ */
+final class ShardLocks {
+    private static final int GOLDEN = 0x9E3779B9;
+
+    private final ReentrantLock[] locks;
+    // 32 - log2(shards); con un solo shard el desplazamiento de 32 bits deja siempre 0
+    private final int shift;
+
+    ShardLocks(int shards) {
+        if (shards < 1) throw new IllegalArgumentException("shards must be >= 1");
+        int size = shards == 1 ? 1 : Integer.highestOneBit(shards - 1) << 1;
+        this.locks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) locks[i] = new ReentrantLock();
+        this.shift = Integer.numberOfLeadingZeros(size - 1);
+    }
+
+    int size() {
+        return locks.length;
+    }
+
+    int shard(String key) {
+        return (int) (((key.hashCode() * GOLDEN) & 0xFFFFFFFFL) >>> shift);
+    }
+
+    ReentrantLock lock(int shard) {
+        return locks[shard];
+    }
+}
@@ -0,0 +1,119 @@
+package utec.repository;
+
+import utec.dtos.BookingDTO;
+import utec.dtos.FlightDTO;
+import utec.dtos.UserDTO;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * Implementación en memoria por defecto. Cada repositorio se parte por hash de la clave en
+ * shards (potencia de dos, ver ShardLocks); el shard i de todos los repositorios comparte el
+ * lock i. Las lecturas no toman locks, las escrituras toman el de su shard y atomically toma
+ * los de todas sus claves en orden ascendente, así dos operaciones con claves en común no se
+ * bloquean en ciclo.
+ */
+public class ShardedRepositories implements Repositories {
+    private static final int DEFAULT_SHARDS = 64;
+
+    private final ShardLocks locks;
+    private final ShardedRepository<UserDTO> users;
+    private final ShardedRepository<String> userEmails;
+    private final Repository<FlightDTO> flights;
+    private final ShardedRepository<String> flightNumbers;
+    private final ShardedRepository<BookingDTO> bookings;
+
+    public ShardedRepositories() {
+        this(DEFAULT_SHARDS);
+    }
+
+    public ShardedRepositories(int shards) {
+        this(shards, false);
+    }
+
+    /**
+     * Con offHeapFlights los vuelos van a un OffHeapFlightRepository en vez de mapas por shard.
+     */
+    public ShardedRepositories(int shards, boolean offHeapFlights) {
+        // Los repositorios comparten los locks, no la instancia en construcción
+        this.locks = new ShardLocks(shards);
+        this.users = new ShardedRepository<>(locks);
+        this.userEmails = new ShardedRepository<>(locks);
+        this.flights = offHeapFlights
+                ? new ShardLockedRepository<>(locks, new OffHeapFlightRepository())
+                : new ShardedRepository<>(locks);
+        this.flightNumbers = new ShardedRepository<>(locks);
+        this.bookings = new ShardedRepository<>(locks);
+    }
+
+    /**
+     * Cantidad de shards desde -Drepository.shards (por defecto 64); -Drepository.flights=off-heap
+     * guarda los vuelos fuera del heap.
+     */
+    public static ShardedRepositories fromSystemProperties() {
+        return new ShardedRepositories(Integer.getInteger("repository.shards", DEFAULT_SHARDS),
+                "off-heap".equals(System.getProperty("repository.flights")));
+    }
+
+    @Override
+    public Repository<UserDTO> users() {
+        return users;
+    }
+
+    @Override
+    public Repository<String> userEmails() {
+        return userEmails;
+    }
+
+    @Override
+    public Repository<FlightDTO> flights() {
+        return flights;
+    }
+
+    @Override
+    public Repository<String> flightNumbers() {
+        return flightNumbers;
+    }
+
+    @Override
+    public Repository<BookingDTO> bookings() {
+        return bookings;
+    }
+
+    @Override
+    public <R> R atomically(Supplier<R> action, String... keys) {
+        int[] shards = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) shards[i] = locks.shard(keys[i]);
+        shards = Arrays.stream(shards).sorted().distinct().toArray();
+
+        int locked = 0;
+        try {
+            for (int shard : shards) {
+                locks.lock(shard).lock();
+                locked++;
+            }
+            return action.get();
+        } finally {
+            for (int i = locked - 1; i >= 0; i--) locks.lock(shards[i]).unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        int locked = 0;
+        try {
+            for (int i = 0; i < locks.size(); i++) {
+                locks.lock(i).lock();
+                locked++;
+            }
+            users.clear();
+            userEmails.clear();
+            flights.clear();
+            flightNumbers.clear();
+            bookings.clear();
+        } finally {
+            for (int i = locked - 1; i >= 0; i--) locks.lock(i).unlock();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package utec.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Un repositorio de ShardedRepositories: un mapa por shard. Los mapas son concurrentes para
+ * que get no tome el lock; el lock del shard ordena las escrituras respecto de atomically.
+ */
+final class ShardedRepository<T> implements Repository<T> {
+    private final ShardLocks locks;
+    private final List<Map<String, T>> shards;
+
+    ShardedRepository(ShardLocks locks) {
+        this.locks = locks;
+        this.shards = new ArrayList<>(locks.size());
+        for (int i = 0; i < locks.size(); i++) shards.add(new ConcurrentHashMap<>());
+    }
+
+    @Override
+    public T get(String key) {
+        return shards.get(locks.shard(key)).get(key);
+    }
+
+    @Override
+    public T putIfAbsent(String key, T value) {
+        int shard = locks.shard(key);
+        ReentrantLock lock = locks.lock(shard);
+        lock.lock();
+        try {
+            return shards.get(shard).putIfAbsent(key, value);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void put(String key, T value) {
+        int shard = locks.shard(key);
+        ReentrantLock lock = locks.lock(shard);
+        lock.lock();
+        try {
+            shards.get(shard).put(key, value);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(String key, T value) {
+        int shard = locks.shard(key);
+        ReentrantLock lock = locks.lock(shard);
+        lock.lock();
+        try {
+            return shards.get(shard).remove(key, value);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        return shards.get(locks.shard(key)).containsKey(key);
+    }
+
+    @Override
+    public List<T> values() {
+        List<T> values = new ArrayList<>(size());
+        for (Map<String, T> shard : shards) values.addAll(shard.values());
+        return values;
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (Map<String, T> shard : shards) size += shard.size();
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < shards.size(); i++) {
+            ReentrantLock lock = locks.lock(i);
+            lock.lock();
+            try {
+                shards.get(i).clear();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package utec.server;
+
+/**
+ * Control de admisión (ver AdmissionHandler). rateLimit son requests por segundo por cliente
+ * con ráfagas de hasta rateBurst (0 desactiva el límite por cliente); maxConcurrency es el
+ * techo del límite adaptativo de requests en curso (0 lo desactiva) y latencyTargetMillis la
+ * latencia por encima de la cual el límite baja. El límite arranca en el techo y solo baja
+ * con latencia alta, hasta minConcurrency(). Las rutas de carga en lote quedan fuera del
+ * límite adaptativo (tardan por el tamaño del lote, no porque el servidor esté saturado) y
+ * tienen su propio tope fijo de minConcurrency() requests en curso.
+ */
+public record AdmissionConfig(double rateLimit, int rateBurst, int maxConcurrency, long latencyTargetMillis) {
+
+    // Techo holgado para no rechazar carga sana sin calibrar; acota igual los hilos virtuales
+    public static final int DEFAULT_MAX_CONCURRENCY = 1024;
+    public static final long DEFAULT_LATENCY_TARGET_MILLIS = 250;
+
+    // Sin límite por cliente; concurrencia con el techo por defecto
+    public static final AdmissionConfig DEFAULT =
+            new AdmissionConfig(0, 0, DEFAULT_MAX_CONCURRENCY, DEFAULT_LATENCY_TARGET_MILLIS);
+
+    /**
+     * Piso del límite adaptativo y tope de las rutas de carga en lote.
+     */
+    public int minConcurrency() {
+        return Math.max(1, maxConcurrency / 16);
+    }
+}
@@ -0,0 +1,76 @@
+package utec.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Admisión de requests antes del controller de una ruta. Primero el límite por cliente (IP):
+ * si se pasó, 429 con Retry-After hasta el próximo token. Después el límite de concurrencia
+ * compartido por todas las rutas: si está lleno, 503 con Retry-After: 1. Los rechazos no leen
+ * el body ni tocan los servicios, así que cuestan poco aun con el servidor saturado; los
+ * requests admitidos mantienen su latencia porque no compiten con los que sobran.
+ * <p>
+ * La latencia que ve el límite es solo el tiempo de servicio: se descuenta lo que el request
+ * pasó esperando el body o escribiendo la respuesta, que depende del cliente y no de la carga.
+ * buckets o limit pueden ser null si esa parte está desactivada.
+ */
+public class AdmissionHandler implements HttpHandler {
+    private static final byte[] TOO_MANY_REQUESTS = "{\"error\":\"Too many requests\"}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] OVERLOADED = "{\"error\":\"Server overloaded\"}".getBytes(StandardCharsets.UTF_8);
+
+    private final HttpHandler handler;
+    private final TokenBuckets buckets;
+    private final ConcurrencyLimit limit;
+
+    public AdmissionHandler(HttpHandler handler, TokenBuckets buckets, ConcurrencyLimit limit) {
+        this.handler = handler;
+        this.buckets = buckets;
+        this.limit = limit;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        if (buckets != null) {
+            long wait = buckets.tryAcquire(client(exchange));
+            if (wait > 0) {
+                reject(exchange, 429, (wait + 999_999_999) / 1_000_000_000, TOO_MANY_REQUESTS);
+                return;
+            }
+        }
+        if (limit == null) {
+            handler.handle(exchange);
+            return;
+        }
+        if (!limit.tryAcquire()) {
+            reject(exchange, 503, 1, OVERLOADED);
+            return;
+        }
+
+        NetworkTime network = new NetworkTime();
+        exchange.setStreams(network.wrap(exchange.getRequestBody()), network.wrap(exchange.getResponseBody()));
+        long start = System.nanoTime();
+        try {
+            handler.handle(exchange);
+        } finally {
+            limit.release(System.nanoTime() - start - network.nanos());
+        }
+    }
+
+    private static String client(HttpExchange exchange) {
+        InetSocketAddress remote = exchange.getRemoteAddress();
+        return remote.getAddress() != null ? remote.getAddress().getHostAddress() : remote.getHostString();
+    }
+
+    private static void reject(HttpExchange exchange, int status, long retryAfterSeconds, byte[] body)
+            throws IOException {
+        exchange.getResponseHeaders().set("Retry-After", Long.toString(retryAfterSeconds));
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+        exchange.close();
+    }
+}
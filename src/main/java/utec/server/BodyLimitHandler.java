@@ -0,0 +1,57 @@
+package utec.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Limita el tamaño del body de los requests de una ruta. Si el Content-Length ya supera el
+ * máximo se responde 413 sin leer nada; si no, el body se envuelve para cortar la lectura
+ * apenas se pase (bodies chunked o Content-Length falso).
+ */
+public class BodyLimitHandler implements HttpHandler {
+    private static final byte[] TOO_LARGE = "{\"error\":\"Request body too large\"}".getBytes(StandardCharsets.UTF_8);
+
+    private final HttpHandler handler;
+    private final long maxBytes;
+
+    public BodyLimitHandler(HttpHandler handler, long maxBytes) {
+        this.handler = handler;
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        if (RequestBodies.contentLength(exchange) > maxBytes) {
+            reject(exchange);
+            return;
+        }
+
+        exchange.setStreams(new BoundedInputStream(exchange.getRequestBody(), maxBytes), null);
+        try {
+            handler.handle(exchange);
+        } catch (RequestBodyTooLargeException e) {
+            if (exchange.getResponseCode() == -1) {
+                reject(exchange);
+            } else {
+                exchange.close();
+            }
+        }
+    }
+
+    private static void reject(HttpExchange exchange) throws IOException {
+        // El resto del body no se procesa: la conexión se cierra después de la respuesta
+        exchange.getResponseHeaders().set("Connection", "close");
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(413, TOO_LARGE.length);
+        // Cerrar primero la salida envía la respuesta completa; exchange.close() cierra antes la
+        // entrada, y el JDK descarta ahí hasta 64 KB del body (o espera al cliente) antes de enviarla
+        OutputStream out = exchange.getResponseBody();
+        out.write(TOO_LARGE);
+        out.close();
+        exchange.close();
+    }
+}
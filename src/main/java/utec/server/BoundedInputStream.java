@@ -0,0 +1,56 @@
+package utec.server;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Corta la lectura del body apenas se pasa de maxBytes (sirve también para bodies chunked,
+ * donde no hay Content-Length que chequear de antemano). Acumula también el tiempo pasado
+ * esperando al stream, para separar la lectura del body de su decodificación en las métricas.
+ */
+class BoundedInputStream extends FilterInputStream {
+    private final long maxBytes;
+    private long count;
+    private long readNanos;
+
+    BoundedInputStream(InputStream in, long maxBytes) {
+        super(in);
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public int read() throws IOException {
+        long start = System.nanoTime();
+        int b = super.read();
+        readNanos += System.nanoTime() - start;
+        if (b >= 0) count(1);
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        // Se lee como mucho un byte más allá del máximo, lo justo para detectar el exceso
+        long start = System.nanoTime();
+        int n = super.read(b, off, (int) Math.min(len, maxBytes - count + 1));
+        readNanos += System.nanoTime() - start;
+        if (n > 0) count(n);
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(Math.min(n, maxBytes - count + 1));
+        count(skipped);
+        return skipped;
+    }
+
+    long readNanos() {
+        return readNanos;
+    }
+
+    private void count(long n) throws RequestBodyTooLargeException {
+        count += n;
+        if (count > maxBytes) throw new RequestBodyTooLargeException(maxBytes);
+    }
+}
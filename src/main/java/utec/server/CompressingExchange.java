@@ -0,0 +1,122 @@
+package utec.server;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Exchange que comprime la respuesta si vale la pena. La decisión se toma en
+ * sendResponseHeaders: con un largo conocido menor que el umbral (o sin body, o un tipo que
+ * no es texto) se envía tal cual; si no, se agrega Content-Encoding y el body sale chunked
+ * a través del compresor a medida que el handler lo escribe.
+ */
+class CompressingExchange extends DelegatingExchange {
+    private final Compressor.Encoding encoding;
+    private final int threshold;
+    private final int level;
+    private Body body;
+
+    CompressingExchange(HttpExchange exchange, Compressor.Encoding encoding, int threshold, int level) {
+        super(exchange);
+        this.encoding = encoding;
+        this.threshold = threshold;
+        this.level = level;
+    }
+
+    @Override
+    public void sendResponseHeaders(int rCode, long responseLength) throws IOException {
+        // 0 es chunked: largo desconocido, en la práctica un documento que no cupo en un buffer
+        boolean compress = responseLength >= 0 && (responseLength == 0 || responseLength >= threshold)
+                && rCode != 204 && rCode != 304 && compressible();
+        if (!compress) {
+            exchange.sendResponseHeaders(rCode, responseLength);
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Encoding", encoding.token());
+        exchange.sendResponseHeaders(rCode, 0);
+        ((Body) getResponseBody()).start();
+    }
+
+    @Override
+    public OutputStream getResponseBody() {
+        if (body == null) body = new Body(exchange.getResponseBody());
+        return body;
+    }
+
+    @Override
+    public void close() {
+        // Cerrar el exchange sin cerrar antes el body dejaría el stream comprimido sin terminar
+        try {
+            if (body != null && body.compressor != null) body.close();
+        } catch (IOException ignored) {
+            // La conexión ya no sirve; el JDK la cierra en exchange.close()
+        }
+        exchange.close();
+    }
+
+    /**
+     * Libera el compresor si el handler terminó sin cerrar la respuesta.
+     */
+    void release() {
+        if (body != null) body.release();
+    }
+
+    private boolean compressible() {
+        if (exchange.getResponseHeaders().containsKey("Content-Encoding")) return false;
+        String type = exchange.getResponseHeaders().getFirst("Content-Type");
+        return type != null && (type.startsWith("application/json") || type.startsWith("text/"));
+    }
+
+    // Stream de la respuesta: pasa directo hasta que start() activa el compresor
+    private final class Body extends OutputStream {
+        private final OutputStream out;
+        private Compressor compressor;
+        private boolean closed;
+
+        private Body(OutputStream out) {
+            this.out = out;
+        }
+
+        private void start() throws IOException {
+            compressor = Compressor.acquire(encoding, level, out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (compressor != null) {
+                compressor.write(out, b, off, len);
+            } else {
+                out.write(b, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) return;
+            closed = true;
+            try {
+                if (compressor != null) compressor.finish(out);
+            } finally {
+                release();
+                out.close();
+            }
+        }
+
+        private void release() {
+            if (compressor == null) return;
+            compressor.release();
+            compressor = null;
+        }
+    }
+}
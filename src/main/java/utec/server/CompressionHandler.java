@@ -0,0 +1,100 @@
+package utec.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+
+/**
+ * Comprime las respuestas de una ruta con gzip o deflate según el Accept-Encoding del
+ * cliente (gzip si acepta los dos). Solo se comprimen bodies de texto/JSON de al menos
+ * threshold bytes o de largo desconocido; la respuesta lleva siempre Vary: Accept-Encoding.
+ */
+public class CompressionHandler implements HttpHandler {
+    private final HttpHandler handler;
+    private final int threshold;
+    private final int level;
+
+    public CompressionHandler(HttpHandler handler, int threshold, int level) {
+        this.handler = handler;
+        this.threshold = threshold;
+        this.level = level;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().add("Vary", "Accept-Encoding");
+        Compressor.Encoding encoding = negotiate(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+        if (encoding == null) {
+            handler.handle(exchange);
+            return;
+        }
+
+        CompressingExchange compressing = new CompressingExchange(exchange, encoding, threshold, level);
+        try {
+            handler.handle(compressing);
+        } finally {
+            compressing.release();
+        }
+    }
+
+    /**
+     * Encoding a usar según el header Accept-Encoding, o null para no comprimir. Respeta q=0
+     * y el comodín *.
+     */
+    static Compressor.Encoding negotiate(String header) {
+        if (header == null || header.isEmpty()) return null;
+
+        double gzip = -1;
+        double deflate = -1;
+        double any = -1;
+        int start = 0;
+        while (start < header.length()) {
+            int end = header.indexOf(',', start);
+            if (end < 0) end = header.length();
+            int semicolon = header.indexOf(';', start);
+            int tokenEnd = semicolon >= 0 && semicolon < end ? semicolon : end;
+            double q = tokenEnd < end ? quality(header, tokenEnd + 1, end) : 1;
+
+            int from = skipSpaces(header, start, tokenEnd);
+            int to = tokenEnd;
+            while (to > from && header.charAt(to - 1) == ' ') to--;
+            if (matches(header, from, to, "gzip") || matches(header, from, to, "x-gzip")) {
+                gzip = q;
+            } else if (matches(header, from, to, "deflate")) {
+                deflate = q;
+            } else if (matches(header, from, to, "*")) {
+                any = q;
+            }
+            start = end + 1;
+        }
+
+        if (gzip < 0) gzip = any;
+        if (deflate < 0) deflate = any;
+        if (gzip > 0 && gzip >= deflate) return Compressor.Encoding.GZIP;
+        if (deflate > 0) return Compressor.Encoding.DEFLATE;
+        return null;
+    }
+
+    // Valor de q en los parámetros "; q=0.5"; 1 si no está o no se entiende
+    private static double quality(String header, int start, int end) {
+        int i = skipSpaces(header, start, end);
+        if (i + 1 < end && (header.charAt(i) == 'q' || header.charAt(i) == 'Q') && header.charAt(i + 1) == '=') {
+            try {
+                return Double.parseDouble(header.substring(i + 2, end).trim());
+            } catch (NumberFormatException e) {
+                return 1;
+            }
+        }
+        return 1;
+    }
+
+    private static int skipSpaces(String s, int from, int to) {
+        while (from < to && s.charAt(from) == ' ') from++;
+        return from;
+    }
+
+    private static boolean matches(String s, int from, int to, String token) {
+        return to - from == token.length() && s.regionMatches(true, from, token, 0, token.length());
+    }
+}
@@ -0,0 +1,98 @@
+package utec.server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Compresión en streaming gzip o deflate con un Deflater, un CRC y un buffer reutilizables
+ * (pool por encoding). GZIPOutputStream no permite reusar el Deflater, por eso el encabezado
+ * y el trailer de gzip se escriben acá.
+ */
+final class Compressor {
+    private static final int BUFFER_SIZE = 8 * 1024;
+    private static final int POOL_SIZE = 64;
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    enum Encoding {
+        GZIP("gzip"),
+        // "deflate" en HTTP es el formato zlib (RFC 1950), no deflate crudo
+        DEFLATE("deflate");
+
+        private final String token;
+        private final BlockingQueue<Compressor> pool = new ArrayBlockingQueue<>(POOL_SIZE);
+
+        Encoding(String token) {
+            this.token = token;
+        }
+
+        String token() {
+            return token;
+        }
+    }
+
+    private final Encoding encoding;
+    private final Deflater deflater;
+    private final CRC32 crc = new CRC32();
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+
+    private Compressor(Encoding encoding, int level) {
+        this.encoding = encoding;
+        this.deflater = new Deflater(level, encoding == Encoding.GZIP);
+    }
+
+    static Compressor acquire(Encoding encoding, int level, OutputStream out) throws IOException {
+        Compressor compressor = encoding.pool.poll();
+        if (compressor == null) {
+            compressor = new Compressor(encoding, level);
+        } else {
+            compressor.deflater.setLevel(level);
+        }
+        if (encoding == Encoding.GZIP) out.write(GZIP_HEADER);
+        return compressor;
+    }
+
+    void write(OutputStream out, byte[] b, int off, int len) throws IOException {
+        if (len == 0) return;
+        if (encoding == Encoding.GZIP) crc.update(b, off, len);
+        deflater.setInput(b, off, len);
+        while (!deflater.needsInput()) {
+            drain(out);
+        }
+    }
+
+    void finish(OutputStream out) throws IOException {
+        deflater.finish();
+        while (!deflater.finished()) {
+            drain(out);
+        }
+        if (encoding == Encoding.GZIP) {
+            writeIntLE(out, (int) crc.getValue());
+            writeIntLE(out, (int) deflater.getBytesRead());
+        }
+    }
+
+    /**
+     * Devuelve el compresor al pool (también si la respuesta quedó a medias).
+     */
+    void release() {
+        deflater.reset();
+        crc.reset();
+        if (!encoding.pool.offer(this)) deflater.end();
+    }
+
+    private void drain(OutputStream out) throws IOException {
+        int n = deflater.deflate(buffer);
+        if (n > 0) out.write(buffer, 0, n);
+    }
+
+    private static void writeIntLE(OutputStream out, int value) throws IOException {
+        out.write(value & 0xFF);
+        out.write((value >>> 8) & 0xFF);
+        out.write((value >>> 16) & 0xFF);
+        out.write((value >>> 24) & 0xFF);
+    }
+}
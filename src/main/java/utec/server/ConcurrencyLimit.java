@@ -0,0 +1,67 @@
+package utec.server;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Límite de requests en curso que se adapta a la latencia medida (AIMD): mientras los requests
+ * terminan dentro de la latencia objetivo y el límite se está usando, sube de a uno por cada
+ * "límite" requests (más o menos uno por ronda); cuando un request la supera, baja un 10%, a
+ * lo sumo una vez por intervalo objetivo para que una tanda de requests lentos no lo desplome.
+ * Lo que pasa del límite se rechaza enseguida en vez de hacer cola.
+ */
+public class ConcurrencyLimit {
+    private static final double BACKOFF = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long targetNanos;
+    private final AtomicInteger limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // Requests rápidos acumulados hacia el próximo +1
+    private final AtomicInteger credits = new AtomicInteger();
+    private final AtomicLong lastDecrease = new AtomicLong(System.nanoTime());
+
+    public ConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, long targetNanos) {
+        if (minLimit < 1 || maxLimit < minLimit) throw new IllegalArgumentException("Invalid concurrency limits");
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.targetNanos = targetNanos;
+        this.limit = new AtomicInteger(Math.clamp(initialLimit, minLimit, maxLimit));
+    }
+
+    public boolean tryAcquire() {
+        if (inFlight.incrementAndGet() <= limit.get()) return true;
+        inFlight.decrementAndGet();
+        return false;
+    }
+
+    /**
+     * Libera el lugar de un request admitido que tardó latencyNanos.
+     */
+    public void release(long latencyNanos) {
+        int concurrent = inFlight.getAndDecrement();
+        int current = limit.get();
+        if (latencyNanos > targetNanos) {
+            long now = System.nanoTime();
+            long last = lastDecrease.get();
+            if (now - last >= targetNanos && lastDecrease.compareAndSet(last, now)) {
+                limit.compareAndSet(current, Math.max(minLimit, (int) (current * BACKOFF)));
+            }
+        } else if (concurrent * 2 >= current && current < maxLimit) {
+            // Con menos de la mitad en uso la latencia no dice nada sobre un límite más alto
+            if (credits.incrementAndGet() >= current) {
+                credits.set(0);
+                limit.compareAndSet(current, current + 1);
+            }
+        }
+    }
+
+    public int limit() {
+        return limit.get();
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,67 @@
+package utec.server;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+
+/**
+ * ETags a partir de contadores de versión y respuestas 304 para If-None-Match.
+ * Las versiones arrancan de cero en cada proceso, por eso el tag lleva además una época
+ * propia del proceso: un tag emitido antes de un reinicio nunca coincide con uno nuevo.
+ * <p>
+ * Los tags son débiles (W/): la misma versión sale en gzip, deflate o sin comprimir según el
+ * cliente (CompressionHandler, que agrega Vary: Accept-Encoding), y un tag fuerte prometería
+ * los mismos bytes en las tres.
+ */
+public final class ETags {
+    private static final String EPOCH = Long.toString(System.currentTimeMillis(), 36);
+
+    private ETags() {
+    }
+
+    public static String of(long version) {
+        return "W/\"" + EPOCH + "-" + Long.toString(version, 36) + "\"";
+    }
+
+    /**
+     * Agrega ETag y Cache-Control a la respuesta. Si el cliente ya tiene esa versión responde
+     * 304 sin body, cierra el exchange y devuelve true: el handler no debe serializar nada.
+     */
+    public static boolean notModified(HttpExchange exchange, String etag) throws IOException {
+        exchange.getResponseHeaders().set("ETag", etag);
+        // Los clientes pueden guardar la respuesta, pero tienen que revalidarla en cada uso
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        if (ifNoneMatch == null || !matches(ifNoneMatch, etag)) return false;
+
+        exchange.sendResponseHeaders(304, -1);
+        exchange.close();
+        return true;
+    }
+
+    /**
+     * If-None-Match usa comparación débil: "*", o alguno de la lista igual al tag sin contar W/.
+     */
+    static boolean matches(String header, String etag) {
+        if (etag.startsWith("W/")) etag = etag.substring(2);
+        int i = 0;
+        int n = header.length();
+        while (i < n) {
+            while (i < n && (header.charAt(i) == ' ' || header.charAt(i) == ',')) i++;
+            if (i == n) break;
+            if (header.charAt(i) == '*') return true;
+            if (header.startsWith("W/", i)) i += 2;
+            if (header.startsWith(etag, i)) {
+                int end = i + etag.length();
+                if (end == n || header.charAt(end) == ',' || header.charAt(end) == ' ') return true;
+            }
+            // Siguiente tag: saltar hasta la coma fuera de comillas
+            boolean quoted = false;
+            while (i < n && (quoted || header.charAt(i) != ',')) {
+                if (header.charAt(i) == '"') quoted = !quoted;
+                i++;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,31 @@
+package utec.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import utec.json.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * JsonWriter que escribe directo a la respuesta. Si el documento cabe en un buffer se envía
+ * con Content-Length; si no, se manda con chunked transfer encoding a medida que se genera.
+ */
+public class ExchangeJsonWriter extends JsonWriter {
+    private final HttpExchange exchange;
+    private final int status;
+
+    public ExchangeJsonWriter(HttpExchange exchange, int status) {
+        super(exchange.getResponseBody());
+        this.exchange = exchange;
+        this.status = status;
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+    }
+
+    @Override
+    protected void flushBuffer(byte[] bytes, int length, boolean last) throws IOException {
+        if (!isFlushedOnce()) {
+            // Primer bloque: todavía no se enviaron headers
+            exchange.sendResponseHeaders(status, last ? length : 0);
+        }
+        super.flushBuffer(bytes, length, last);
+    }
+}
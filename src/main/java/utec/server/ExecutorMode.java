@@ -0,0 +1,48 @@
+package utec.server;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+public enum ExecutorMode {
+    // Un solo hilo (el dispatcher del HttpServer), comportamiento original
+    DISPATCHER,
+    // Un hilo virtual por request
+    VIRTUAL,
+    // Pool acotado de hilos de plataforma; lo que no entra en la cola se responde con 503
+    POOL,
+    // ForkJoinPool con work-stealing
+    WORK_STEALING;
+
+    public static ExecutorMode parse(String value) {
+        if (value == null || value.isBlank()) {
+            return VIRTUAL;
+        }
+        return switch (value.trim().toLowerCase().replace('_', '-')) {
+            case "dispatcher", "none", "single" -> DISPATCHER;
+            case "virtual" -> VIRTUAL;
+            case "pool", "fixed" -> POOL;
+            case "work-stealing", "forkjoin" -> WORK_STEALING;
+            default -> throw new IllegalArgumentException("Unknown executor mode: " + value);
+        };
+    }
+
+    /**
+     * Crea el executor para este modo. Devuelve null en modo DISPATCHER,
+     * que es lo que HttpServer espera para usar su hilo por defecto.
+     */
+    public ExecutorService create(int threads, int queueSize) {
+        return switch (this) {
+            case DISPATCHER -> null;
+            case VIRTUAL -> Executors.newThreadPerTaskExecutor(
+                    Thread.ofVirtual().name("http-virtual-", 0).factory());
+            case POOL -> new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(queueSize),
+                    Thread.ofPlatform().name("http-pool-", 0).factory(),
+                    OverloadHandler.POLICY);
+            case WORK_STEALING -> Executors.newWorkStealingPool(threads);
+        };
+    }
+}
@@ -0,0 +1,34 @@
+package utec.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import utec.metrics.RouteMetrics;
+
+import java.io.IOException;
+
+/**
+ * Cuenta el request en las métricas del route: en curso, latencia total y status de la
+ * respuesta. Si el handler falla sin haber respondido se cuenta como 500.
+ */
+public class MetricsHandler implements HttpHandler {
+    private final HttpHandler handler;
+    private final RouteMetrics metrics;
+
+    public MetricsHandler(HttpHandler handler, RouteMetrics metrics) {
+        this.handler = handler;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        long start = metrics.started();
+        boolean failed = true;
+        try {
+            handler.handle(exchange);
+            failed = false;
+        } finally {
+            int status = exchange.getResponseCode();
+            metrics.completed(start, status > 0 ? status : failed ? 500 : 0);
+        }
+    }
+}
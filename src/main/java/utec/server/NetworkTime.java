@@ -0,0 +1,109 @@
+package utec.server;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Tiempo que un request pasa bloqueado en la red: esperando bytes del body o escribiendo la
+ * respuesta. AdmissionHandler lo descuenta de la latencia que ve el límite adaptativo, así un
+ * cliente lento no se confunde con un servidor saturado. Lo usa un solo hilo por request.
+ */
+final class NetworkTime {
+    private long nanos;
+
+    long nanos() {
+        return nanos;
+    }
+
+    InputStream wrap(InputStream in) {
+        return new FilterInputStream(in) {
+            @Override
+            public int read() throws IOException {
+                long start = System.nanoTime();
+                try {
+                    return super.read();
+                } finally {
+                    nanos += System.nanoTime() - start;
+                }
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                long start = System.nanoTime();
+                try {
+                    return super.read(b, off, len);
+                } finally {
+                    nanos += System.nanoTime() - start;
+                }
+            }
+
+            @Override
+            public long skip(long n) throws IOException {
+                long start = System.nanoTime();
+                try {
+                    return super.skip(n);
+                } finally {
+                    nanos += System.nanoTime() - start;
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                // El JDK drena lo que quede del body al cerrarlo
+                long start = System.nanoTime();
+                try {
+                    super.close();
+                } finally {
+                    nanos += System.nanoTime() - start;
+                }
+            }
+        };
+    }
+
+    OutputStream wrap(OutputStream out) {
+        return new FilterOutputStream(out) {
+            @Override
+            public void write(int b) throws IOException {
+                long start = System.nanoTime();
+                try {
+                    out.write(b);
+                } finally {
+                    nanos += System.nanoTime() - start;
+                }
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                long start = System.nanoTime();
+                try {
+                    out.write(b, off, len);
+                } finally {
+                    nanos += System.nanoTime() - start;
+                }
+            }
+
+            @Override
+            public void flush() throws IOException {
+                long start = System.nanoTime();
+                try {
+                    out.flush();
+                } finally {
+                    nanos += System.nanoTime() - start;
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                long start = System.nanoTime();
+                try {
+                    out.close();
+                } finally {
+                    nanos += System.nanoTime() - start;
+                }
+            }
+        };
+    }
+}
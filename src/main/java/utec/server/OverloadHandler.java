@@ -0,0 +1,52 @@
+package utec.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+
+/**
+ * Handler raíz para el pool acotado (ExecutorMode.POOL). Cuando los hilos están ocupados y la
+ * cola llena, el request no se ejecuta en el hilo dispatcher del HttpServer (que dejaría de
+ * aceptar y despachar conexiones mientras tanto) sino en un hilo virtual que solo responde 503
+ * con Retry-After, sin pasar por el router ni los controllers.
+ */
+public class OverloadHandler implements HttpHandler {
+    private static final byte[] OVERLOADED = "{\"error\":\"Server overloaded\"}".getBytes(StandardCharsets.UTF_8);
+    private static final ThreadLocal<Boolean> REJECTED = new ThreadLocal<>();
+
+    /**
+     * Política del pool: los requests que no entran se rechazan en un hilo virtual aparte.
+     */
+    public static final RejectedExecutionHandler POLICY = (task, executor) -> {
+        if (executor.isShutdown()) {
+            throw new RejectedExecutionException("Executor shut down");
+        }
+        Thread.ofVirtual().name("http-rejected").start(() -> {
+            REJECTED.set(Boolean.TRUE);
+            task.run();
+        });
+    };
+
+    private final HttpHandler handler;
+
+    public OverloadHandler(HttpHandler handler) {
+        this.handler = handler;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        if (REJECTED.get() == null) {
+            handler.handle(exchange);
+            return;
+        }
+        exchange.getResponseHeaders().set("Retry-After", "1");
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(503, OVERLOADED.length);
+        exchange.getResponseBody().write(OVERLOADED);
+        exchange.close();
+    }
+}
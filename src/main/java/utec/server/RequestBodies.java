@@ -0,0 +1,32 @@
+package utec.server;
+
+import com.sun.net.httpserver.HttpExchange;
+
+/**
+ * Datos del body de un request que pasó por BodyLimitHandler. Los handlers lo leen en streaming
+ * con DtoCodec, sin copiarlo antes a un arreglo.
+ */
+public final class RequestBodies {
+    private RequestBodies() {
+    }
+
+    /**
+     * Tiempo (ns) que el handler pasó esperando bytes del body hasta ahora.
+     */
+    public static long readNanos(HttpExchange exchange) {
+        return exchange.getRequestBody() instanceof BoundedInputStream body ? body.readNanos() : 0;
+    }
+
+    /**
+     * Content-Length del request, o -1 si no viene o no es válido (por ejemplo, chunked).
+     */
+    public static long contentLength(HttpExchange exchange) {
+        String header = exchange.getRequestHeaders().getFirst("Content-Length");
+        if (header == null) return -1;
+        try {
+            return Long.parseLong(header.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package utec.server;
+
+import java.io.IOException;
+
+/**
+ * El body del request superó el máximo configurado; BodyLimitHandler lo responde con 413.
+ */
+public class RequestBodyTooLargeException extends IOException {
+
+    public RequestBodyTooLargeException(long maxBytes) {
+        super("Request body larger than " + maxBytes + " bytes");
+    }
+}
@@ -0,0 +1,32 @@
+package utec.server;
+
+import com.sun.net.httpserver.HttpExchange;
+
+/**
+ * Exchange con los parámetros de path de la ruta. Los atributos de HttpExchange del JDK se
+ * guardan en el HttpContext (compartido por todos los requests del único contexto raíz), por
+ * eso los parámetros viven acá y getAttribute los consulta antes de delegar.
+ */
+class RoutedExchange extends DelegatingExchange {
+    private final String[] names;
+    private final String[] values;
+
+    RoutedExchange(HttpExchange exchange, String[] names, String[] values) {
+        super(exchange);
+        this.names = names;
+        this.values = values;
+    }
+
+    String param(String name) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) return values[i];
+        }
+        return null;
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        String value = param(name);
+        return value != null ? value : exchange.getAttribute(name);
+    }
+}
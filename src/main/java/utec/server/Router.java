@@ -0,0 +1,238 @@
+package utec.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Handler raíz: resuelve método + path contra un trie de rutas compilado al registrarlas y
+ * responde 404/405 en un solo lugar. Los segmentos literales se buscan en una tabla hash por
+ * nodo calculando el hash sobre el propio path (sin split ni substring), así el costo de un
+ * request depende del largo del path y no de cuántas rutas hay. Los segmentos {nombre} se
+ * leen con Router.pathParam o exchange.getAttribute(nombre).
+ * <p>
+ * Las rutas se registran antes de arrancar el servidor; después el trie solo se lee.
+ */
+public class Router implements HttpHandler {
+    private static final byte[] NOT_FOUND = "{\"error\":\"Not found\"}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] METHOD_NOT_ALLOWED = "{\"error\":\"Method not allowed\"}".getBytes(StandardCharsets.UTF_8);
+    private static final String[] NO_PARAMS = new String[0];
+
+    /**
+     * Resultado de find: el handler del método pedido o, si el path existe pero no con ese
+     * método, una ruta sin handler con los métodos permitidos (para el header Allow).
+     */
+    public static final class Route {
+        private final HttpHandler handler;
+        private final String[] params;
+        private final String allow;
+
+        private Route(HttpHandler handler, String[] params, String allow) {
+            this.handler = handler;
+            this.params = params;
+            this.allow = allow;
+        }
+
+        public HttpHandler handler() {
+            return handler;
+        }
+
+        public String[] params() {
+            return params;
+        }
+    }
+
+    private static final class Node {
+        // Hijos literales: tabla hash con sondeo lineal, indexada por el hash del segmento
+        private String[] keys = new String[0];
+        private Node[] children = new Node[0];
+        private int size;
+        // Hijo {param}: a lo sumo uno por nivel
+        private Node param;
+        private String paramName;
+        // Rutas que terminan en este nodo, por método
+        private final Map<String, Route> routes = new HashMap<>();
+        private Route methodNotAllowed;
+
+        private Node literal(String path, int start, int end) {
+            if (size == 0) return null;
+            int mask = keys.length - 1;
+            for (int i = spread(hash(path, start, end)) & mask; keys[i] != null; i = (i + 1) & mask) {
+                String key = keys[i];
+                if (key.length() == end - start && path.regionMatches(start, key, 0, key.length())) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        private Node addLiteral(String segment) {
+            Node existing = literal(segment, 0, segment.length());
+            if (existing != null) return existing;
+
+            Node child = new Node();
+            if ((size + 1) * 2 > keys.length) {
+                String[] oldKeys = keys;
+                Node[] oldChildren = children;
+                keys = new String[Math.max(4, Integer.highestOneBit((size + 1) * 2) * 2)];
+                children = new Node[keys.length];
+                for (int i = 0; i < oldKeys.length; i++) {
+                    if (oldKeys[i] != null) put(oldKeys[i], oldChildren[i]);
+                }
+            }
+            put(segment, child);
+            size++;
+            return child;
+        }
+
+        private void put(String key, Node child) {
+            int mask = keys.length - 1;
+            int i = spread(key.hashCode()) & mask;
+            while (keys[i] != null) i = (i + 1) & mask;
+            keys[i] = key;
+            children[i] = child;
+        }
+    }
+
+    private final Node root = new Node();
+    private int maxParams;
+
+    /**
+     * Registra method + pattern, por ejemplo ("GET", "/users/{id}").
+     */
+    public Router add(String method, String pattern, HttpHandler handler) {
+        if (!pattern.startsWith("/")) {
+            throw new IllegalArgumentException("Route must start with '/': " + pattern);
+        }
+
+        Node node = root;
+        String[] names = NO_PARAMS;
+        int start = 1;
+        while (start <= pattern.length()) {
+            int end = pattern.indexOf('/', start);
+            if (end < 0) end = pattern.length();
+            String segment = pattern.substring(start, end);
+            if (segment.startsWith("{") && segment.endsWith("}")) {
+                String name = segment.substring(1, segment.length() - 1);
+                if (node.param == null) {
+                    node.param = new Node();
+                    node.paramName = name;
+                } else if (!node.paramName.equals(name)) {
+                    throw new IllegalArgumentException("Conflicting parameter {" + name + "} in " + pattern);
+                }
+                names = Arrays.copyOf(names, names.length + 1);
+                names[names.length - 1] = name;
+                node = node.param;
+            } else {
+                node = node.addLiteral(segment);
+            }
+            start = end + 1;
+        }
+
+        if (node.routes.containsKey(method)) {
+            throw new IllegalArgumentException("Duplicate route " + method + " " + pattern);
+        }
+        node.routes.put(method, new Route(handler, names, null));
+        node.methodNotAllowed = new Route(null, names, String.join(", ", new TreeSet<>(node.routes.keySet())));
+        maxParams = Math.max(maxParams, names.length);
+        return this;
+    }
+
+    /**
+     * Cantidad máxima de parámetros de una ruta (tamaño del arreglo values de find).
+     */
+    public int maxParams() {
+        return maxParams;
+    }
+
+    /**
+     * Busca la ruta de method + path. Devuelve null si el path no existe; si existe pero no con
+     * ese método, una ruta con handler null. Los valores de los parámetros quedan en values.
+     */
+    public Route find(String method, String path, String[] values) {
+        if (path.isEmpty() || path.charAt(0) != '/') return null;
+        Node node = match(root, path, 1, values, 0);
+        if (node == null) return null;
+        Route route = node.routes.get(method);
+        return route != null ? route : node.methodNotAllowed;
+    }
+
+    // Literales antes que parámetros; si el literal no lleva a una ruta se prueba el parámetro
+    private static Node match(Node node, String path, int start, String[] values, int depth) {
+        int end = path.indexOf('/', start);
+        if (end < 0) end = path.length();
+        boolean last = end == path.length();
+
+        Node literal = node.literal(path, start, end);
+        if (literal != null) {
+            Node found = last ? terminal(literal) : match(literal, path, end + 1, values, depth);
+            if (found != null) return found;
+        }
+        if (node.param != null && end > start) {
+            Node found = last ? terminal(node.param) : match(node.param, path, end + 1, values, depth + 1);
+            if (found != null) {
+                values[depth] = path.substring(start, end);
+                return found;
+            }
+        }
+        return null;
+    }
+
+    private static Node terminal(Node node) {
+        return node.routes.isEmpty() ? null : node;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        String[] values = maxParams == 0 ? NO_PARAMS : new String[maxParams];
+        Route route = find(exchange.getRequestMethod(), exchange.getRequestURI().getPath(), values);
+        if (route == null) {
+            send(exchange, 404, NOT_FOUND);
+            return;
+        }
+        if (route.handler == null) {
+            exchange.getResponseHeaders().set("Allow", route.allow);
+            send(exchange, 405, METHOD_NOT_ALLOWED);
+            return;
+        }
+        route.handler.handle(route.params.length == 0 ? exchange : new RoutedExchange(exchange, route.params, values));
+    }
+
+    /**
+     * Valor del segmento {name} de la ruta que atendió el request, o null.
+     */
+    public static String pathParam(HttpExchange exchange, String name) {
+        // Otros handlers pueden haber envuelto el exchange (por ejemplo, la compresión)
+        while (exchange instanceof DelegatingExchange delegating) {
+            if (delegating instanceof RoutedExchange routed) return routed.param(name);
+            exchange = delegating.exchange;
+        }
+        return null;
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+        exchange.close();
+    }
+
+    // Mismo hash que String.hashCode, calculado sobre path[start, end)
+    private static int hash(String s, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + s.charAt(i);
+        }
+        return h;
+    }
+
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,80 @@
+package utec.server;
+
+/**
+ * Configuración del servidor HTTP. Cada valor se puede pasar como argumento
+ * (--executor=virtual) o como propiedad del sistema (-Dserver.executor=virtual);
+ * el argumento tiene prioridad.
+ * <p>
+ * maxBody y maxBulkBody son el tamaño máximo en bytes del body de un request (413 si se pasa);
+ * el segundo aplica a las rutas de carga en lote (/flights/create-many).
+ * <p>
+ * Las respuestas de texto/JSON desde compressionThreshold bytes se comprimen con gzip o deflate
+ * si el cliente lo acepta (-1 desactiva la compresión); compressionLevel va de 1 a 9.
+ * <p>
+ * admission: --rate-limit y --rate-burst (por cliente, apagado por defecto), --max-concurrency
+ * (1024 por defecto, 0 lo apaga) y --latency-target-ms.
+ */
+public record ServerConfig(int port, int backlog, ExecutorMode executorMode, int threads, int queueSize,
+                           long maxBody, long maxBulkBody, int compressionThreshold, int compressionLevel,
+                           AdmissionConfig admission) {
+
+    public static final long DEFAULT_MAX_BODY = 1024 * 1024;
+    public static final long DEFAULT_MAX_BULK_BODY = 64 * 1024 * 1024;
+    public static final int DEFAULT_COMPRESSION_THRESHOLD = 1024;
+    public static final int DEFAULT_COMPRESSION_LEVEL = 6;
+
+    public ServerConfig(int port, int backlog, ExecutorMode executorMode, int threads, int queueSize) {
+        this(port, backlog, executorMode, threads, queueSize, DEFAULT_MAX_BODY, DEFAULT_MAX_BULK_BODY,
+                DEFAULT_COMPRESSION_THRESHOLD, DEFAULT_COMPRESSION_LEVEL, AdmissionConfig.DEFAULT);
+    }
+
+    public static ServerConfig from(String[] args) {
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        int port = Integer.parseInt(option(args, "port", "8080"));
+        int backlog = Integer.parseInt(option(args, "backlog", "1024"));
+        ExecutorMode mode = ExecutorMode.parse(option(args, "executor", "virtual"));
+        int threads = Integer.parseInt(option(args, "threads", String.valueOf(cores * 2)));
+        int queueSize = Integer.parseInt(option(args, "queue", "10000"));
+        long maxBody = Long.parseLong(option(args, "max-body", String.valueOf(DEFAULT_MAX_BODY)));
+        long maxBulkBody = Long.parseLong(option(args, "max-bulk-body", String.valueOf(DEFAULT_MAX_BULK_BODY)));
+        int compressionThreshold = Integer.parseInt(option(args, "compression-threshold",
+                String.valueOf(DEFAULT_COMPRESSION_THRESHOLD)));
+        int compressionLevel = Integer.parseInt(option(args, "compression-level",
+                String.valueOf(DEFAULT_COMPRESSION_LEVEL)));
+        double rateLimit = Double.parseDouble(option(args, "rate-limit", "0"));
+        // Por defecto se permite una ráfaga de un segundo de requests
+        int rateBurst = Integer.parseInt(option(args, "rate-burst", String.valueOf((int) Math.ceil(rateLimit))));
+        int maxConcurrency = Integer.parseInt(option(args, "max-concurrency",
+                String.valueOf(AdmissionConfig.DEFAULT_MAX_CONCURRENCY)));
+        long latencyTarget = Long.parseLong(option(args, "latency-target-ms",
+                String.valueOf(AdmissionConfig.DEFAULT_LATENCY_TARGET_MILLIS)));
+
+        if (backlog < 0) throw new IllegalArgumentException("backlog must be >= 0");
+        if (threads <= 0) throw new IllegalArgumentException("threads must be > 0");
+        if (queueSize <= 0) throw new IllegalArgumentException("queue must be > 0");
+        if (maxBody <= 0 || maxBulkBody <= 0) throw new IllegalArgumentException("max-body must be > 0");
+        if (compressionLevel < 1 || compressionLevel > 9) {
+            throw new IllegalArgumentException("compression-level must be between 1 and 9");
+        }
+        if (rateLimit < 0 || (rateLimit > 0 && rateBurst < 1)) {
+            throw new IllegalArgumentException("rate-limit must be >= 0 and rate-burst >= 1");
+        }
+        if (maxConcurrency < 0) throw new IllegalArgumentException("max-concurrency must be >= 0");
+        if (latencyTarget <= 0) throw new IllegalArgumentException("latency-target-ms must be > 0");
+
+        return new ServerConfig(port, backlog, mode, threads, queueSize, maxBody, maxBulkBody,
+                compressionThreshold, compressionLevel,
+                new AdmissionConfig(rateLimit, rateBurst, maxConcurrency, latencyTarget));
+    }
+
+    private static String option(String[] args, String name, String defaultValue) {
+        String prefix = "--" + name + "=";
+        for (String arg : args) {
+            if (arg.startsWith(prefix)) {
+                return arg.substring(prefix.length());
+            }
+        }
+        return System.getProperty("server." + name, defaultValue);
+    }
+}
@@ -0,0 +1,51 @@
+package utec.server;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Un token bucket por cliente, implementado como GCRA: cada cliente guarda solo el instante
+ * teórico en que su balde vuelve a estar lleno (tat) y un request se admite con un CAS sobre
+ * ese valor. Equivale a rate tokens por segundo con capacidad burst.
+ * <p>
+ * Un cliente cuyo tat ya pasó tiene el balde lleno, igual que uno que nunca llegó: esas
+ * entradas se pueden borrar sin cambiar el resultado, y se barren cuando hay demasiadas.
+ */
+public class TokenBuckets {
+    private static final int MAX_CLIENTS = 100_000;
+
+    private final long interval;
+    private final long tolerance;
+    private final Map<String, AtomicLong> clients = new ConcurrentHashMap<>();
+
+    public TokenBuckets(double rate, int burst) {
+        if (rate <= 0 || burst < 1) throw new IllegalArgumentException("rate must be > 0 and burst >= 1");
+        this.interval = (long) (1e9 / rate);
+        this.tolerance = interval * (burst - 1);
+    }
+
+    /**
+     * Consume un token de client. Devuelve 0 si se admite o, si no, los nanosegundos hasta
+     * que haya uno disponible.
+     */
+    public long tryAcquire(String client) {
+        long now = System.nanoTime();
+        AtomicLong tat = clients.get(client);
+        if (tat == null) {
+            if (clients.size() >= MAX_CLIENTS) sweep(now);
+            tat = clients.computeIfAbsent(client, c -> new AtomicLong(now));
+        }
+        while (true) {
+            long current = tat.get();
+            long start = current - now < 0 ? now : current;
+            long wait = start - tolerance - now;
+            if (wait > 0) return wait;
+            if (tat.compareAndSet(current, start + interval)) return 0;
+        }
+    }
+
+    private void sweep(long now) {
+        clients.values().removeIf(tat -> tat.get() - now <= 0);
+    }
+}
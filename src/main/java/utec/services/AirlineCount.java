@@ -0,0 +1,7 @@
+package utec.services;
+
+/**
+ * Una aerolínea del catálogo con la cantidad de vuelos publicados.
+ */
+public record AirlineCount(String name, long flights) {
+}
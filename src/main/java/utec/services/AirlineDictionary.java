@@ -0,0 +1,133 @@
+package utec.services;
+
+import utec.dtos.FlightDTO;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Diccionario de aerolíneas: cada nombre normalizado (en mayúsculas, como lo compara la
+ * búsqueda) recibe un código int chico, en orden de llegada. Los vuelos se indexan por código,
+ * un filtro de aerolínea se resuelve una vez por query al conjunto de códigos que contienen el
+ * texto buscado, y cada aerolínea lleva la cantidad de vuelos publicados.
+ * <p>
+ * El nombre que se muestra es la primera grafía vista; los vuelos con esa misma grafía
+ * comparten la instancia del String en vez de guardar una copia cada uno.
+ */
+class AirlineDictionary {
+
+    private static final class Entry {
+        final int code;
+        final String name;
+        final String key;
+        final LongAdder flights = new LongAdder();
+
+        Entry(int code, String name, String key) {
+            this.code = code;
+            this.name = name;
+            this.key = key;
+        }
+    }
+
+    private final Map<String, Entry> byKey = new ConcurrentHashMap<>();
+    // Índice = código; se reemplaza al crecer (copy-on-write, las altas de aerolíneas son raras)
+    private volatile Entry[] byCode = new Entry[0];
+
+    /**
+     * Registra el vuelo en su aerolínea (la crea si es nueva) y devuelve su código, que el
+     * vuelo conserva en el índice de búsqueda. Si la grafía coincide, el vuelo pasa a guardar
+     * la instancia compartida del nombre.
+     */
+    int add(FlightDTO flight) {
+        Entry entry = entry(flight.airlineName);
+        entry.flights.increment();
+        if (entry.name.equals(flight.airlineName)) flight.airlineName = entry.name;
+        return entry.code;
+    }
+
+    /**
+     * Código de la aerolínea, o -1 si no existe. A diferencia de add() no la crea.
+     */
+    int find(String name) {
+        Entry entry = byKey.get(normalize(name));
+        return entry != null ? entry.code : -1;
+    }
+
+    /**
+     * Si el nombre normalizado de la aerolínea code contiene query (false si el código no existe).
+     */
+    boolean contains(int code, String query) {
+        Entry[] entries = byCode;
+        return code >= 0 && code < entries.length && entries[code].key.contains(normalize(query));
+    }
+
+    /**
+     * Códigos de las aerolíneas cuyo nombre normalizado contiene query, como arreglo indexado
+     * por código (una aerolínea creada después queda fuera del arreglo: no coincide).
+     * Devuelve null si no coincide ninguna.
+     */
+    boolean[] matching(String query) {
+        String key = normalize(query);
+        Entry[] entries = byCode;
+        boolean[] matches = new boolean[entries.length];
+        boolean any = false;
+        for (Entry entry : entries) {
+            if (entry.key.contains(key)) {
+                matches[entry.code] = true;
+                any = true;
+            }
+        }
+        return any ? matches : null;
+    }
+
+    static boolean matches(boolean[] codes, int code) {
+        return code < codes.length && codes[code];
+    }
+
+    /**
+     * Aerolíneas con al menos un vuelo, ordenadas por nombre.
+     */
+    List<AirlineCount> list() {
+        List<AirlineCount> airlines = new ArrayList<>();
+        for (Entry entry : byCode) {
+            long flights = entry.flights.sum();
+            if (flights > 0) airlines.add(new AirlineCount(entry.name, flights));
+        }
+        airlines.sort(Comparator.comparing(AirlineCount::name, String.CASE_INSENSITIVE_ORDER));
+        return airlines;
+    }
+
+    synchronized void clear() {
+        byKey.clear();
+        byCode = new Entry[0];
+    }
+
+    private Entry entry(String name) {
+        String key = normalize(name);
+        Entry entry = byKey.get(key);
+        return entry != null ? entry : create(name, key);
+    }
+
+    private synchronized Entry create(String name, String key) {
+        Entry entry = byKey.get(key);
+        if (entry != null) return entry;
+        Entry[] entries = byCode;
+        entry = new Entry(entries.length, name, key);
+        Entry[] grown = Arrays.copyOf(entries, entries.length + 1);
+        grown[entry.code] = entry;
+        // Primero el arreglo: quien encuentre el código en byKey ya lo ve en byCode
+        byCode = grown;
+        byKey.put(key, entry);
+        return entry;
+    }
+
+    static String normalize(String value) {
+        return value.toUpperCase(Locale.ROOT);
+    }
+}
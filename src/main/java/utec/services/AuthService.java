@@ -1,18 +1,34 @@
 package utec.services;
 
 import org.json.JSONObject;
+import utec.dto.LoginDTO;
 import utec.apitester.utils.JwtUtil;
 import utec.dtos.UserDTO;
 
-import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class AuthService {
     private final UserService userService;
-    private final Map<String, String> tokens = new HashMap<>();
+
+    // Tokens ya verificados -> userId. Acotado y con expiración para no crecer sin límite.
+    private record VerifiedToken(String userId, long expiresAt) {
+    }
+
+    private final Map<String, VerifiedToken> tokens = new ConcurrentHashMap<>();
+    private final int maxCachedTokens;
+    private final long tokenTtlMillis;
 
     public AuthService(UserService userService) {
+        this(userService, Integer.getInteger("auth.cache.size", 100_000),
+                Long.getLong("auth.cache.ttl", 10 * 60 * 1000L));
+    }
+
+    public AuthService(UserService userService, int maxCachedTokens, long tokenTtlMillis) {
         this.userService = userService;
+        this.maxCachedTokens = maxCachedTokens;
+        this.tokenTtlMillis = tokenTtlMillis;
     }
 
     public String login(JSONObject json) throws Exception {
@@ -20,8 +36,19 @@ public class AuthService {
             throw new Exception("Missing credentials");
         }
 
-        String email = json.getString("email").trim();
-        String password = json.getString("password").trim();
+        LoginDTO credentials = new LoginDTO();
+        credentials.email = json.getString("email");
+        credentials.password = json.getString("password");
+        return login(credentials);
+    }
+
+    public String login(LoginDTO credentials) throws Exception {
+        if (credentials.email == null || credentials.password == null) {
+            throw new Exception("Missing credentials");
+        }
+
+        String email = credentials.email.trim();
+        String password = credentials.password.trim();
 
         UserDTO user = userService.findByEmail(email);
         if (user == null) {
@@ -33,12 +60,46 @@ public class AuthService {
         }
 
         String token = JwtUtil.generateToken(user.id);
-        tokens.put(token, user.id);
+        remember(token, user.id);
         return token;
     }
 
     public String getUserIdFromToken(String token) {
-        return JwtUtil.validateToken(token);
+        long now = System.currentTimeMillis();
+        VerifiedToken cached = tokens.get(token);
+        if (cached != null && cached.expiresAt > now) {
+            return cached.userId;
+        }
+
+        String userId = JwtUtil.validateToken(token);
+        if (userId != null) {
+            remember(token, userId);
+        } else if (cached != null) {
+            tokens.remove(token);
+        }
+        return userId;
+    }
+
+    private void remember(String token, String userId) {
+        if (tokens.size() >= maxCachedTokens) {
+            evict();
+        }
+        tokens.put(token, new VerifiedToken(userId, System.currentTimeMillis() + tokenTtlMillis));
+    }
+
+    /**
+     * Saca los vencidos y, si no alcanza, una décima parte de las entradas (orden arbitrario).
+     */
+    private void evict() {
+        long now = System.currentTimeMillis();
+        tokens.values().removeIf(t -> t.expiresAt <= now);
+
+        int toRemove = tokens.size() - maxCachedTokens + Math.max(1, maxCachedTokens / 10);
+        Iterator<String> it = tokens.keySet().iterator();
+        while (toRemove-- > 0 && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
     }
 
     public void clear() {
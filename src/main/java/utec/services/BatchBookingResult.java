@@ -0,0 +1,13 @@
+package utec.services;
+
+import utec.dtos.BookingDTO;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resultado de una reserva en lote: las reservas creadas y, en modo BEST_EFFORT,
+ * el motivo por el que no se reservó cada vuelo (flightId -> error).
+ */
+public record BatchBookingResult(List<BookingDTO> bookings, Map<String, String> failures) {
+}
@@ -0,0 +1,246 @@
+package utec.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import utec.dtos.BookingDTO;
+import utec.dtos.FlightDTO;
+import utec.dtos.UserDTO;
+import utec.metrics.Metrics;
+import utec.metrics.Stage;
+import utec.metrics.StageTimings;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Escribe los correos de confirmación (flight_booking_email_{id}.txt) fuera del hilo del request.
+ * Los eventos de reserva entran a una cola acotada y un hilo de fondo los renderiza y escribe por lotes.
+ * Una reserva en lote genera un único correo combinado.
+ */
+public class BookingEmailService {
+
+    public enum OverflowPolicy {
+        // El request espera hasta que haya espacio en la cola
+        BLOCK,
+        // El request escribe el archivo él mismo (nunca se pierde un correo)
+        CALLER_RUNS,
+        // Se descarta el correo y se cuenta en dropped
+        DROP
+    }
+
+    private interface EmailEvent {
+        String fileId();
+
+        String render();
+    }
+
+    private record BookingEvent(String bookingId, String firstName, String lastName, String flightNumber,
+                                String departure, String arrival, String bookingDate) implements EmailEvent {
+        @Override
+        public String fileId() {
+            return bookingId;
+        }
+
+        @Override
+        public String render() {
+            return String.format(
+                    "Hello %s %s,%n%nYour booking was successful!%n%nThe booking is for flight %s with departure date of %s and arrival date of %s.%n%nThe booking was registered at %s.%n%nBon Voyage!%nFly Away Travel",
+                    firstName, lastName,
+                    flightNumber, departure, arrival,
+                    bookingDate
+            );
+        }
+    }
+
+    // Un correo para todas las reservas de un lote
+    private record GroupBookingEvent(String confirmationId, String firstName, String lastName,
+                                     List<String> lines, int seats, String bookingDate) implements EmailEvent {
+        @Override
+        public String fileId() {
+            return confirmationId;
+        }
+
+        @Override
+        public String render() {
+            return String.format(
+                    "Hello %s %s,%n%nYour booking of %d seat(s) was successful!%n%n%s%n%nThe booking was registered at %s.%n%nBon Voyage!%nFly Away Travel",
+                    firstName, lastName, seats, String.join(String.format("%n"), lines), bookingDate
+            );
+        }
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(BookingEmailService.class);
+    private static final StageTimings METRICS = Metrics.background("email");
+    private static final BookingEvent POISON = new BookingEvent(null, null, null, null, null, null, null);
+
+    private final BlockingQueue<EmailEvent> queue;
+    private final OverflowPolicy overflowPolicy;
+    private final int batchSize;
+    private final Path directory;
+    private final Thread writer;
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private volatile boolean accepting = true;
+
+    public BookingEmailService() {
+        this(Integer.getInteger("email.queue", 10_000),
+                Integer.getInteger("email.batch", 256),
+                OverflowPolicy.valueOf(System.getProperty("email.overflow", "CALLER_RUNS").toUpperCase()),
+                Path.of(System.getProperty("email.dir", ".")));
+    }
+
+    public BookingEmailService(int capacity, int batchSize, OverflowPolicy overflowPolicy, Path directory) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.overflowPolicy = overflowPolicy;
+        this.directory = directory;
+        this.writer = Thread.ofPlatform().name("booking-email-writer").daemon(true).start(this::run);
+    }
+
+    public void publish(BookingDTO booking, FlightDTO flight, UserDTO user) {
+        BookingEvent event = new BookingEvent(
+                booking.id,
+                user != null && user.firstName != null ? user.firstName : "",
+                user != null && user.lastName != null ? user.lastName : "",
+                flight != null ? flight.flightNumber : "N/A",
+                flight != null ? flight.estDepartureTime : "N/A",
+                flight != null ? flight.estArrivalTime : "N/A",
+                booking.bookingDate);
+        enqueue(event);
+    }
+
+    /**
+     * Confirmación combinada de una reserva en lote, en flight_booking_email_{confirmationId}.txt.
+     * flights trae los vuelos de las reservas por id.
+     */
+    public void publishGroup(String confirmationId, List<BookingDTO> bookings, Map<String, FlightDTO> flights,
+                             UserDTO user) {
+        Map<String, List<String>> idsPerFlight = new LinkedHashMap<>();
+        for (BookingDTO booking : bookings) {
+            idsPerFlight.computeIfAbsent(booking.flightId, id -> new ArrayList<>()).add(booking.id);
+        }
+
+        List<String> lines = new ArrayList<>(idsPerFlight.size());
+        idsPerFlight.forEach((flightId, ids) -> {
+            FlightDTO flight = flights.get(flightId);
+            lines.add(String.format("- %d seat(s) on flight %s with departure date of %s and arrival date of %s. Bookings: %s",
+                    ids.size(),
+                    flight != null ? flight.flightNumber : "N/A",
+                    flight != null ? flight.estDepartureTime : "N/A",
+                    flight != null ? flight.estArrivalTime : "N/A",
+                    String.join(", ", ids)));
+        });
+
+        enqueue(new GroupBookingEvent(
+                confirmationId,
+                user != null && user.firstName != null ? user.firstName : "",
+                user != null && user.lastName != null ? user.lastName : "",
+                lines,
+                bookings.size(),
+                bookings.isEmpty() ? "" : bookings.getFirst().bookingDate));
+    }
+
+    private void enqueue(EmailEvent event) {
+        if (!accepting) {
+            write(event);
+            return;
+        }
+        if (queue.offer(event)) return;
+
+        switch (overflowPolicy) {
+            case BLOCK -> {
+                try {
+                    queue.put(event);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    write(event);
+                }
+            }
+            case CALLER_RUNS -> write(event);
+            case DROP -> dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * Deja de aceptar eventos y espera a que se escriban los pendientes.
+     */
+    public synchronized void shutdown(Duration timeout) {
+        if (!accepting) return;
+        accepting = false;
+        try {
+            queue.put(POISON);
+            writer.join(timeout.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public long getWritten() {
+        return written.get();
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    public int getPending() {
+        return queue.size();
+    }
+
+    private void run() {
+        List<EmailEvent> batch = new ArrayList<>(batchSize);
+        while (true) {
+            try {
+                EmailEvent first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+
+                boolean stop = false;
+                for (EmailEvent event : batch) {
+                    if (event == POISON) {
+                        stop = true;
+                    } else {
+                        write(event);
+                    }
+                }
+                batch.clear();
+
+                if (stop) {
+                    // Lo que quede detrás del POISON se escribe antes de salir
+                    queue.drainTo(batch);
+                    batch.forEach(this::write);
+                    return;
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void write(EmailEvent event) {
+        long start = System.nanoTime();
+        try {
+            Files.writeString(directory.resolve("flight_booking_email_" + event.fileId() + ".txt"), event.render());
+            written.incrementAndGet();
+            METRICS.record(Stage.EMAIL_WRITE, start);
+        } catch (Exception ex) {
+            failed.incrementAndGet();
+            logger.error("No se pudo escribir archivo de confirmación id={}", event.fileId(), ex);
+        }
+    }
+}
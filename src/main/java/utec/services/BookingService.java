@@ -1,22 +1,57 @@
 package utec.services;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import utec.dtos.BookingDTO;
 import utec.dtos.FlightDTO;
 import utec.dtos.UserDTO;
+import utec.persistence.WalRecord;
+import utec.persistence.WriteAheadLog;
+import utec.repository.Repositories;
+import utec.repository.Repository;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 public class BookingService {
-    private final Map<String, BookingDTO> bookings = new ConcurrentHashMap<>();
+    private static final Logger logger = LoggerFactory.getLogger(BookingService.class);
+
+    public enum BatchMode {
+        // Si un vuelo no tiene asientos suficientes no se reserva nada
+        ALL_OR_NOTHING,
+        // Se reservan los vuelos que se puedan; cada vuelo es todo o nada
+        BEST_EFFORT
+    }
+
+    private final Repositories repositories;
+    private final Repository<BookingDTO> bookings;
+    // Versión de cada reserva publicada (BookingDTO.version), base del ETag de GET /flights/book/{id}
+    private final AtomicLong versions = new AtomicLong();
     private final FlightService flightService;
     private final UserService userService;
+    private final SeatInventory seatInventory;
+    private final WriteAheadLog wal;
 
-    public BookingService(FlightService flightService, UserService userService) {
+    public BookingService(FlightService flightService, UserService userService, SeatInventory seatInventory) {
+        this(flightService, userService, seatInventory, WriteAheadLog.disabled());
+    }
+
+    public BookingService(FlightService flightService, UserService userService, SeatInventory seatInventory,
+                          WriteAheadLog wal) {
+        // La reserva se publica con el vuelo bloqueado: usa los mismos repositorios que flightService
+        this.repositories = flightService.repositories();
+        this.bookings = repositories.bookings();
         this.flightService = flightService;
         this.userService = userService;
+        this.seatInventory = seatInventory;
+        this.wal = wal;
     }
 
     public BookingDTO createBooking(String flightId, String userId) throws Exception {
@@ -26,9 +61,8 @@ public class BookingService {
         if (flight == null) throw new Exception("Flight not found");
         if (user == null) throw new Exception("User not found");
 
-        if (flight.availableSeats <= 0) throw new Exception("No seats available");
-
-        flight.availableSeats = flight.availableSeats - 1;
+        // Reserva atómica: nunca se vende por encima del stock
+        if (!seatInventory.tryReserve(flight.id)) throw new Exception("No seats available");
 
         BookingDTO booking = new BookingDTO();
         booking.id = UUID.randomUUID().toString();
@@ -38,11 +72,155 @@ public class BookingService {
         booking.customerId = user.id;
         booking.customerFirstName = user.firstName;
         booking.customerLastName = user.lastName;
+        booking.version = versions.incrementAndGet();
 
-        bookings.put(booking.id, booking);
+        // El registro de la reserva lleva implícito el descuento del asiento
+        List<BookingDTO> published = List.of(booking);
+        boolean[] stored = new boolean[1];
+        try {
+            wal.append(WalRecord.booking(booking), () -> stored[0] = publish(published));
+        } catch (RuntimeException e) {
+            seatInventory.release(flight.id, 1);
+            throw e;
+        }
+        if (!stored[0]) {
+            seatInventory.release(flight.id, 1);
+            reject(published);
+        }
         return booking;
     }
 
+    /**
+     * Reserva varios asientos en uno o más vuelos para el mismo usuario (flightId -> asientos).
+     * Cada vuelo se reserva con una sola operación sobre el inventario; todas las reservas
+     * van al log en un único registro.
+     */
+    public BatchBookingResult createBookings(String userId, Map<String, Integer> seatsPerFlight, BatchMode mode)
+            throws Exception {
+        UserDTO user = userService.getUserById(userId);
+        if (user == null) throw new Exception("User not found");
+
+        Map<String, String> failures = new LinkedHashMap<>();
+        List<FlightDTO> reserved = new ArrayList<>(seatsPerFlight.size());
+        for (Map.Entry<String, Integer> entry : seatsPerFlight.entrySet()) {
+            FlightDTO flight = flightService.getFlightById(entry.getKey());
+            String error = flight == null ? "Flight not found"
+                    : seatInventory.tryReserve(flight.id, entry.getValue()) ? null : "No seats available";
+            if (error == null) {
+                reserved.add(flight);
+            } else if (mode == BatchMode.ALL_OR_NOTHING) {
+                releaseAll(reserved, seatsPerFlight);
+                throw new Exception(error + ": " + entry.getKey());
+            } else {
+                failures.put(entry.getKey(), error);
+            }
+        }
+
+        String bookingDate = Instant.now().toString();
+        List<BookingDTO> created = new ArrayList<>();
+        for (FlightDTO flight : reserved) {
+            for (int i = seatsPerFlight.get(flight.id); i > 0; i--) {
+                BookingDTO booking = new BookingDTO();
+                booking.id = UUID.randomUUID().toString();
+                booking.bookingDate = bookingDate;
+                booking.flightId = flight.id;
+                booking.flightNumber = flight.flightNumber;
+                booking.customerId = user.id;
+                booking.customerFirstName = user.firstName;
+                booking.customerLastName = user.lastName;
+                booking.version = versions.incrementAndGet();
+                created.add(booking);
+            }
+        }
+
+        if (!created.isEmpty()) {
+            boolean[] stored = new boolean[1];
+            try {
+                wal.appendAll(created.stream().map(WalRecord::booking).toList(),
+                        () -> stored[0] = publish(created));
+            } catch (RuntimeException e) {
+                releaseAll(reserved, seatsPerFlight);
+                throw e;
+            }
+            if (!stored[0]) {
+                releaseAll(reserved, seatsPerFlight);
+                reject(created);
+            }
+        }
+        return new BatchBookingResult(created, failures);
+    }
+
+    /**
+     * Guarda las reservas con sus vuelos y ellas mismas bloqueados, comprobando que los vuelos
+     * sigan existiendo: un clearAll concurrente no puede dejar reservas de vuelos borrados.
+     * Devuelve false si falta algún vuelo; en ese caso no se guarda ninguna.
+     */
+    private boolean publish(List<BookingDTO> batch) {
+        String[] keys = new String[batch.size() * 2];
+        for (int i = 0; i < batch.size(); i++) {
+            keys[2 * i] = batch.get(i).flightId;
+            keys[2 * i + 1] = batch.get(i).id;
+        }
+        return repositories.atomically(() -> {
+            for (BookingDTO booking : batch) {
+                if (!repositories.flights().containsKey(booking.flightId)) return false;
+            }
+            for (BookingDTO booking : batch) bookings.put(booking.id, booking);
+            return true;
+        }, keys);
+    }
+
+    /**
+     * Reservas ya escritas en el log cuyo vuelo desapareció (clearAll concurrente) antes de
+     * publicarlas: se anulan en el log para que el replay no las reviva.
+     */
+    private void reject(List<BookingDTO> batch) throws Exception {
+        wal.appendAll(batch.stream().map(WalRecord::bookingRejected).toList(), () -> { });
+        throw new Exception("Flight not found");
+    }
+
+    private void releaseAll(List<FlightDTO> reserved, Map<String, Integer> seatsPerFlight) {
+        for (FlightDTO flight : reserved) {
+            seatInventory.release(flight.id, seatsPerFlight.get(flight.id));
+        }
+    }
+
+    /**
+     * Carga una reserva ya persistida (snapshot o replay del log), sin volver a escribirla.
+     * Los vuelos se cargan antes: una reserva cuyo vuelo no existe se descarta.
+     * El asiento se descuenta en restoreSeatReservations, una vez cargado todo.
+     */
+    public void restoreBooking(BookingDTO booking) {
+        if (!repositories.flights().containsKey(booking.flightId)) {
+            logger.warn("Reserva {} descartada: el vuelo {} no existe", booking.id, booking.flightId);
+            return;
+        }
+        booking.version = versions.incrementAndGet();
+        bookings.putIfAbsent(booking.id, booking);
+    }
+
+    /**
+     * Descuenta del inventario los asientos de todas las reservas cargadas (una operación por vuelo).
+     * Si un vuelo tiene más reservas que asientos se registra el error y queda agotado.
+     */
+    public void restoreSeatReservations() {
+        Map<String, Long> perFlight = bookings.values().parallelStream()
+                .collect(Collectors.groupingByConcurrent(b -> b.flightId, Collectors.counting()));
+        perFlight.forEach((flightId, count) -> {
+            if (!seatInventory.tryReserve(flightId, count.intValue())) {
+                // Más reservas que asientos: el vuelo queda agotado en vez de seguir vendiendo
+                int available = seatInventory.available(flightId);
+                if (available > 0) seatInventory.tryReserve(flightId, available);
+                logger.error("Las {} reservas del vuelo {} superan sus {} asientos; queda sin asientos",
+                        count, flightId, available);
+            }
+        });
+    }
+
+    public Collection<BookingDTO> getAllBookings() {
+        return bookings.values();
+    }
+
     public BookingDTO getBooking(String id) {
         return bookings.get(id);
     }
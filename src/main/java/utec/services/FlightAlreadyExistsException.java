@@ -0,0 +1,20 @@
+package utec.services;
+
+public class FlightAlreadyExistsException extends Exception {
+    private final String flightNumber;
+    private final String existingId;
+
+    public FlightAlreadyExistsException(String flightNumber, String existingId) {
+        super("Flight already exists: " + flightNumber);
+        this.flightNumber = flightNumber;
+        this.existingId = existingId;
+    }
+
+    public String getFlightNumber() {
+        return flightNumber;
+    }
+
+    public String getExistingId() {
+        return existingId;
+    }
+}
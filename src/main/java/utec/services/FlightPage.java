@@ -0,0 +1,8 @@
+package utec.services;
+
+import utec.dtos.FlightDTO;
+
+import java.util.List;
+
+public record FlightPage(List<FlightDTO> items, String nextAfter) {
+}
@@ -0,0 +1,300 @@
+package utec.services;
+
+import utec.dtos.FlightDTO;
+import utec.metrics.CacheMetrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Cache LRU de resultados completos de búsqueda por (flightNumber, airlineName) normalizados,
+ * ordenados por número de vuelo; las páginas se cortan del resultado con búsqueda binaria.
+ * Guarda números e ids, no los vuelos: cada página los pide al repositorio, así el cache no
+ * retiene copias de los vuelos (ni las que arma un almacenamiento fuera del heap).
+ * <p>
+ * Los vuelos no se modifican después de creados y los asientos se leen en vivo al responder,
+ * así que un resultado solo cambia cuando se crea un vuelo que coincide. Cada alta avanza una
+ * generación y queda anotada en un anillo de altas recientes; una entrada guarda la generación
+ * en que se calculó y, al leerla, se revisan las altas posteriores: las que coinciden con la
+ * query se insertan en orden en una copia del resultado, que reemplaza a la entrada. Solo se
+ * descarta si las altas ya salieron del anillo. Las altas no recorren las entradas y las
+ * lecturas no toman locks. Los lotes grandes y clear invalidan todo de una vez.
+ * <p>
+ * El tamaño se acota por entradas y por vuelos guardados en total; al pasarse se desaloja de
+ * una vez la octava parte menos usada.
+ */
+class FlightSearchCache {
+    // Altas recordadas para revalidar entradas; un lote más grande que un cuarto invalida todo
+    private static final int RECENT = 1024;
+    private static final int MAX_PATCH_BATCH = RECENT / 4;
+    // Resolución del LRU: un acierto solo actualiza el uso de la entrada si pasó este tiempo
+    private static final long TOUCH_NANOS = 1_000_000;
+
+    record Query(String numberKey, String airlineKey) {
+        /**
+         * Query normalizada, o null si no filtra por nada (eso no se cachea: sería el catálogo entero).
+         */
+        static Query of(String flightNumber, String airlineName) {
+            String number = isBlank(flightNumber) ? null : normalize(flightNumber);
+            String airline = isBlank(airlineName) ? null : normalize(airlineName);
+            return number == null && airline == null ? null : new Query(number, airline);
+        }
+
+        boolean matches(String numberKey, String airlineKey) {
+            return (this.numberKey == null || numberKey.contains(this.numberKey)) &&
+                    (this.airlineKey == null || airlineKey.contains(this.airlineKey));
+        }
+    }
+
+    /**
+     * Resultado de una búsqueda: números (para cortar páginas) e ids (para pedir los vuelos).
+     */
+    record Result(String[] numbers, String[] ids) {
+        static Result of(List<FlightDTO> flights) {
+            String[] numbers = new String[flights.size()];
+            String[] ids = new String[flights.size()];
+            for (int i = 0; i < numbers.length; i++) {
+                numbers[i] = flights.get(i).flightNumber;
+                ids[i] = flights.get(i).id;
+            }
+            return new Result(numbers, ids);
+        }
+
+        int size() {
+            return numbers.length;
+        }
+    }
+
+    private static final class Entry {
+        final Result result;
+        final long generation;
+        volatile long lastUsed;
+
+        Entry(Result result, long generation, long lastUsed) {
+            this.result = result;
+            this.generation = generation;
+            this.lastUsed = lastUsed;
+        }
+    }
+
+    private record Change(long generation, String number, String id, String numberKey, String airlineKey) {
+    }
+
+    private final int maxEntries;
+    private final long maxFlights;
+    private final CacheMetrics metrics;
+    private final Map<Query, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong cachedFlights = new AtomicLong();
+    // Alta de la generación g en recent[g % RECENT]; se escribe antes de publicar la generación
+    private final Change[] recent = new Change[RECENT];
+    private volatile long generation;
+    // Las entradas de generaciones anteriores no valen (clear y lotes grandes la adelantan)
+    private volatile long floor;
+    private final Object evicting = new Object();
+
+    FlightSearchCache(int maxEntries, long maxFlights, CacheMetrics metrics) {
+        this.maxEntries = maxEntries;
+        this.maxFlights = maxFlights;
+        this.metrics = metrics;
+    }
+
+    Result get(Query query) {
+        Entry entry = entries.get(query);
+        if (entry != null) entry = revalidate(query, entry);
+        if (entry == null) {
+            metrics.miss();
+            return null;
+        }
+        long now = System.nanoTime();
+        if (now - entry.lastUsed > TOUCH_NANOS) entry.lastUsed = now;
+        metrics.hit();
+        return entry.result;
+    }
+
+    /**
+     * Generación actual; se lee antes de buscar en el índice y se pasa a put.
+     */
+    long generation() {
+        return generation;
+    }
+
+    /**
+     * Guarda el resultado calculado en generation. Si hubo altas desde entonces, la entrada se
+     * revalida contra ellas en el próximo get como cualquier otra (las que el resultado ya
+     * incluye no se repiten).
+     */
+    void put(Query query, Result result, long generation) {
+        if (generation < floor || result.size() > maxFlights / 4) return;
+        Entry previous = entries.put(query, new Entry(result, generation, System.nanoTime()));
+        cachedFlights.addAndGet(result.size() - (previous != null ? previous.result.size() : 0));
+        if (entries.size() > maxEntries || cachedFlights.get() > maxFlights) evict();
+        metrics.entries(entries.size());
+    }
+
+    /**
+     * Anota un vuelo nuevo: las entradas que coinciden lo suman cuando se las lea.
+     */
+    synchronized void add(FlightDTO flight) {
+        record(flight);
+    }
+
+    synchronized void addAll(Collection<FlightDTO> flights) {
+        if (flights.size() > MAX_PATCH_BATCH) {
+            invalidateAll();
+            return;
+        }
+        for (FlightDTO flight : flights) record(flight);
+    }
+
+    synchronized void clear() {
+        invalidateAll();
+    }
+
+    private void record(FlightDTO flight) {
+        long next = generation + 1;
+        recent[(int) (next % RECENT)] = new Change(next, flight.flightNumber, flight.id,
+                normalize(flight.flightNumber), normalize(flight.airlineName));
+        generation = next;
+    }
+
+    private void invalidateAll() {
+        long next = generation + 1;
+        floor = next;
+        generation = next;
+        for (Map.Entry<Query, Entry> entry : entries.entrySet()) {
+            remove(entry.getKey(), entry.getValue());
+        }
+        metrics.entries(entries.size());
+    }
+
+    /**
+     * La entrada al día con las altas posteriores a su generación (la misma si ninguna
+     * coincide), o null si ya no se puede revalidar y se la quitó.
+     */
+    private Entry revalidate(Query query, Entry entry) {
+        long current = generation;
+        if (entry.generation == current) return entry;
+        if (entry.generation < floor || current - entry.generation > RECENT) {
+            remove(query, entry);
+            return null;
+        }
+        List<Change> matching = null;
+        for (long g = entry.generation + 1; g <= current; g++) {
+            Change change = recent[(int) (g % RECENT)];
+            if (change == null || change.generation != g) {
+                remove(query, entry);
+                return null;
+            }
+            if (query.matches(change.numberKey, change.airlineKey)) {
+                if (matching == null) matching = new ArrayList<>();
+                matching.add(change);
+            }
+        }
+
+        Result result = matching == null ? entry.result : merge(entry.result, matching);
+        if (result.size() > maxFlights / 4) {
+            remove(query, entry);
+            return null;
+        }
+        // Se adelanta la generación para no volver a revisar esas altas
+        Entry updated = new Entry(result, current, entry.lastUsed);
+        if (entries.replace(query, entry, updated) && result != entry.result &&
+                cachedFlights.addAndGet(result.size() - entry.result.size()) > maxFlights) {
+            evict();
+        }
+        return updated;
+    }
+
+    // Copia del resultado con los vuelos de changes en orden; los que ya estaban no se repiten
+    private static Result merge(Result result, List<Change> changes) {
+        changes.sort(Comparator.comparing(Change::number));
+        String[] numbers = result.numbers();
+        String[] ids = result.ids();
+        String[] mergedNumbers = new String[numbers.length + changes.size()];
+        String[] mergedIds = new String[mergedNumbers.length];
+        int i = 0;
+        int n = 0;
+        for (Change change : changes) {
+            int at = Arrays.binarySearch(numbers, i, numbers.length, change.number);
+            int to = at >= 0 ? at : -at - 1;
+            System.arraycopy(numbers, i, mergedNumbers, n, to - i);
+            System.arraycopy(ids, i, mergedIds, n, to - i);
+            n += to - i;
+            i = to;
+            if (at < 0 && (n == 0 || !mergedNumbers[n - 1].equals(change.number))) {
+                mergedNumbers[n] = change.number;
+                mergedIds[n] = change.id;
+                n++;
+            }
+        }
+        System.arraycopy(numbers, i, mergedNumbers, n, numbers.length - i);
+        System.arraycopy(ids, i, mergedIds, n, numbers.length - i);
+        n += numbers.length - i;
+        if (n == numbers.length) return result;
+        return n == mergedNumbers.length ? new Result(mergedNumbers, mergedIds)
+                : new Result(Arrays.copyOf(mergedNumbers, n), Arrays.copyOf(mergedIds, n));
+    }
+
+    private void remove(Query query, Entry entry) {
+        if (entries.remove(query, entry)) cachedFlights.addAndGet(-entry.result.size());
+    }
+
+    private void evict() {
+        synchronized (evicting) {
+            long targetEntries = maxEntries - maxEntries / 8;
+            long targetFlights = maxFlights - maxFlights / 8;
+            if (entries.size() <= maxEntries && cachedFlights.get() <= maxFlights) return;
+
+            record Candidate(Query query, Entry entry, long lastUsed) {
+            }
+            List<Candidate> candidates = new ArrayList<>(entries.size());
+            entries.forEach((query, entry) -> candidates.add(new Candidate(query, entry, entry.lastUsed)));
+            candidates.sort(Comparator.comparingLong(Candidate::lastUsed));
+            for (Candidate candidate : candidates) {
+                if (entries.size() <= targetEntries && cachedFlights.get() <= targetFlights) break;
+                if (entries.remove(candidate.query, candidate.entry)) {
+                    cachedFlights.addAndGet(-candidate.entry.result.size());
+                    metrics.evicted();
+                }
+            }
+        }
+    }
+
+    /**
+     * Hasta limit vuelos con número mayor a after (null = desde el inicio), pedidos a flights
+     * por id; un vuelo que ya no existe se salta.
+     */
+    static FlightPage page(Result result, String after, int limit, Function<String, FlightDTO> flights) {
+        String[] numbers = result.numbers();
+        int from = after == null ? 0 : after(numbers, after);
+        int to = (int) Math.min(numbers.length, (long) from + limit);
+        List<FlightDTO> items = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            FlightDTO flight = flights.apply(result.ids()[i]);
+            if (flight != null) items.add(flight);
+        }
+        return new FlightPage(items, to < numbers.length ? numbers[to - 1] : null);
+    }
+
+    // Primer índice con número de vuelo mayor a flightNumber
+    private static int after(String[] numbers, String flightNumber) {
+        int i = Arrays.binarySearch(numbers, flightNumber);
+        return i >= 0 ? i + 1 : -i - 1;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isEmpty();
+    }
+
+    private static String normalize(String value) {
+        return value.toUpperCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,313 @@
+package utec.services;
+
+import utec.dtos.FlightDTO;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * Índice de n-gramas (1 a 3 caracteres) sobre flightNumber normalizado, más una lista por
+ * código de aerolínea (AirlineDictionary). Las listas de postings están ordenadas por número de
+ * vuelo, así que la intersección ya devuelve los resultados en el orden de /flights/search sin
+ * ordenar por query. Un filtro de aerolínea se resuelve una vez al conjunto de códigos que
+ * coinciden y cada candidato se prueba con un acceso a ese arreglo.
+ * El índice guarda solo ids: los vuelos de cada resultado se piden al repositorio, que con un
+ * almacenamiento fuera del heap los arma recién ahí.
+ */
+class FlightSearchIndex {
+    private static final int GRAM = 3;
+
+    private record Entry(String id, String flightNumber, String numberKey, int airline) {
+    }
+
+    private static final class Posting {
+        final ConcurrentSkipListMap<String, Boolean> keys;
+        final LongAdder size = new LongAdder();
+
+        Posting() {
+            keys = new ConcurrentSkipListMap<>();
+        }
+
+        // Desde claves ya ordenadas y sin repetidos: cada put agrega al final de la lista
+        Posting(List<String> sortedKeys) {
+            keys = new ConcurrentSkipListMap<>();
+            for (String key : sortedKeys) keys.put(key, Boolean.TRUE);
+            size.add(sortedKeys.size());
+        }
+
+        void add(String key) {
+            if (keys.putIfAbsent(key, Boolean.TRUE) == null) size.increment();
+        }
+
+        Iterator<String> from(String after) {
+            return (after == null ? keys.keySet() : keys.tailMap(after, false).keySet()).iterator();
+        }
+    }
+
+    private final Function<String, FlightDTO> flights;
+    private final AirlineDictionary airlines;
+    // volatile porque rebuild() reemplaza las estructuras completas
+    private volatile ConcurrentSkipListMap<String, Entry> byNumber = new ConcurrentSkipListMap<>();
+    private volatile Map<String, Posting> numberGrams = new ConcurrentHashMap<>();
+    private volatile Map<Integer, Posting> byAirline = new ConcurrentHashMap<>();
+
+    /**
+     * flights resuelve un id al vuelo publicado (null si ya no existe).
+     */
+    FlightSearchIndex(Function<String, FlightDTO> flights, AirlineDictionary airlines) {
+        this.flights = flights;
+        this.airlines = airlines;
+    }
+
+    /**
+     * airline es el código que devolvió AirlineDictionary.add() al publicar el vuelo.
+     */
+    void add(FlightDTO flight, int airline) {
+        Entry entry = entry(flight, airline);
+        indexGrams(numberGrams, entry.numberKey, flight.flightNumber);
+        byAirline.computeIfAbsent(entry.airline, c -> new Posting()).add(flight.flightNumber);
+        // Se publica al final: una búsqueda concurrente ignora postings sin entrada
+        byNumber.put(flight.flightNumber, entry);
+    }
+
+    /**
+     * Indexa un lote de vuelos nuevos de una vez: los n-gramas se agrupan por posting y cada
+     * posting se actualiza en paralelo con las demás. Los vuelos se publican al final.
+     * airlines[i] es el código de aerolínea de flights.get(i).
+     */
+    void addAll(List<FlightDTO> flights, int[] airlines) {
+        List<Entry> sorted = IntStream.range(0, flights.size()).parallel()
+                .mapToObj(i -> entry(flights.get(i), airlines[i]))
+                .sorted(Comparator.comparing(Entry::flightNumber))
+                .toList();
+        Map<String, List<String>> numberLists = new HashMap<>();
+        Map<Integer, List<String>> airlineLists = new HashMap<>();
+        collectKeys(sorted, numberLists, airlineLists);
+
+        addKeys(numberGrams, numberLists);
+        addKeys(byAirline, airlineLists);
+        for (Entry entry : sorted) {
+            byNumber.put(entry.flightNumber, entry);
+        }
+    }
+
+    /**
+     * Reconstruye el índice completo de una vez (arranque): ordena los vuelos una sola vez y arma
+     * cada lista de postings en orden, en paralelo. No debe correr junto con add(). Las
+     * aerolíneas de los vuelos ya tienen que estar registradas en el diccionario.
+     */
+    void rebuild(Collection<FlightDTO> flights) {
+        List<Entry> sorted = flights.parallelStream()
+                .map(flight -> entry(flight, airlines.find(flight.airlineName)))
+                .sorted(Comparator.comparing(Entry::flightNumber))
+                .toList();
+        Map<String, List<String>> numberLists = new HashMap<>();
+        Map<Integer, List<String>> airlineLists = new HashMap<>();
+        collectKeys(sorted, numberLists, airlineLists);
+
+        numberGrams = postings(numberLists);
+        byAirline = postings(airlineLists);
+        ConcurrentSkipListMap<String, Entry> entries = new ConcurrentSkipListMap<>();
+        for (Entry entry : sorted) entries.put(entry.flightNumber, entry);
+        byNumber = entries;
+    }
+
+    private static Entry entry(FlightDTO flight, int airline) {
+        return new Entry(flight.id, flight.flightNumber, normalize(flight.flightNumber), airline);
+    }
+
+    /**
+     * Código de aerolínea del vuelo indexado con ese número, o -1 si no está en el índice.
+     */
+    int airline(String flightNumber) {
+        Entry entry = byNumber.get(flightNumber);
+        return entry != null ? entry.airline : -1;
+    }
+
+    private static void collectKeys(List<Entry> sorted, Map<String, List<String>> numberLists,
+                                    Map<Integer, List<String>> airlineLists) {
+        for (Entry entry : sorted) {
+            collectGrams(numberLists, entry.numberKey, entry.flightNumber);
+            airlineLists.computeIfAbsent(entry.airline, c -> new ArrayList<>()).add(entry.flightNumber);
+        }
+    }
+
+    private static <K> Map<K, Posting> postings(Map<K, List<String>> lists) {
+        Map<K, Posting> postings = new ConcurrentHashMap<>(lists.size() * 2);
+        lists.entrySet().parallelStream().forEach(e -> postings.put(e.getKey(), new Posting(e.getValue())));
+        return postings;
+    }
+
+    private static <K> void addKeys(Map<K, Posting> postings, Map<K, List<String>> lists) {
+        lists.entrySet().parallelStream().forEach(e -> {
+            Posting posting = postings.computeIfAbsent(e.getKey(), g -> new Posting());
+            for (String key : e.getValue()) posting.add(key);
+        });
+    }
+
+    /**
+     * Hasta limit resultados con número de vuelo estrictamente mayor a after (null = desde el inicio).
+     * Se salta directo a after en las listas ordenadas, sin recorrer las páginas anteriores.
+     */
+    List<FlightDTO> search(String flightNumber, String airlineName, String after, int limit) {
+        String numberQuery = isBlank(flightNumber) ? null : normalize(flightNumber);
+
+        List<Posting> postings = new ArrayList<>();
+        if (!collectPostings(numberGrams, numberQuery, postings)) return List.of();
+
+        boolean[] codes = null;
+        List<Posting> airlinePostings = new ArrayList<>();
+        long airlineSize = Long.MAX_VALUE;
+        if (!isBlank(airlineName)) {
+            codes = airlines.matching(airlineName);
+            if (codes == null) return List.of();
+            airlineSize = 0;
+            for (int code = 0; code < codes.length; code++) {
+                Posting posting = codes[code] ? byAirline.get(code) : null;
+                if (posting == null) continue;
+                airlinePostings.add(posting);
+                airlineSize += posting.size.sum();
+            }
+            if (airlinePostings.isEmpty()) return List.of();
+        }
+
+        List<FlightDTO> results = new ArrayList<>();
+        if (postings.isEmpty() && codes == null) {
+            var entries = after == null ? byNumber.values() : byNumber.tailMap(after, false).values();
+            for (Entry entry : entries) {
+                if (results.size() >= limit) break;
+                FlightDTO flight = flights.apply(entry.id);
+                if (flight != null) results.add(flight);
+            }
+            return results;
+        }
+
+        // Se recorre la lista más corta (la de un n-grama o las de las aerolíneas que coinciden)
+        // y se prueba pertenencia en las demás
+        postings.sort(Comparator.comparingLong(p -> p.size.sum()));
+        Iterator<String> keys;
+        int checkFrom;
+        if (!postings.isEmpty() && postings.getFirst().size.sum() <= airlineSize) {
+            keys = postings.getFirst().from(after);
+            checkFrom = 1;
+        } else {
+            keys = merge(airlinePostings, after);
+            checkFrom = 0;
+        }
+        while (keys.hasNext() && results.size() < limit) {
+            String key = keys.next();
+            if (!containedInAll(postings, checkFrom, key)) continue;
+
+            Entry entry = byNumber.get(key);
+            if (entry == null) continue;
+            // Los n-gramas solo filtran candidatos; la coincidencia real es por substring
+            if (numberQuery != null && !entry.numberKey.contains(numberQuery)) continue;
+            if (codes != null && !AirlineDictionary.matches(codes, entry.airline)) continue;
+            FlightDTO flight = flights.apply(entry.id);
+            if (flight != null) results.add(flight);
+        }
+        return results;
+    }
+
+    /**
+     * Recorre en orden la unión de varias listas. Cada vuelo tiene una sola aerolínea, así que
+     * las listas no comparten claves.
+     */
+    private static Iterator<String> merge(List<Posting> postings, String after) {
+        if (postings.size() == 1) return postings.getFirst().from(after);
+
+        record Head(String key, Iterator<String> rest) {
+        }
+        PriorityQueue<Head> heads = new PriorityQueue<>(postings.size(), Comparator.comparing(Head::key));
+        for (Posting posting : postings) {
+            Iterator<String> it = posting.from(after);
+            if (it.hasNext()) heads.add(new Head(it.next(), it));
+        }
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return !heads.isEmpty();
+            }
+
+            @Override
+            public String next() {
+                Head head = heads.remove();
+                if (head.rest.hasNext()) heads.add(new Head(head.rest.next(), head.rest));
+                return head.key;
+            }
+        };
+    }
+
+    void clear() {
+        byNumber.clear();
+        numberGrams.clear();
+        byAirline.clear();
+    }
+
+    private static void indexGrams(Map<String, Posting> grams, String value, String key) {
+        for (int len = 1; len <= GRAM; len++) {
+            for (int i = 0; i + len <= value.length(); i++) {
+                grams.computeIfAbsent(value.substring(i, i + len), g -> new Posting()).add(key);
+            }
+        }
+    }
+
+    private static void collectGrams(Map<String, List<String>> grams, String value, String key) {
+        for (int len = 1; len <= GRAM; len++) {
+            for (int i = 0; i + len <= value.length(); i++) {
+                List<String> keys = grams.computeIfAbsent(value.substring(i, i + len), g -> new ArrayList<>());
+                // Las claves llegan ordenadas: un n-grama repetido en el mismo valor queda al final
+                if (keys.isEmpty() || !keys.getLast().equals(key)) keys.add(key);
+            }
+        }
+    }
+
+    /**
+     * Agrega los postings necesarios para la query. Devuelve false si algún n-grama
+     * no existe, en cuyo caso no puede haber resultados.
+     */
+    private static boolean collectPostings(Map<String, Posting> grams, String query, List<Posting> out) {
+        if (query == null) return true;
+
+        if (query.length() <= GRAM) {
+            Posting posting = grams.get(query);
+            if (posting == null) return false;
+            out.add(posting);
+            return true;
+        }
+
+        for (int i = 0; i + GRAM <= query.length(); i++) {
+            Posting posting = grams.get(query.substring(i, i + GRAM));
+            if (posting == null) return false;
+            out.add(posting);
+        }
+        return true;
+    }
+
+    private static boolean containedInAll(List<Posting> postings, int from, String key) {
+        for (int i = from; i < postings.size(); i++) {
+            if (!postings.get(i).keys.containsKey(key)) return false;
+        }
+        return true;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isEmpty();
+    }
+
+    private static String normalize(String value) {
+        return value.toUpperCase(Locale.ROOT);
+    }
+}
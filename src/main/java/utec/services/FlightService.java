@@ -1,67 +1,300 @@
 package utec.services;
 
 import org.json.JSONObject;
+import utec.dto.NewFlightRequestDTO;
 import utec.dtos.FlightDTO;
+import utec.metrics.Metrics;
+import utec.persistence.WalRecord;
+import utec.persistence.WriteAheadLog;
+import utec.repository.Repositories;
+import utec.repository.Repository;
+import utec.repository.ShardedRepositories;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
-import java.util.Map;
+import java.util.Locale;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
 
 public class FlightService {
-    private final Map<String, FlightDTO> flights = new ConcurrentHashMap<>();
+    // Formato validado en FlightController: ^[A-Z]{2,3}[0-9]{3}$
+    private static final int MAX_FLIGHT_NUMBER_LENGTH = 6;
+    // Límites del cache de búsquedas: queries distintas y vuelos guardados entre todas
+    private static final int SEARCH_CACHE_ENTRIES = 1024;
+    private static final long SEARCH_CACHE_FLIGHTS = 200_000;
 
-    public FlightDTO createFlight(JSONObject json) {
+    private final Repositories repositories;
+    private final Repository<FlightDTO> flights;
+    // Índice único: número de vuelo -> id
+    private final Repository<String> flightNumberIndex;
+    private final AirlineDictionary airlines = new AirlineDictionary();
+    private final FlightSearchIndex searchIndex;
+    private final FlightSearchCache searchCache = new FlightSearchCache(SEARCH_CACHE_ENTRIES, SEARCH_CACHE_FLIGHTS,
+            Metrics.cache("flight-search"));
+    // Versión de cada vuelo publicado y del catálogo (altas, restauración, limpieza)
+    private final AtomicLong versions = new AtomicLong();
+    private final AtomicLong catalogVersion = new AtomicLong();
+    private final SeatInventory seatInventory;
+    private final WriteAheadLog wal;
+
+    public FlightService(SeatInventory seatInventory) {
+        this(seatInventory, WriteAheadLog.disabled());
+    }
+
+    public FlightService(SeatInventory seatInventory, WriteAheadLog wal) {
+        this(seatInventory, new ShardedRepositories(), wal);
+    }
+
+    public FlightService(SeatInventory seatInventory, Repositories repositories, WriteAheadLog wal) {
+        this.repositories = repositories;
+        this.flights = repositories.flights();
+        this.flightNumberIndex = repositories.flightNumbers();
+        this.searchIndex = new FlightSearchIndex(flights::get, airlines);
+        this.seatInventory = seatInventory;
+        this.wal = wal;
+    }
+
+    public FlightDTO createFlight(JSONObject json) throws FlightAlreadyExistsException {
+        return createFlight(fromJson(json));
+    }
+
+    public FlightDTO createFlight(NewFlightRequestDTO request) throws FlightAlreadyExistsException {
+        FlightDTO flight = toFlight(request);
+
+        // Reserva atómica del número: si ya existe se devuelve el id existente
+        String existingId = flightNumberIndex.putIfAbsent(flight.flightNumber, flight.id);
+        if (existingId != null) {
+            throw new FlightAlreadyExistsException(flight.flightNumber, existingId);
+        }
+
+        // Se persiste antes de publicar el vuelo
+        try {
+            wal.append(WalRecord.flight(flight), () -> publish(flight));
+        } catch (RuntimeException e) {
+            flightNumberIndex.remove(flight.flightNumber, flight.id);
+            throw e;
+        }
+        return flight;
+    }
+
+    /**
+     * Crea todos los vuelos o ninguno. Los números se reservan en bloque; si alguno ya existe se
+     * liberan los reservados y se informa el primero en conflicto. El lote va al log como un solo
+     * registro y se indexa de una vez. Las entradas ya vienen validadas (FlightController).
+     */
+    public List<FlightDTO> createFlights(List<NewFlightRequestDTO> inputs) throws FlightAlreadyExistsException {
+        List<FlightDTO> batch = inputs.parallelStream().map(FlightService::toFlight).toList();
+
+        List<FlightDTO> claimed = new ArrayList<>(batch.size());
+        for (FlightDTO flight : batch) {
+            String existingId = flightNumberIndex.putIfAbsent(flight.flightNumber, flight.id);
+            if (existingId != null) {
+                unclaim(claimed);
+                throw new FlightAlreadyExistsException(flight.flightNumber, existingId);
+            }
+            claimed.add(flight);
+        }
+
+        List<WalRecord> records = batch.stream().map(WalRecord::flight).toList();
+        try {
+            wal.appendAll(records, () -> publishAll(batch));
+        } catch (RuntimeException e) {
+            unclaim(claimed);
+            throw e;
+        }
+        return batch;
+    }
+
+    private void unclaim(List<FlightDTO> claimed) {
+        for (FlightDTO flight : claimed) {
+            flightNumberIndex.remove(flight.flightNumber, flight.id);
+        }
+    }
+
+    private static NewFlightRequestDTO fromJson(JSONObject json) {
+        NewFlightRequestDTO request = new NewFlightRequestDTO();
+        request.airlineName = json.getString("airlineName");
+        request.flightNumber = json.getString("flightNumber");
+        request.estDepartureTime = json.get("estDepartureTime").toString();
+        request.estArrivalTime = json.get("estArrivalTime").toString();
+        request.availableSeats = json.getInt("availableSeats");
+        return request;
+    }
+
+    private static FlightDTO toFlight(NewFlightRequestDTO request) {
         FlightDTO flight = new FlightDTO();
         flight.id = UUID.randomUUID().toString();
-        flight.airlineName = json.getString("airlineName");
-        flight.flightNumber = json.getString("flightNumber");
-        flight.estDepartureTime = json.get("estDepartureTime").toString();
-        flight.estArrivalTime = json.get("estArrivalTime").toString();
-        flight.availableSeats = json.getInt("availableSeats");
+        flight.airlineName = request.airlineName;
+        flight.flightNumber = request.flightNumber;
+        flight.estDepartureTime = request.estDepartureTime;
+        flight.estArrivalTime = request.estArrivalTime;
+        flight.availableSeats = request.availableSeats;
+        return flight;
+    }
 
+    /**
+     * Carga un vuelo ya persistido (snapshot o replay del log), sin volver a escribirlo.
+     * Es idempotente; los asientos vendidos los vuelve a descontar BookingService al terminar la carga.
+     */
+    public void restoreFlight(FlightDTO flight) {
+        if (flights.containsKey(flight.id)) return;
+        flightNumberIndex.put(flight.flightNumber, flight.id);
+        seatInventory.register(flight.id, flight.availableSeats);
+        airlines.add(flight);
+        flight.version = versions.incrementAndGet();
         flights.put(flight.id, flight);
-        return flight;
+    }
+
+    /**
+     * Arma el índice de búsqueda de una vez tras restaurar (restoreFlight no indexa).
+     */
+    public void rebuildSearchIndex() {
+        searchIndex.rebuild(flights.values());
+        searchCache.clear();
+        catalogVersion.incrementAndGet();
+    }
+
+    public Collection<FlightDTO> getAllFlights() {
+        return flights.values();
+    }
+
+    private void publish(FlightDTO flight) {
+        seatInventory.register(flight.id, flight.availableSeats);
+        int airline = airlines.add(flight);
+        flight.version = versions.incrementAndGet();
+        flights.put(flight.id, flight);
+        searchIndex.add(flight, airline);
+        searchCache.add(flight);
+        catalogVersion.incrementAndGet();
+    }
+
+    private void publishAll(List<FlightDTO> batch) {
+        int[] codes = new int[batch.size()];
+        IntStream.range(0, batch.size()).parallel().forEach(i -> {
+            FlightDTO flight = batch.get(i);
+            seatInventory.register(flight.id, flight.availableSeats);
+            codes[i] = airlines.add(flight);
+            flight.version = versions.incrementAndGet();
+            flights.put(flight.id, flight);
+        });
+        searchIndex.addAll(batch, codes);
+        searchCache.addAll(batch);
+        catalogVersion.incrementAndGet();
     }
 
     public boolean existsFlightNumber(String flightNumber) {
-        return flights.values().stream().anyMatch(f -> f.flightNumber.equals(flightNumber));
+        return flightNumberIndex.containsKey(flightNumber);
+    }
+
+    public FlightDTO findByFlightNumber(String flightNumber) {
+        String id = flightNumberIndex.get(flightNumber);
+        return id != null ? flights.get(id) : null;
     }
 
     public List<FlightDTO> searchFlights(String flightNumber, String airlineName) {
-        return flights.values().stream()
-                .filter(f -> {
-                    boolean matchesFlightNumber = flightNumber == null || flightNumber.isEmpty() ||
-                            f.flightNumber.toUpperCase().contains(flightNumber.toUpperCase());
-                    boolean matchesAirlineName = airlineName == null || airlineName.isEmpty() ||
-                            f.airlineName.toUpperCase().contains(airlineName.toUpperCase());
-
-                    // Si ambos parámetros están presentes, ambos deben coincidir
-                    // Si solo uno está presente, solo ese debe coincidir
-                    if (flightNumber != null && !flightNumber.isEmpty() && airlineName != null && !airlineName.isEmpty()) {
-                        return matchesFlightNumber && matchesAirlineName;
-                    } else if (flightNumber != null && !flightNumber.isEmpty()) {
-                        return matchesFlightNumber;
-                    } else if (airlineName != null && !airlineName.isEmpty()) {
-                        return matchesAirlineName;
-                    } else {
-                        // Si no hay parámetros de búsqueda, devolver todos
-                        return true;
-                    }
-                })
-                .sorted((f1, f2) -> f1.flightNumber.compareToIgnoreCase(f2.flightNumber))
-                .toList();
+        return searchFlights(flightNumber, airlineName, null, Integer.MAX_VALUE).items();
+    }
+
+    /**
+     * Página de resultados ordenada por número de vuelo. after es el último número de la
+     * página anterior (null para la primera); nextAfter viene en null cuando no hay más.
+     */
+    public FlightPage searchFlights(String flightNumber, String airlineName, String after, int limit) {
+        // Un número completo solo puede estar contenido en sí mismo: búsqueda exacta por índice
+        if (flightNumber != null && flightNumber.length() == MAX_FLIGHT_NUMBER_LENGTH) {
+            FlightDTO flight = findByFlightNumber(flightNumber);
+            // Los números se guardan en mayúsculas: solo se convierte la query si no lo estaba
+            if (flight == null) {
+                String upper = flightNumber.toUpperCase(Locale.ROOT);
+                if (!upper.equals(flightNumber)) flight = findByFlightNumber(upper);
+            }
+            boolean matches = flight != null && (after == null || flight.flightNumber.compareTo(after) > 0) &&
+                    (airlineName == null || airlineName.isEmpty() || matchesAirline(flight, airlineName));
+            return new FlightPage(matches ? List.of(flight) : List.of(), null);
+        }
+
+        // Las queries con filtro se resuelven completas una vez y las páginas salen del cache
+        FlightSearchCache.Query query = FlightSearchCache.Query.of(flightNumber, airlineName);
+        if (query != null) {
+            FlightSearchCache.Result cached = searchCache.get(query);
+            if (cached == null) {
+                long generation = searchCache.generation();
+                cached = FlightSearchCache.Result.of(
+                        searchIndex.search(flightNumber, airlineName, null, Integer.MAX_VALUE));
+                searchCache.put(query, cached, generation);
+            }
+            return FlightSearchCache.page(cached, after, limit, flights::get);
+        }
+
+        // Sin filtro se recorre el índice desde after; se pide uno extra para saber si hay otra página
+        int fetch = limit == Integer.MAX_VALUE ? limit : limit + 1;
+        List<FlightDTO> results = searchIndex.search(flightNumber, airlineName, after, fetch);
+        if (results.size() > limit) {
+            List<FlightDTO> page = results.subList(0, limit);
+            return new FlightPage(page, page.getLast().flightNumber);
+        }
+        return new FlightPage(results, null);
+    }
+
+    // Con el código que guardó el índice al publicar, sin volver a buscar la aerolínea por nombre
+    private boolean matchesAirline(FlightDTO flight, String airlineName) {
+        return airlines.contains(searchIndex.airline(flight.flightNumber), airlineName);
+    }
+
+    /**
+     * Aerolíneas con vuelos publicados y cuántos tiene cada una, ordenadas por nombre. Los
+     * contadores se actualizan con cada alta, sin recorrer los vuelos.
+     */
+    public List<AirlineCount> getAirlines() {
+        return airlines.list();
     }
 
     public List<FlightDTO> searchFlights(String flightNumber) {
         return searchFlights(flightNumber, null);
     }
 
+    /**
+     * Asientos disponibles en este momento. FlightDTO.availableSeats guarda la
+     * capacidad con la que se creó el vuelo; el stock vivo está en SeatInventory.
+     */
+    public int getAvailableSeats(FlightDTO flight) {
+        return seatInventory.available(flight.id);
+    }
+
+    /**
+     * Versión de todo lo que puede mostrar una búsqueda: vuelos publicados y asientos
+     * disponibles. Cambia después de cada alta o venta, así que leída antes de buscar nunca
+     * queda por delante de los resultados. Respalda el ETag de /flights/search.
+     */
+    public long catalogVersion() {
+        // Suma de dos contadores que solo crecen: crece cuando crece cualquiera de los dos
+        return catalogVersion.get() + seatInventory.changes();
+    }
+
+    Repositories repositories() {
+        return repositories;
+    }
+
+    /**
+     * Versión del catálogo sin contar asientos: cambia con altas, restauración y limpieza.
+     * Respalda el ETag de /flights/airlines.
+     */
+    public long airlinesVersion() {
+        return catalogVersion.get();
+    }
+
     public FlightDTO getFlightById(String id) {
         return flights.get(id);
     }
 
     public void clear() {
+        searchIndex.clear();
+        searchCache.clear();
+        flightNumberIndex.clear();
         flights.clear();
+        airlines.clear();
+        catalogVersion.incrementAndGet();
     }
 }
@@ -0,0 +1,167 @@
+package utec.services;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Inventario de asientos por vuelo con contadores atómicos (CAS), sin locks.
+ * Los vuelos con muchos asientos reparten el stock en varias franjas (stripes)
+ * para que una venta masiva sobre un mismo vuelo no compita por una sola línea de caché.
+ * Nunca se vende por encima del stock: cada asiento sale de una franja con CAS. Una reserva
+ * de varios asientos que no entra en una sola franja se arma bajo el lock del contador, así es
+ * atómica respecto de las demás.
+ */
+public class SeatInventory {
+    // Por debajo de este stock un solo contador basta
+    private static final int STRIPE_THRESHOLD = 64;
+    private static final int MAX_STRIPES = 32;
+
+    private final Map<String, SeatCounter> counters = new ConcurrentHashMap<>();
+    // Cambios de stock: LongAdder para no volver a juntar en una línea las ventas de las franjas
+    private final LongAdder changes = new LongAdder();
+    private final int stripes;
+
+    public SeatInventory() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public SeatInventory(int parallelism) {
+        int p = Math.min(Math.max(parallelism, 1), MAX_STRIPES);
+        this.stripes = Integer.highestOneBit(p) == p ? p : Integer.highestOneBit(p) << 1;
+    }
+
+    public void register(String flightId, int seats) {
+        int s = seats >= STRIPE_THRESHOLD ? stripes : 1;
+        counters.put(flightId, new SeatCounter(seats, s));
+        changes.increment();
+    }
+
+    public boolean tryReserve(String flightId) {
+        return tryReserve(flightId, 1);
+    }
+
+    /**
+     * Reserva n asientos o ninguno.
+     */
+    public boolean tryReserve(String flightId, int n) {
+        if (n <= 0) throw new IllegalArgumentException("n must be > 0");
+        SeatCounter counter = counters.get(flightId);
+        if (counter == null || !counter.tryReserve(n)) return false;
+        changes.increment();
+        return true;
+    }
+
+    public void release(String flightId, int n) {
+        SeatCounter counter = counters.get(flightId);
+        if (counter == null) return;
+        counter.release(n);
+        changes.increment();
+    }
+
+    public int available(String flightId) {
+        SeatCounter counter = counters.get(flightId);
+        return counter != null ? counter.available() : 0;
+    }
+
+    /**
+     * Crece cada vez que cambia el stock de algún vuelo (después del cambio). Sirve como
+     * versión: si no se movió entre dos lecturas, available() devuelve lo mismo.
+     */
+    public long changes() {
+        return changes.sum();
+    }
+
+    public void clear() {
+        counters.clear();
+        changes.increment();
+    }
+
+    static final class SeatCounter {
+        // 16 ints = 64 bytes entre franjas para evitar false sharing
+        private static final int PAD = 16;
+
+        private final AtomicIntegerArray cells;
+        private final int stripes;
+
+        SeatCounter(int seats, int stripes) {
+            this.stripes = stripes;
+            this.cells = new AtomicIntegerArray(stripes * PAD);
+            for (int i = 0; i < stripes; i++) {
+                cells.set(i * PAD, seats / stripes + (i < seats % stripes ? 1 : 0));
+            }
+        }
+
+        boolean tryReserve(int n) {
+            if (stripes == 1) {
+                while (true) {
+                    int v = cells.get(0);
+                    if (v < n) return false;
+                    if (cells.compareAndSet(0, v, v - n)) return true;
+                }
+            }
+
+            // Camino rápido: todo de una franja con un solo CAS, empezando por la propia del hilo
+            int home = homeStripe();
+            for (int k = 0; k < stripes; k++) {
+                if (takeExactly(((home + k) & (stripes - 1)) * PAD, n)) return true;
+            }
+            // Ninguna franja tiene n solas: se junta de varias bajo el lock del contador
+            return reserveAcross(n);
+        }
+
+        /*
+         * Único lugar donde se toman asientos que quizá haya que devolver. Con el lock, dos
+         * reservas que juntan de varias franjas no se quitan stock entre sí (ninguna falla si
+         * alcanzaba para una), y una reserva que falla en el camino rápido mientras otra tiene
+         * asientos tomados espera a que los devuelva y vuelve a mirar.
+         */
+        private synchronized boolean reserveAcross(int n) {
+            int[] taken = new int[stripes];
+            int total = 0;
+            for (int i = 0; i < stripes && total < n; i++) {
+                taken[i] = takeUpTo(i * PAD, n - total);
+                total += taken[i];
+            }
+            if (total == n) return true;
+
+            // No alcanzó: cada franja recupera lo que se le tomó
+            for (int i = 0; i < stripes; i++) {
+                if (taken[i] > 0) cells.addAndGet(i * PAD, taken[i]);
+            }
+            return false;
+        }
+
+        void release(int n) {
+            cells.addAndGet(homeStripe() * PAD, n);
+        }
+
+        int available() {
+            int total = 0;
+            for (int i = 0; i < stripes; i++) total += cells.get(i * PAD);
+            return total;
+        }
+
+        private boolean takeExactly(int idx, int n) {
+            while (true) {
+                int v = cells.get(idx);
+                if (v < n) return false;
+                if (cells.compareAndSet(idx, v, v - n)) return true;
+            }
+        }
+
+        private int takeUpTo(int idx, int want) {
+            while (true) {
+                int v = cells.get(idx);
+                if (v <= 0) return 0;
+                int t = Math.min(v, want);
+                if (cells.compareAndSet(idx, v, v - t)) return t;
+            }
+        }
+
+        private int homeStripe() {
+            return (int) (Thread.currentThread().threadId() & (stripes - 1));
+        }
+    }
+}
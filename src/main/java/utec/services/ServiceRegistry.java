@@ -1,20 +1,45 @@
 package utec.services;
 
+import utec.persistence.PersistenceManager;
+import utec.persistence.WalRecord;
+import utec.persistence.WriteAheadLog;
+import utec.repository.Repositories;
+
+import java.io.IOException;
+
 public class ServiceRegistry {
 
-    public static final UserService USER = new UserService();
+    public static final WriteAheadLog WAL = WriteAheadLog.fromSystemProperties();
+    public static final Repositories REPOSITORIES = Repositories.load();
+    public static final UserService USER = new UserService(REPOSITORIES, WAL);
     public static final AuthService AUTH = new AuthService(USER);
-    public static final FlightService FLIGHT = new FlightService();
-    public static final BookingService BOOKING = new BookingService(FLIGHT, USER);
+    public static final SeatInventory SEATS = new SeatInventory();
+    public static final FlightService FLIGHT = new FlightService(SEATS, REPOSITORIES, WAL);
+    public static final BookingService BOOKING = new BookingService(FLIGHT, USER, SEATS, WAL);
+    public static final BookingEmailService EMAIL = new BookingEmailService();
+    public static final PersistenceManager PERSISTENCE = new PersistenceManager(
+            WAL, PersistenceManager.snapshotStoreFor(WAL), USER, FLIGHT, BOOKING);
 
     private ServiceRegistry() {
 
     }
 
+    /**
+     * Reconstruye el estado en memoria desde el snapshot y el write-ahead log.
+     */
+    public static void recover() throws IOException {
+        PERSISTENCE.recover();
+        PERSISTENCE.startPeriodicSnapshots();
+    }
+
     public static void clearAll() {
-        USER.clear();
-        AUTH.clear();
-        FLIGHT.clear();
-        BOOKING.clear();
+        WAL.append(WalRecord.cleared(), () -> {
+            REPOSITORIES.clear();
+            USER.clear();
+            AUTH.clear();
+            FLIGHT.clear();
+            BOOKING.clear();
+            SEATS.clear();
+        });
     }
 }
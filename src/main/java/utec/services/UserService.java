@@ -1,14 +1,40 @@
 package utec.services;
 
 import org.json.JSONObject;
+import utec.dto.RegisterUserDTO;
 import utec.dtos.UserDTO;
+import utec.persistence.WalRecord;
+import utec.persistence.WriteAheadLog;
+import utec.repository.Repositories;
+import utec.repository.Repository;
+import utec.repository.ShardedRepositories;
 
-import java.util.Map;
+import java.util.Collection;
+import java.util.Locale;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class UserService {
-    private final Map<String, UserDTO> users = new ConcurrentHashMap<>();
+    private final Repository<UserDTO> users;
+    // Índice secundario: email normalizado -> id de usuario
+    private final Repository<String> emailIndex;
+    // Versión de cada usuario publicado (UserDTO.version), base del ETag de GET /users/{id}
+    private final AtomicLong versions = new AtomicLong();
+    private final WriteAheadLog wal;
+
+    public UserService() {
+        this(WriteAheadLog.disabled());
+    }
+
+    public UserService(WriteAheadLog wal) {
+        this(new ShardedRepositories(), wal);
+    }
+
+    public UserService(Repositories repositories, WriteAheadLog wal) {
+        this.users = repositories.users();
+        this.emailIndex = repositories.userEmails();
+        this.wal = wal;
+    }
 
     public UserDTO registerUser(JSONObject json) throws Exception {
         if (!json.has("firstName") || !json.has("lastName") ||
@@ -16,12 +42,24 @@ public class UserService {
             throw new Exception("Missing required fields");
         }
 
-        String firstName = json.getString("firstName").trim();
-        String lastName = json.getString("lastName").trim();
-        String email = json.getString("email").trim();
-        String password = json.getString("password").trim();
+        RegisterUserDTO request = new RegisterUserDTO();
+        request.firstName = json.getString("firstName");
+        request.lastName = json.getString("lastName");
+        request.email = json.getString("email");
+        request.password = json.getString("password");
+        return registerUser(request);
+    }
+
+    public UserDTO registerUser(RegisterUserDTO request) throws Exception {
+        if (request.firstName == null || request.lastName == null ||
+                request.email == null || request.password == null) {
+            throw new Exception("Missing required fields");
+        }
 
-        if (existsEmail(email)) throw new Exception("Email already exists");
+        String firstName = request.firstName.trim();
+        String lastName = request.lastName.trim();
+        String email = request.email.trim();
+        String password = request.password.trim();
 
         UserDTO user = new UserDTO();
         user.id = UUID.randomUUID().toString();
@@ -29,20 +67,45 @@ public class UserService {
         user.lastName = lastName;
         user.email = email;
         user.password = password; // <- sin modificación ni cifrado
+        user.version = versions.incrementAndGet();
 
-        users.put(user.id, user);
+        // Reserva atómica del email: solo un registro concurrente puede ganar
+        String emailKey = normalizeEmail(email);
+        if (emailIndex.putIfAbsent(emailKey, user.id) != null) {
+            throw new Exception("Email already exists");
+        }
+
+        // Se persiste antes de publicar el usuario
+        try {
+            wal.append(WalRecord.user(user), () -> users.put(user.id, user));
+        } catch (RuntimeException e) {
+            emailIndex.remove(emailKey, user.id);
+            throw e;
+        }
         return user;
     }
 
+    /**
+     * Carga un usuario ya persistido (snapshot o replay del log), sin volver a escribirlo.
+     * Es idempotente: el replay puede repetir usuarios que ya venían en el snapshot.
+     */
+    public void restoreUser(UserDTO user) {
+        emailIndex.put(normalizeEmail(user.email), user.id);
+        user.version = versions.incrementAndGet();
+        users.putIfAbsent(user.id, user);
+    }
+
+    public Collection<UserDTO> getAllUsers() {
+        return users.values();
+    }
+
     public boolean existsEmail(String email) {
-        return users.values().stream().anyMatch(u -> u.email.equalsIgnoreCase(email));
+        return emailIndex.containsKey(normalizeEmail(email));
     }
 
     public UserDTO findByEmail(String email) {
-        return users.values().stream()
-                .filter(u -> u.email.equalsIgnoreCase(email))
-                .findFirst()
-                .orElse(null);
+        String id = emailIndex.get(normalizeEmail(email));
+        return id != null ? users.get(id) : null;
     }
 
     public UserDTO getUserById(String id) {
@@ -50,6 +113,11 @@ public class UserService {
     }
 
     public void clear() {
+        emailIndex.clear();
         users.clear();
     }
+
+    private static String normalizeEmail(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
 }
@@ -0,0 +1,70 @@
+package utec.apitester.utils;
+
+import org.junit.jupiter.api.Test;
+import utec.services.AuthService;
+import utec.services.UserService;
+
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class JwtUtilTest {
+    private static final String ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+
+    @Test
+    void validatesItsOwnTokens() {
+        String token = JwtUtil.generateToken("user-1");
+        assertEquals("user-1", JwtUtil.validateToken(token));
+        assertEquals(43, token.length() - token.lastIndexOf('.') - 1);
+    }
+
+    @Test
+    void rejectsEveryOtherEncodingOfTheSameSignature() {
+        String token = JwtUtil.generateToken("user-1");
+        // 32 bytes en 43 caracteres: los 4 bits bajos del último no llevan datos
+        char last = token.charAt(token.length() - 1);
+        for (int bits = 1; bits < 16; bits++) {
+            char other = ALPHABET.charAt(ALPHABET.indexOf(last) ^ bits);
+            assertNull(JwtUtil.validateToken(token.substring(0, token.length() - 1) + other), "low bits " + bits);
+        }
+        assertNull(JwtUtil.validateToken(token + "="));
+        assertNull(JwtUtil.validateToken(token + "=="));
+        // Base64 estándar en vez de base64url para el mismo MAC
+        String signature = token.substring(token.lastIndexOf('.') + 1);
+        String standard = Base64.getEncoder().withoutPadding().encodeToString(Base64.getUrlDecoder().decode(signature));
+        if (!standard.equals(signature)) {
+            assertNull(JwtUtil.validateToken(token.substring(0, token.lastIndexOf('.') + 1) + standard));
+        }
+    }
+
+    @Test
+    void rejectsTamperedTokens() {
+        String token = JwtUtil.generateToken("user-1");
+        int dot = token.lastIndexOf('.');
+        String other = JwtUtil.generateToken("user-2");
+
+        // Payload de otro usuario con la firma original
+        assertNull(JwtUtil.validateToken(other.substring(0, other.lastIndexOf('.')) + token.substring(dot)));
+        char first = token.charAt(dot + 1);
+        assertNull(JwtUtil.validateToken(token.substring(0, dot + 1) + (first == 'A' ? 'B' : 'A') +
+                token.substring(dot + 2)));
+        assertNull(JwtUtil.validateToken(token.substring(0, token.length() - 1)));
+        assertNull(JwtUtil.validateToken(token.substring(0, token.length() - 1) + "é"));
+        assertNull(JwtUtil.validateToken(token + ".x"));
+        assertNull(JwtUtil.validateToken("not-a-token"));
+    }
+
+    @Test
+    void authServiceDoesNotAcceptOrCacheVariants() {
+        AuthService auth = new AuthService(new UserService(), 100, 60_000);
+        String token = JwtUtil.generateToken("user-1");
+        assertEquals("user-1", auth.getUserIdFromToken(token));
+        for (int i = 0; i < 3; i++) {
+            assertNull(auth.getUserIdFromToken(token + "="));
+            assertNull(auth.getUserIdFromToken(token.substring(0, token.length() - 1) +
+                    ALPHABET.charAt(ALPHABET.indexOf(token.charAt(token.length() - 1)) ^ 1)));
+        }
+        assertEquals("user-1", auth.getUserIdFromToken(token));
+    }
+}
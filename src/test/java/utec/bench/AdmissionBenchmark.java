@@ -0,0 +1,104 @@
+package utec.bench;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import utec.server.AdmissionHandler;
+import utec.server.ConcurrencyLimit;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pico de tráfico contra un backend de capacidad fija (4 requests a la vez, 5 ms cada uno,
+ * como un pool de conexiones a una base): sin admisión los requests hacen cola y la latencia
+ * de todos crece con la cantidad de clientes; con el límite adaptativo los que sobran reciben
+ * 503 enseguida y los admitidos quedan cerca de la latencia objetivo. Los clientes respetan
+ * Retry-After. Se usa un backend sintético porque en una máquina con pocos núcleos el cliente
+ * HTTP del mismo proceso satura antes que los controllers.
+ * Uso: utec.bench.AdmissionBenchmark [segundos] [clientes] [latencia objetivo ms]
+ */
+public class AdmissionBenchmark {
+
+    private static final int CAPACITY = 4;
+    private static final long SERVICE_MILLIS = 5;
+
+    public static void main(String[] args) throws Exception {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 128;
+        long target = args.length > 2 ? Long.parseLong(args[2]) : 50;
+
+        System.out.printf("%-20s %8s %9s %9s %9s %8s%n", "admisión", "ok/s", "p50 ms", "p99 ms", "503", "límite");
+        run("sin admisión", null, seconds, clients);
+        run("adaptativa " + target + " ms", new ConcurrencyLimit(64, 1, 1024, target * 1_000_000), seconds, clients);
+    }
+
+    private static void run(String name, ConcurrencyLimit limit, int seconds, int clients) throws Exception {
+        Semaphore backend = new Semaphore(CAPACITY, true);
+        HttpHandler handler = exchange -> {
+            backend.acquireUninterruptibly();
+            try {
+                Thread.sleep(SERVICE_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                backend.release();
+            }
+            respond(exchange);
+        };
+        HttpServer server = HttpServer.create(new InetSocketAddress(0), 1024);
+        server.createContext("/", limit != null ? new AdmissionHandler(handler, null, limit) : handler);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+
+        URI uri = URI.create("http://localhost:" + server.getAddress().getPort() + "/");
+        ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        LongAdder rejected = new LongAdder();
+        long end = System.nanoTime() + seconds * 1_000_000_000L;
+        try (HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+             var pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
+            for (int c = 0; c < clients; c++) {
+                pool.submit(() -> {
+                    while (System.nanoTime() < end) {
+                        long t0 = System.nanoTime();
+                        HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                        if (response.statusCode() == 200) {
+                            latencies.add(System.nanoTime() - t0);
+                        } else {
+                            rejected.increment();
+                            Thread.sleep(Long.parseLong(response.headers().firstValue("Retry-After").orElse("1")) * 1000);
+                        }
+                    }
+                    return null;
+                });
+            }
+        } finally {
+            server.stop(0);
+        }
+
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        System.out.printf("%-20s %8.0f %9.1f %9.1f %9d %8s%n", name, sorted.length / (double) seconds,
+                percentile(sorted, 0.5), percentile(sorted, 0.99), rejected.sum(),
+                limit != null ? String.valueOf(limit.limit()) : "-");
+    }
+
+    private static void respond(HttpExchange exchange) throws IOException {
+        byte[] body = "{}".getBytes();
+        exchange.sendResponseHeaders(200, body.length);
+        exchange.getResponseBody().write(body);
+        exchange.close();
+    }
+
+    private static double percentile(long[] sorted, double q) {
+        return sorted.length == 0 ? 0 : sorted[(int) Math.min(sorted.length - 1, sorted.length * q)] / 1e6;
+    }
+}
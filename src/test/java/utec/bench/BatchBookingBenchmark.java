@@ -0,0 +1,90 @@
+package utec.bench;
+
+import com.sun.net.httpserver.HttpServer;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import utec.Application;
+import utec.dtos.FlightDTO;
+import utec.server.ExecutorMode;
+import utec.server.ServerConfig;
+import utec.services.ServiceRegistry;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Asientos reservados/s: N llamadas a POST /flights/book contra N/lote llamadas a POST /flights/book-many.
+ * Uso: utec.bench.BatchBookingBenchmark [asientos] [asientos por lote] [clientes]
+ */
+public class BatchBookingBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int seats = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int batch = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        int clients = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        HttpServer server = Application.start(new ServerConfig(0, 1024, ExecutorMode.VIRTUAL, cores, 10_000));
+        String base = "http://localhost:" + server.getAddress().getPort();
+
+        try (HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build()) {
+            for (int round = 0; round < 3; round++) {
+                ServiceRegistry.clearAll();
+                ServiceRegistry.USER.registerUser(new JSONObject()
+                        .put("firstName", "Bench").put("lastName", "User")
+                        .put("email", "bench@example.com").put("password", "Password1"));
+                String token = ServiceRegistry.AUTH.login(new JSONObject()
+                        .put("email", "bench@example.com").put("password", "Password1"));
+                FlightDTO single = createFlight("BS001", seats);
+                FlightDTO grouped = createFlight("BG001", seats);
+
+                String singleBody = new JSONObject().put("flightId", single.id).toString();
+                double singleRate = run(client, clients, seats, base + "/flights/book", token, singleBody, 1);
+
+                String batchBody = new JSONObject().put("items", new JSONArray()
+                        .put(new JSONObject().put("flightId", grouped.id).put("seats", batch))).toString();
+                double batchRate = run(client, clients, seats / batch, base + "/flights/book-many", token, batchBody, batch);
+
+                System.out.printf("%,d seats: single %,.0f seats/s, book-many (lote %d) %,.0f seats/s%n",
+                        seats, singleRate, batch, batchRate);
+            }
+        } finally {
+            Application.stop(server);
+        }
+    }
+
+    private static double run(HttpClient client, int clients, int requests, String url, String token,
+                              String body, int seatsPerRequest) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .header("Authorization", "Bearer " + token)
+                .POST(HttpRequest.BodyPublishers.ofString(body)).build();
+        LongAdder booked = new LongAdder();
+
+        long t0 = System.nanoTime();
+        try (var pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clients; c++) {
+                int first = c;
+                pool.submit(() -> {
+                    for (int i = first; i < requests; i += clients) {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() == 200) booked.add(seatsPerRequest);
+                    }
+                    return null;
+                });
+            }
+        }
+        return booked.sum() / ((System.nanoTime() - t0) / 1e9);
+    }
+
+    private static FlightDTO createFlight(String number, int seats) throws Exception {
+        return ServiceRegistry.FLIGHT.createFlight(new JSONObject()
+                .put("airlineName", "Bench Air").put("flightNumber", number)
+                .put("estDepartureTime", "2030-01-01T10:00:00Z")
+                .put("estArrivalTime", "2030-01-01T12:00:00Z")
+                .put("availableSeats", seats));
+    }
+}
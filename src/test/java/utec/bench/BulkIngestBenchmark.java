@@ -0,0 +1,81 @@
+package utec.bench;
+
+import com.sun.net.httpserver.HttpServer;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import utec.Application;
+import utec.server.ExecutorMode;
+import utec.server.ServerConfig;
+import utec.services.ServiceRegistry;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.Executors;
+
+/**
+ * Carga de un catálogo de vuelos: un solo POST /flights/create-many contra un POST /flights/create
+ * por vuelo repartido entre varios clientes concurrentes.
+ * Uso: utec.bench.BulkIngestBenchmark [vuelos] [clientes]
+ */
+public class BulkIngestBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int flights = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int cores = Runtime.getRuntime().availableProcessors();
+        HttpServer server = Application.start(new ServerConfig(0, 1024, ExecutorMode.VIRTUAL, cores, 10_000));
+        String base = "http://localhost:" + server.getAddress().getPort();
+
+        try (HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build()) {
+            for (int round = 0; round < 3; round++) {
+                ServiceRegistry.clearAll();
+                JSONArray inputs = new JSONArray();
+                for (int i = 0; i < flights; i++) inputs.put(flight(i));
+                String body = new JSONObject().put("inputs", inputs).toString();
+
+                long t0 = System.nanoTime();
+                HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(base + "/flights/create-many"))
+                        .POST(HttpRequest.BodyPublishers.ofString(body)).build(), HttpResponse.BodyHandlers.ofString());
+                long bulkMs = (System.nanoTime() - t0) / 1_000_000;
+                if (response.statusCode() != 201) throw new IllegalStateException(response.body());
+
+                ServiceRegistry.clearAll();
+                t0 = System.nanoTime();
+                try (var pool = Executors.newVirtualThreadPerTaskExecutor()) {
+                    for (int c = 0; c < clients; c++) {
+                        int first = c;
+                        pool.submit(() -> {
+                            for (int i = first; i < flights; i += clients) {
+                                client.send(HttpRequest.newBuilder(URI.create(base + "/flights/create"))
+                                                .POST(HttpRequest.BodyPublishers.ofString(flight(i).toString())).build(),
+                                        HttpResponse.BodyHandlers.discarding());
+                            }
+                            return null;
+                        });
+                    }
+                }
+                long singleMs = (System.nanoTime() - t0) / 1_000_000;
+
+                System.out.printf("%,d flights: create-many %d ms, one request per flight (%d clients) %d ms%n",
+                        flights, bulkMs, clients, singleMs);
+            }
+        } finally {
+            Application.stop(server);
+        }
+    }
+
+    // Números AAA000..ZZZ999: alcanzan para 17 millones de vuelos distintos
+    private static JSONObject flight(int i) {
+        int prefix = i / 1000;
+        String number = "" + (char) ('A' + prefix / 676) + (char) ('A' + prefix / 26 % 26) + (char) ('A' + prefix % 26)
+                + String.format("%03d", i % 1000);
+        return new JSONObject()
+                .put("airlineName", "Airline " + (i % 300))
+                .put("flightNumber", number)
+                .put("estDepartureTime", "2030-01-01T10:00:00Z")
+                .put("estArrivalTime", "2030-01-01T12:00:00Z")
+                .put("availableSeats", 100);
+    }
+}
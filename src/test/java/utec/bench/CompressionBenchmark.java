@@ -0,0 +1,86 @@
+package utec.bench;
+
+import com.sun.net.httpserver.HttpServer;
+import org.json.JSONObject;
+import utec.Application;
+import utec.server.ExecutorMode;
+import utec.server.ServerConfig;
+import utec.services.ServiceRegistry;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Bytes en el cable y latencia de GET /flights/search sin comprimir, con gzip y con deflate,
+ * para una respuesta chica (un vuelo) y otras grandes (páginas de 100 y 1000 vuelos y el
+ * catálogo completo). La última columna estima el tiempo de transferencia en un enlace de
+ * 100 Mbit/s, que en loopback no se ve.
+ * Uso: utec.bench.CompressionBenchmark [vuelos] [requests por caso]
+ */
+public class CompressionBenchmark {
+
+    private static final String[] ENCODINGS = {"identity", "gzip", "deflate"};
+
+    public static void main(String[] args) throws Exception {
+        int flights = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int requests = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int cores = Runtime.getRuntime().availableProcessors();
+        HttpServer server = Application.start(new ServerConfig(0, 1024, ExecutorMode.VIRTUAL, cores, 10_000));
+        String base = "http://localhost:" + server.getAddress().getPort();
+
+        ServiceRegistry.clearAll();
+        String[] airlines = {"American Airlines", "United Airlines", "Delta Air Lines", "LATAM Airlines"};
+        for (int i = 0; i < flights; i++) {
+            ServiceRegistry.FLIGHT.createFlight(new JSONObject()
+                    .put("airlineName", airlines[i % airlines.length])
+                    .put("flightNumber", String.format("%s%03d", code(i / 1000), i % 1000))
+                    .put("estDepartureTime", "2030-01-01T10:00:00Z")
+                    .put("estArrivalTime", "2030-01-01T12:00:00Z")
+                    .put("availableSeats", 100 + i % 50));
+        }
+
+        Map<String, String> cases = Map.of(
+                "1 vuelo", "/flights/search?flightNumber=AA001",
+                "100 vuelos", "/flights/search?limit=100",
+                "1000 vuelos", "/flights/search?limit=1000",
+                flights + " vuelos", "/flights/search");
+
+        try (HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build()) {
+            System.out.printf("%-14s %-9s %12s %10s %10s %16s%n",
+                    "respuesta", "encoding", "bytes", "p50 ms", "p99 ms", "100 Mbit/s ms");
+            for (String name : new String[]{"1 vuelo", "100 vuelos", "1000 vuelos", flights + " vuelos"}) {
+                for (String encoding : ENCODINGS) {
+                    HttpRequest request = HttpRequest.newBuilder(URI.create(base + cases.get(name)))
+                            .header("Accept-Encoding", encoding).GET().build();
+                    int n = name.startsWith(String.valueOf(flights)) ? Math.max(10, requests / 10) : requests;
+
+                    // El cliente del JDK no descomprime: body es lo que viajó por el cable
+                    long bytes = 0;
+                    for (int i = 0; i < n; i++) {
+                        bytes = client.send(request, HttpResponse.BodyHandlers.ofByteArray()).body().length;
+                    }
+                    long[] nanos = new long[n];
+                    for (int i = 0; i < n; i++) {
+                        long t0 = System.nanoTime();
+                        client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                        nanos[i] = System.nanoTime() - t0;
+                    }
+                    Arrays.sort(nanos);
+                    System.out.printf("%-14s %-9s %,12d %10.2f %10.2f %16.2f%n", name, encoding, bytes,
+                            nanos[n / 2] / 1e6, nanos[(int) (n * 0.99)] / 1e6, bytes * 8 / 100e6 * 1e3);
+                }
+            }
+        } finally {
+            Application.stop(server);
+        }
+    }
+
+    // AA, AB, ... para tener números de vuelo únicos
+    private static String code(int i) {
+        return "" + (char) ('A' + i / 26 % 26) + (char) ('A' + i % 26);
+    }
+}
@@ -0,0 +1,95 @@
+package utec.bench;
+
+import com.sun.net.httpserver.HttpServer;
+import org.json.JSONObject;
+import utec.Application;
+import utec.server.AdmissionConfig;
+import utec.server.ExecutorMode;
+import utec.server.ServerConfig;
+import utec.services.ServiceRegistry;
+
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+
+/**
+ * Costo de un cliente que hace polling: GET completo contra GET con If-None-Match del ETag
+ * que ya tiene (304), para un usuario y para búsquedas de 100 y 1000 vuelos. Mide latencia,
+ * bytes de body y CPU del proceso por request (cliente y servidor comparten JVM).
+ * Uso: utec.bench.ConditionalGetBenchmark [vuelos] [requests por caso]
+ */
+public class ConditionalGetBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int flights = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int requests = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        int cores = Runtime.getRuntime().availableProcessors();
+        // Sin compresión, para comparar solo el efecto del 304
+        HttpServer server = Application.start(new ServerConfig(0, 1024, ExecutorMode.VIRTUAL, cores, 10_000,
+                ServerConfig.DEFAULT_MAX_BODY, ServerConfig.DEFAULT_MAX_BULK_BODY,
+                -1, ServerConfig.DEFAULT_COMPRESSION_LEVEL, AdmissionConfig.DEFAULT));
+        String base = "http://localhost:" + server.getAddress().getPort();
+
+        ServiceRegistry.clearAll();
+        for (int i = 0; i < flights; i++) {
+            ServiceRegistry.FLIGHT.createFlight(new JSONObject()
+                    .put("airlineName", "LATAM Airlines")
+                    .put("flightNumber", String.format("L%c%03d", (char) ('A' + i / 1000), i % 1000))
+                    .put("estDepartureTime", "2030-01-01T10:00:00Z")
+                    .put("estArrivalTime", "2030-01-01T12:00:00Z")
+                    .put("availableSeats", 100));
+        }
+        String userId = ServiceRegistry.USER.registerUser(new JSONObject()
+                .put("firstName", "Ana").put("lastName", "Diaz")
+                .put("email", "ana@example.com").put("password", "Password1")).id;
+
+        String[][] cases = {
+                {"usuario", "/users/" + userId},
+                {"100 vuelos", "/flights/search?limit=100"},
+                {"1000 vuelos", "/flights/search?limit=1000"},
+        };
+
+        com.sun.management.OperatingSystemMXBean os =
+                (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+        try (HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build()) {
+            System.out.printf("%-12s %-6s %8s %10s %10s %12s%n", "respuesta", "status", "bytes", "p50 us", "p99 us", "CPU us/req");
+            for (String[] c : cases) {
+                HttpRequest full = HttpRequest.newBuilder(URI.create(base + c[1])).GET().build();
+                String etag = client.send(full, HttpResponse.BodyHandlers.discarding()).headers()
+                        .firstValue("ETag").orElseThrow();
+                HttpRequest conditional = HttpRequest.newBuilder(URI.create(base + c[1]))
+                        .header("If-None-Match", etag).GET().build();
+                run(client, os, c[0], full, requests);
+                run(client, os, c[0], conditional, requests);
+            }
+        } finally {
+            Application.stop(server);
+        }
+    }
+
+    private static void run(HttpClient client, com.sun.management.OperatingSystemMXBean os, String name,
+                            HttpRequest request, int n) throws Exception {
+        // Calentamiento
+        for (int i = 0; i < n / 4; i++) {
+            client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        }
+        long[] nanos = new long[n];
+        int status = 0;
+        long bytes = 0;
+        long cpu0 = os.getProcessCpuTime();
+        for (int i = 0; i < n; i++) {
+            long t0 = System.nanoTime();
+            HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            nanos[i] = System.nanoTime() - t0;
+            status = response.statusCode();
+            bytes = response.body().length;
+        }
+        long cpu = os.getProcessCpuTime() - cpu0;
+        Arrays.sort(nanos);
+        System.out.printf("%-12s %-6d %,8d %10.1f %10.1f %12.1f%n", name, status, bytes,
+                nanos[n / 2] / 1e3, nanos[(int) (n * 0.99)] / 1e3, cpu / 1e3 / n);
+    }
+}
@@ -0,0 +1,65 @@
+package utec.bench;
+
+import org.json.JSONObject;
+import utec.dtos.FlightDTO;
+import utec.dtos.UserDTO;
+import utec.persistence.WriteAheadLog;
+import utec.services.BookingService;
+import utec.services.FlightService;
+import utec.services.SeatInventory;
+import utec.services.UserService;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Reservas durables/s con el write-ahead log para cada política de fsync.
+ * Uso: utec.bench.DurableBookingBenchmark [reservas] [hilos]
+ */
+public class DurableBookingBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int bookings = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 256;
+
+        for (WriteAheadLog.FsyncPolicy policy : WriteAheadLog.FsyncPolicy.values()) {
+            Path dir = Files.createTempDirectory("wal-bench");
+            try (WriteAheadLog wal = new WriteAheadLog(dir.resolve("wal.log"), policy, 10)) {
+                wal.open();
+                SeatInventory seats = new SeatInventory();
+                UserService users = new UserService(wal);
+                FlightService flights = new FlightService(seats, wal);
+                BookingService service = new BookingService(flights, users, seats, wal);
+
+                UserDTO user = users.registerUser(new JSONObject()
+                        .put("firstName", "Bench").put("lastName", "User")
+                        .put("email", "bench@example.com").put("password", "Password1"));
+                FlightDTO flight = flights.createFlight(new JSONObject()
+                        .put("airlineName", "Bench Air").put("flightNumber", "BA001")
+                        .put("estDepartureTime", "2030-01-01T10:00:00Z")
+                        .put("estArrivalTime", "2030-01-01T12:00:00Z")
+                        .put("availableSeats", bookings));
+
+                LongAdder done = new LongAdder();
+                long t0 = System.nanoTime();
+                try (var pool = Executors.newVirtualThreadPerTaskExecutor()) {
+                    int perThread = bookings / threads;
+                    for (int t = 0; t < threads; t++) {
+                        pool.submit(() -> {
+                            for (int i = 0; i < perThread; i++) {
+                                service.createBooking(flight.id, user.id);
+                                done.increment();
+                            }
+                            return null;
+                        });
+                    }
+                }
+                double seconds = (System.nanoTime() - t0) / 1e9;
+                System.out.printf("%-8s %,10.0f bookings/s (%d bookings, log %,d bytes)%n",
+                        policy, done.sum() / seconds, done.sum(), Files.size(wal.getPath()));
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package utec.bench;
+
+import utec.apitester.utils.JwtUtil;
+import utec.services.AuthService;
+import utec.services.UserService;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.util.Base64;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Validaciones/s de un mismo token: implementación anterior (Mac nuevo + split por regex),
+ * JwtUtil actual (Mac del pool) y AuthService (cache de tokens verificados).
+ * Uso: utec.bench.JwtValidationBenchmark [iteraciones]
+ */
+public class JwtValidationBenchmark {
+
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+        String userId = UUID.randomUUID().toString();
+        String token = JwtUtil.generateToken(userId);
+        AuthService auth = new AuthService(new UserService());
+
+        for (int round = 0; round < 3; round++) {
+            run("legacy", JwtValidationBenchmark::legacyValidate, token, userId, iterations);
+            run("JwtUtil", JwtUtil::validateToken, token, userId, iterations);
+            run("AuthService", auth::getUserIdFromToken, token, userId, iterations);
+        }
+    }
+
+    private static void run(String name, Function<String, String> validator, String token, String userId, int iterations) {
+        long t0 = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            if (!userId.equals(validator.apply(token))) throw new IllegalStateException(name + " rejected a valid token");
+        }
+        double seconds = (System.nanoTime() - t0) / 1e9;
+        System.out.printf("%-12s %,12.0f validations/s%n", name, iterations / seconds);
+    }
+
+    // Copia de JwtUtil.validateToken antes del pool de Mac
+    private static String legacyValidate(String token) {
+        try {
+            String[] parts = token.split("\\.");
+            if (parts.length != 3) return null;
+
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec("SuperSecreto-ChangeMe".getBytes(), "HmacSHA256"));
+            String signatureCheck = Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(mac.doFinal((parts[0] + "." + parts[1]).getBytes()));
+            if (!signatureCheck.equals(parts[2])) return null;
+
+            String payloadJson = new String(Base64.getUrlDecoder().decode(parts[1]));
+            return payloadJson.replace("{\"sub\":\"", "").replace("\"}", "");
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
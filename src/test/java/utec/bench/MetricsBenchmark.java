@@ -0,0 +1,57 @@
+package utec.bench;
+
+import utec.metrics.Metrics;
+import utec.metrics.RouteMetrics;
+import utec.metrics.Stage;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Costo de instrumentar un request (started/completed más tres etapas): ns y bytes asignados
+ * por request en un hilo, y throughput con varios hilos registrando en el mismo route.
+ * Uso: utec.bench.MetricsBenchmark [iteraciones] [hilos]
+ */
+public class MetricsBenchmark {
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private static final RouteMetrics METRICS = Metrics.route("POST /bench");
+
+    public static void main(String[] args) throws Exception {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+
+        run(iterations);
+        long thread = Thread.currentThread().threadId();
+        long bytes0 = THREADS.getThreadAllocatedBytes(thread);
+        long t0 = System.nanoTime();
+        run(iterations);
+        long elapsed = System.nanoTime() - t0;
+        long allocated = THREADS.getThreadAllocatedBytes(thread) - bytes0;
+        System.out.printf("1 hilo: %.1f ns/request, %.3f bytes/request%n",
+                elapsed / (double) iterations, allocated / (double) iterations);
+
+        try (var pool = Executors.newFixedThreadPool(threads)) {
+            Future<?>[] futures = new Future<?>[threads];
+            t0 = System.nanoTime();
+            for (int i = 0; i < threads; i++) {
+                futures[i] = pool.submit(() -> run(iterations / threads));
+            }
+            for (Future<?> f : futures) f.get();
+            elapsed = System.nanoTime() - t0;
+        }
+        System.out.printf("%d hilos: %,.0f requests/s%n", threads, iterations / (elapsed / 1e9));
+    }
+
+    private static void run(int iterations) {
+        for (int i = 0; i < iterations; i++) {
+            long start = METRICS.started();
+            long t = METRICS.recordParse(start, 100);
+            t = METRICS.record(Stage.SERVICE, t);
+            METRICS.record(Stage.SERIALIZE, t);
+            METRICS.completed(start, i % 10 == 0 ? 400 : 200);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package utec.bench;
+
+import utec.dtos.FlightDTO;
+import utec.persistence.WriteAheadLog;
+import utec.repository.ShardedRepositories;
+import utec.services.FlightPage;
+import utec.services.FlightService;
+import utec.services.SeatInventory;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Vuelos en mapas del heap contra OffHeapFlightRepository: heap ocupado después de cargar los
+ * vuelos (repositorio, índice de números y asientos) y después de armar el índice de búsqueda,
+ * memoria directa, duración de un GC completo en cada punto, búsquedas/s (páginas de 20
+ * desde un cursor al azar, cada resultado se arma desde el repositorio) y lecturas por id/s.
+ * Al final se llena el cache de búsquedas (hasta su tope de vuelos) y se mide el heap que
+ * agrega: guarda números e ids, no los vuelos que arma el repositorio al leerlos.
+ * Uso: utec.bench.OffHeapFlightBenchmark [vuelos]   (para 10^7 hace falta -Xmx grande)
+ */
+public class OffHeapFlightBenchmark {
+    private static final int AIRLINES = 300;
+    private static final int QUERIES = 200_000;
+    // Prefijos de tres letras distintos (cada uno, hasta mil vuelos): más de los que entran en el cache
+    private static final int CACHED_QUERIES = 1024;
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        System.out.printf("%-9s %11s %9s %11s %9s %9s %12s %12s %9s%n", "vuelos", "heap carga", "GC ms",
+                "heap total", "GC ms", "directa", "búsquedas/s", "get/s", "cache");
+        for (int round = 0; round < 2; round++) {
+            run("heap", false, count);
+            run("off-heap", true, count);
+        }
+    }
+
+    private static void run(String name, boolean offHeap, int count) {
+        long base = usedHeap();
+        FlightService service = new FlightService(new SeatInventory(), new ShardedRepositories(64, offHeap),
+                WriteAheadLog.disabled());
+        String[] ids = new String[count];
+        String[] numbers = new String[count];
+        for (int i = 0; i < count; i++) {
+            FlightDTO flight = flight(i);
+            ids[i] = flight.id;
+            numbers[i] = flight.flightNumber;
+            service.restoreFlight(flight);
+        }
+        // Los arreglos de ids y números los usa el benchmark; se descuentan del heap medido
+        long loaded = usedHeap() - base - arraysBytes(ids, numbers);
+        double loadedGc = fullGcMillis();
+        service.rebuildSearchIndex();
+        long total = usedHeap() - base - arraysBytes(ids, numbers);
+        double totalGc = fullGcMillis();
+        long direct = directBytes();
+
+        Random random = new Random(42);
+        long t0 = System.nanoTime();
+        long found = 0;
+        for (int q = 0; q < QUERIES; q++) {
+            FlightPage page = service.searchFlights(null, null, numbers[random.nextInt(count)], 20);
+            found += page.items().size();
+        }
+        double searches = QUERIES / ((System.nanoTime() - t0) / 1e9);
+
+        t0 = System.nanoTime();
+        for (int q = 0; q < QUERIES * 5; q++) {
+            if (service.getFlightById(ids[random.nextInt(count)]) != null) found++;
+        }
+        double gets = QUERIES * 5 / ((System.nanoTime() - t0) / 1e9);
+
+        long beforeCache = usedHeap();
+        for (int q = 0; q < CACHED_QUERIES; q++) {
+            found += service.searchFlights(numbers[(int) ((long) q * count / CACHED_QUERIES)].substring(0, 3),
+                    null, null, 20).items().size();
+        }
+        long cache = usedHeap() - beforeCache;
+
+        System.out.printf("%-9s %,8d MB %9.0f %,8d MB %9.0f %,6d MB %,12.0f %,12.0f %,6d MB%n", name, loaded >> 20,
+                loadedGc, total >> 20, totalGc, direct >> 20, searches, gets, cache >> 20);
+        if (found == 0) System.out.println("sin resultados");
+        service.clear();
+    }
+
+    private static FlightDTO flight(int i) {
+        FlightDTO flight = new FlightDTO();
+        flight.id = UUID.randomUUID().toString();
+        flight.airlineName = "Airline " + (i % AIRLINES);
+        // Números únicos de 6 caracteres: tres letras y tres dígitos
+        flight.flightNumber = "" + (char) ('A' + i / 26_000 % 26) + (char) ('A' + i / 1000 % 26) +
+                (char) ('A' + i / 676_000 % 26) + String.format("%03d", i % 1000);
+        Instant departure = Instant.parse("2030-01-01T00:00:00Z").plusSeconds(i * 60L);
+        flight.estDepartureTime = departure.toString();
+        flight.estArrivalTime = departure.plusSeconds(7200).toString();
+        flight.availableSeats = 100 + i % 200;
+        return flight;
+    }
+
+    private static long arraysBytes(String[] ids, String[] numbers) {
+        // Referencia + String + arreglo de bytes (compact strings, Latin-1)
+        return (long) ids.length * (4 + 24 + 16 + 36) + (long) numbers.length * (4 + 24 + 16 + 8);
+    }
+
+    private static double fullGcMillis() {
+        long t0 = System.nanoTime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return (System.nanoTime() - t0) / 3 / 1e6;
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static long directBytes() {
+        return ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+                .filter(pool -> pool.getName().equals("direct"))
+                .mapToLong(BufferPoolMXBean::getMemoryUsed).sum();
+    }
+}
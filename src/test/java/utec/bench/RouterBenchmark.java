@@ -0,0 +1,117 @@
+package utec.bench;
+
+import com.sun.net.httpserver.HttpHandler;
+import utec.server.Router;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Costo de resolver la ruta de un request: trie de Router contra el esquema anterior (prefijo
+ * más largo entre los contextos del HttpServer, como lo busca el JDK, más el split del path
+ * en el handler), con la tabla de rutas real y con N rutas extra. Mide ns y bytes asignados
+ * por request en el hilo actual.
+ * Uso: utec.bench.RouterBenchmark [iteraciones]
+ */
+public class RouterBenchmark {
+
+    private record Context(String prefix, String method, int idIndex) {
+    }
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static final String[][] ROUTES = {
+            {"POST", "/users/register"},
+            {"GET", "/users/{id}"},
+            {"POST", "/auth/login"},
+            {"POST", "/flights/create"},
+            {"POST", "/flights/create-many"},
+            {"GET", "/flights/search"},
+            {"POST", "/flights/book"},
+            {"GET", "/flights/book/{id}"},
+            {"POST", "/flights/book-many"},
+            {"POST", "/cleanup"},
+    };
+
+    private static final String[][] REQUESTS = {
+            {"POST", "/users/register"},
+            {"GET", "/users/0b3e8f4a-5c6d-4e7f-8a9b-0c1d2e3f4a5b"},
+            {"POST", "/auth/login"},
+            {"GET", "/flights/search"},
+            {"POST", "/flights/book"},
+            {"GET", "/flights/book/9a8b7c6d-5e4f-4a3b-2c1d-0e9f8a7b6c5d"},
+            {"POST", "/flights/book-many"},
+            {"GET", "/nothing/here"},
+    };
+
+    private static long blackhole;
+
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        HttpHandler handler = exchange -> {
+        };
+
+        System.out.printf("%-12s %12s %12s %12s %12s%n", "rutas", "prefijo ns", "trie ns", "prefijo B", "trie B");
+        for (int extra : new int[]{0, 100, 1000}) {
+            Router router = new Router();
+            List<Context> contexts = new ArrayList<>();
+            for (String[] route : ROUTES) {
+                router.add(route[0], route[1], handler);
+                String pattern = route[1];
+                int param = pattern.indexOf("/{");
+                contexts.add(param < 0
+                        ? new Context(pattern, route[0], -1)
+                        : new Context(pattern.substring(0, param + 1), route[0], pattern.split("/").length - 1));
+            }
+            for (int i = 0; i < extra; i++) {
+                router.add("GET", "/extra" + i + "/items/{id}", handler);
+                contexts.add(new Context("/extra" + i + "/items/", "GET", 3));
+            }
+
+            String[] values = new String[router.maxParams()];
+            double[] prefix = measure(iterations, request -> prefixMatch(contexts, request[0], request[1]));
+            double[] trie = measure(iterations, request -> {
+                Router.Route route = router.find(request[0], request[1], values);
+                return route == null ? 404 : route.handler() == null ? 405 : route.params().length;
+            });
+            System.out.printf("%-12d %12.1f %12.1f %12.1f %12.1f%n",
+                    ROUTES.length + extra, prefix[0], trie[0], prefix[1], trie[1]);
+        }
+        if (blackhole == 42) System.out.println();
+    }
+
+    private interface Lookup {
+        int run(String[] request);
+    }
+
+    // {ns por request, bytes asignados por request}
+    private static double[] measure(int iterations, Lookup lookup) {
+        for (int i = 0; i < iterations; i++) blackhole += lookup.run(REQUESTS[i % REQUESTS.length]);
+
+        long thread = Thread.currentThread().threadId();
+        long bytes0 = THREADS.getThreadAllocatedBytes(thread);
+        long t0 = System.nanoTime();
+        for (int i = 0; i < iterations; i++) blackhole += lookup.run(REQUESTS[i % REQUESTS.length]);
+        long elapsed = System.nanoTime() - t0;
+        long allocated = THREADS.getThreadAllocatedBytes(thread) - bytes0;
+        return new double[]{elapsed / (double) iterations, allocated / (double) iterations};
+    }
+
+    // Lo que hacía cada request antes: recorrer todos los contextos, chequear el método y partir el path
+    private static int prefixMatch(List<Context> contexts, String method, String path) {
+        Context best = null;
+        for (Context context : contexts) {
+            if (path.startsWith(context.prefix)
+                    && (best == null || context.prefix.length() > best.prefix.length())) {
+                best = context;
+            }
+        }
+        if (best == null) return 404;
+        if (!best.method.equals(method)) return 405;
+        if (best.idIndex < 0) return 0;
+        String[] parts = path.split("/");
+        return parts.length > best.idIndex ? parts[best.idIndex].length() : 400;
+    }
+}
@@ -0,0 +1,131 @@
+package utec.bench;
+
+import org.json.JSONObject;
+import utec.dto.NewFlightRequestDTO;
+import utec.metrics.CacheMetrics;
+import utec.metrics.Metrics;
+import utec.services.FlightService;
+import utec.services.SeatInventory;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Búsquedas con el cache de resultados de FlightService: ns y bytes asignados por búsqueda
+ * cuando falla (recorrido cíclico de más queries que entradas, así LRU nunca acierta) y
+ * cuando acierta, para queries chicas (10 vuelos) y para una aerolínea (un cuarto del
+ * catálogo, página de 100). También el costo de dar de alta un vuelo con el cache vacío y
+ * lleno (el alta solo se anota; las entradas se revalidan al leerlas), y altas que coinciden
+ * con una query caliente intercaladas con sus búsquedas.
+ * Uso: utec.bench.SearchCacheBenchmark [vuelos] [iteraciones]
+ */
+public class SearchCacheBenchmark {
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private static final String[] AIRLINES =
+            {"American Airlines", "United Airlines", "Delta Air Lines", "LATAM Airlines"};
+
+    public static void main(String[] args) throws Exception {
+        int flights = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+
+        FlightService service = new FlightService(new SeatInventory());
+        for (int i = 0; i < flights; i++) {
+            service.createFlight(flight(i));
+        }
+
+        // Prefijos de 4 caracteres ("AB12"): 10 vuelos cada uno y más queries que entradas del cache
+        String[] prefixes = new String[flights / 10];
+        for (int i = 0; i < prefixes.length; i++) {
+            prefixes[i] = number(i * 10).substring(0, 4);
+        }
+        String[] hot = Arrays.copyOf(prefixes, 64);
+
+        CacheMetrics cache = Metrics.cache("flight-search");
+        System.out.printf("%-24s %12s %12s%n", "caso", "ns/búsqueda", "bytes/búsqueda");
+        measure("prefijo, fallo", iterations / 10,
+                i -> service.searchFlights(prefixes[i % prefixes.length], null, null, 100));
+        measure("prefijo, acierto", iterations, i -> service.searchFlights(hot[i % hot.length], null, null, 100));
+        measure("aerolínea, acierto", iterations, i -> service.searchFlights(null, "american", null, 100));
+
+        long t0 = System.nanoTime();
+        service.searchFlights(null, "delta", null, 100);
+        System.out.printf("%-24s %12.0f%n", "aerolínea, primer fallo", (double) (System.nanoTime() - t0));
+
+        // Un lote grande vacía el cache; después se vuelve a llenar con 1024 queries
+        int added = 5000;
+        List<NewFlightRequestDTO> batch = new ArrayList<>();
+        for (int i = 0; i < 500; i++) batch.add(request(flights + i));
+        service.createFlights(batch);
+        create(service, "alta, cache vacío", flights + 500, added);
+        for (int i = 0; i < 1024; i++) service.searchFlights(prefixes[i], null, null, 100);
+        create(service, "alta, cache lleno", flights + 500 + added, added);
+
+        // Altas que coinciden con una query caliente entre búsqueda y búsqueda: la entrada se
+        // completa con el vuelo nuevo en vez de volver a buscar en el índice
+        // Múltiplo de AIRLINES.length: request(from + i * 4) es siempre American Airlines
+        int from = (flights + 500 + 2 * added + 3) / 4 * 4;
+        service.searchFlights(null, "american", null, 100);
+        long t1 = System.nanoTime();
+        for (int i = 0; i < added; i++) {
+            service.createFlight(request(from + i * AIRLINES.length));
+            service.searchFlights(null, "american", null, 100);
+        }
+        System.out.printf("%-24s %12.0f ns/(alta + búsqueda)%n", "aerolínea, alta que coincide",
+                (System.nanoTime() - t1) / (double) added);
+        System.out.printf("cache: %,d aciertos, %,d fallos, %,d desalojos, %d entradas%n",
+                cache.hits(), cache.misses(), cache.evictions(), cache.entries());
+    }
+
+    private interface Search {
+        void run(int i);
+    }
+
+    private static void measure(String name, int iterations, Search search) {
+        for (int i = 0; i < iterations; i++) search.run(i);
+        long thread = Thread.currentThread().threadId();
+        long bytes0 = THREADS.getThreadAllocatedBytes(thread);
+        long t0 = System.nanoTime();
+        for (int i = 0; i < iterations; i++) search.run(i);
+        long elapsed = System.nanoTime() - t0;
+        long allocated = THREADS.getThreadAllocatedBytes(thread) - bytes0;
+        System.out.printf("%-24s %12.0f %12.0f%n", name,
+                elapsed / (double) iterations, allocated / (double) iterations);
+    }
+
+    private static void create(FlightService service, String name, int from, int count) throws Exception {
+        long t0 = System.nanoTime();
+        for (int i = from; i < from + count; i++) {
+            service.createFlight(flight(i));
+        }
+        System.out.printf("%-24s %12.0f ns/alta%n", name, (System.nanoTime() - t0) / (double) count);
+    }
+
+    private static NewFlightRequestDTO request(int i) {
+        NewFlightRequestDTO request = new NewFlightRequestDTO();
+        request.airlineName = AIRLINES[i % AIRLINES.length];
+        request.flightNumber = number(i);
+        request.estDepartureTime = "2030-01-01T10:00:00Z";
+        request.estArrivalTime = "2030-01-01T12:00:00Z";
+        request.availableSeats = 100;
+        return request;
+    }
+
+    private static JSONObject flight(int i) {
+        return new JSONObject()
+                .put("airlineName", AIRLINES[i % AIRLINES.length])
+                .put("flightNumber", number(i))
+                .put("estDepartureTime", "2030-01-01T10:00:00Z")
+                .put("estArrivalTime", "2030-01-01T12:00:00Z")
+                .put("availableSeats", 100);
+    }
+
+    // AA000, AA001, ... únicos hasta 676.000 vuelos
+    private static String number(int i) {
+        int block = i / 1000;
+        return "" + (char) ('A' + block / 26 % 26) + (char) ('A' + block % 26) + String.format("%03d", i % 1000);
+    }
+}
@@ -0,0 +1,65 @@
+package utec.bench;
+
+import org.json.JSONObject;
+import utec.dtos.FlightDTO;
+import utec.dtos.UserDTO;
+import utec.services.ServiceRegistry;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Miles de hilos virtuales compitiendo por los asientos de un solo vuelo.
+ * Reporta reservas/s y verifica que no haya sobreventa.
+ * Uso: utec.bench.SeatContentionBenchmark [asientos] [hilos]
+ */
+public class SeatContentionBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int seats = args.length > 0 ? Integer.parseInt(args[0]) : 5_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+
+        for (int round = 0; round < 3; round++) {
+            ServiceRegistry.clearAll();
+            UserDTO user = ServiceRegistry.USER.registerUser(new JSONObject()
+                    .put("firstName", "Bench").put("lastName", "User")
+                    .put("email", "bench@example.com").put("password", "Password1"));
+            FlightDTO flight = ServiceRegistry.FLIGHT.createFlight(new JSONObject()
+                    .put("airlineName", "Flash Sale Air")
+                    .put("flightNumber", "FS001")
+                    .put("estDepartureTime", "2030-01-01T10:00:00Z")
+                    .put("estArrivalTime", "2030-01-01T12:00:00Z")
+                    .put("availableSeats", seats));
+
+            LongAdder booked = new LongAdder();
+            LongAdder rejected = new LongAdder();
+            CountDownLatch start = new CountDownLatch(1);
+
+            long t0;
+            try (var pool = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < threads; i++) {
+                    pool.submit(() -> {
+                        start.await();
+                        try {
+                            ServiceRegistry.BOOKING.createBooking(flight.id, user.id);
+                            booked.increment();
+                        } catch (Exception e) {
+                            rejected.increment();
+                        }
+                        return null;
+                    });
+                }
+                t0 = System.nanoTime();
+                start.countDown();
+            }
+            double elapsed = (System.nanoTime() - t0) / 1e9;
+
+            int remaining = ServiceRegistry.FLIGHT.getAvailableSeats(flight);
+            boolean ok = booked.sum() == seats && remaining == 0 && rejected.sum() == threads - seats;
+            System.out.printf("round %d: booked=%d rejected=%d remaining=%d %.0f bookings/s %s%n",
+                    round, booked.sum(), rejected.sum(), remaining, booked.sum() / elapsed,
+                    ok ? "OK" : "OVERSOLD/UNDERSOLD");
+        }
+    }
+}
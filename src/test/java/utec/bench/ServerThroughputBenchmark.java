@@ -0,0 +1,80 @@
+package utec.bench;
+
+import com.sun.net.httpserver.HttpServer;
+import org.json.JSONObject;
+import utec.Application;
+import utec.server.ExecutorMode;
+import utec.server.ServerConfig;
+import utec.services.ServiceRegistry;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Throughput de /flights/search para cada modo de executor, variando el número de hilos.
+ * No corre con surefire; ejecutar a mano:
+ * java -cp target/classes:target/test-classes:... utec.bench.ServerThroughputBenchmark [segundos] [clientes]
+ */
+public class ServerThroughputBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        ServiceRegistry.clearAll();
+        for (int i = 0; i < 2_000; i++) {
+            ServiceRegistry.FLIGHT.createFlight(new JSONObject()
+                    .put("airlineName", "Airline " + (i % 50))
+                    .put("flightNumber", String.format("AB%04d", i))
+                    .put("estDepartureTime", "2030-01-01T10:00:00Z")
+                    .put("estArrivalTime", "2030-01-01T12:00:00Z")
+                    .put("availableSeats", 100));
+        }
+
+        System.out.printf("mode            threads   req/s%n");
+        for (ExecutorMode mode : ExecutorMode.values()) {
+            List<Integer> threadCounts = new ArrayList<>();
+            if (mode == ExecutorMode.DISPATCHER || mode == ExecutorMode.VIRTUAL) {
+                threadCounts.add(cores);
+            } else {
+                for (int t = 1; t <= cores; t *= 2) threadCounts.add(t);
+            }
+            for (int threads : threadCounts) {
+                double rps = run(new ServerConfig(0, 1024, mode, threads, 10_000), seconds, clients);
+                System.out.printf("%-15s %7d %9.0f%n", mode, threads, rps);
+            }
+        }
+    }
+
+    private static double run(ServerConfig config, int seconds, int clients) throws Exception {
+        HttpServer server = Application.start(config);
+        URI uri = URI.create("http://localhost:" + server.getAddress().getPort() + "/flights/search?airlineName=Airline%201");
+        LongAdder done = new LongAdder();
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+
+        try (HttpClient client = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+             var pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
+            for (int c = 0; c < clients; c++) {
+                pool.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        client.send(request, HttpResponse.BodyHandlers.discarding());
+                        done.increment();
+                    }
+                    return null;
+                });
+            }
+        } finally {
+            Application.stop(server);
+        }
+        return done.sum() / (double) seconds;
+    }
+}
@@ -0,0 +1,72 @@
+package utec.bench;
+
+import org.json.JSONObject;
+import utec.dtos.FlightDTO;
+import utec.dtos.UserDTO;
+import utec.persistence.WriteAheadLog;
+import utec.repository.ShardedRepositories;
+import utec.services.BookingService;
+import utec.services.FlightService;
+import utec.services.SeatInventory;
+import utec.services.UserService;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Reservas/s en memoria (sin log) repartidas entre varios vuelos, con los repositorios en un
+ * solo shard (un lock global) y con 64 shards. Cada reserva bloquea el shard del vuelo y el
+ * de la reserva; con un shard todas compiten por el mismo lock.
+ * Uso: utec.bench.ShardedRepositoryBenchmark [reservas] [hilos] [vuelos]
+ */
+public class ShardedRepositoryBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int bookings = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int flightCount = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+
+        for (int round = 0; round < 2; round++) {
+            for (int shards : new int[]{1, 64}) {
+                run(shards, bookings, threads, flightCount);
+            }
+        }
+    }
+
+    private static void run(int shards, int bookings, int threads, int flightCount) throws Exception {
+        SeatInventory seats = new SeatInventory();
+        UserService users = new UserService();
+        FlightService flights = new FlightService(seats, new ShardedRepositories(shards), WriteAheadLog.disabled());
+        BookingService service = new BookingService(flights, users, seats);
+
+        UserDTO user = users.registerUser(new JSONObject()
+                .put("firstName", "Bench").put("lastName", "User")
+                .put("email", "bench@example.com").put("password", "Password1"));
+        FlightDTO[] catalog = new FlightDTO[flightCount];
+        for (int f = 0; f < flightCount; f++) {
+            catalog[f] = flights.createFlight(new JSONObject()
+                    .put("airlineName", "Bench Air").put("flightNumber", String.format("BA%03d", f))
+                    .put("estDepartureTime", "2030-01-01T10:00:00Z")
+                    .put("estArrivalTime", "2030-01-01T12:00:00Z")
+                    .put("availableSeats", bookings));
+        }
+
+        LongAdder done = new LongAdder();
+        long t0 = System.nanoTime();
+        try (var pool = Executors.newFixedThreadPool(threads)) {
+            int perThread = bookings / threads;
+            for (int t = 0; t < threads; t++) {
+                int offset = t;
+                pool.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        service.createBooking(catalog[(offset + i) % catalog.length].id, user.id);
+                        done.increment();
+                    }
+                    return null;
+                });
+            }
+        }
+        double seconds = (System.nanoTime() - t0) / 1e9;
+        System.out.printf("%3d shards %,12.0f bookings/s (%d bookings)%n", shards, done.sum() / seconds, done.sum());
+    }
+}
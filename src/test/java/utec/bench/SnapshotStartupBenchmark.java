@@ -0,0 +1,123 @@
+package utec.bench;
+
+import org.json.JSONObject;
+import utec.dtos.FlightDTO;
+import utec.dtos.UserDTO;
+import utec.persistence.PersistenceManager;
+import utec.persistence.SnapshotStore;
+import utec.persistence.WriteAheadLog;
+import utec.services.BookingService;
+import utec.services.FlightService;
+import utec.services.SeatInventory;
+import utec.services.UserService;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.IntStream;
+
+/**
+ * Tiempo de arranque (hasta poder atender requests) con solo el log vs. snapshot + log.
+ * Las entidades se reparten 20% usuarios, 50% vuelos y 30% reservas.
+ * Uso: utec.bench.SnapshotStartupBenchmark [n1 n2 ...]   (para 10^7 hace falta -Xmx grande)
+ */
+public class SnapshotStartupBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int[] sizes = args.length > 0
+                ? java.util.Arrays.stream(args).mapToInt(Integer::parseInt).toArray()
+                : new int[]{100_000, 1_000_000};
+
+        for (int n : sizes) {
+            Path dir = Files.createTempDirectory("snapshot-bench");
+            Path walPath = dir.resolve("wal.log");
+            Path snapshotPath = dir.resolve("state.snapshot");
+
+            try (WriteAheadLog wal = new WriteAheadLog(walPath, WriteAheadLog.FsyncPolicy.NONE, 10)) {
+                wal.open();
+                populate(wal, n);
+            }
+
+            long replayOnly = timeRecover(walPath, null);
+
+            // Snapshot del mismo estado y log vacío
+            try (WriteAheadLog wal = new WriteAheadLog(walPath, WriteAheadLog.FsyncPolicy.NONE, 10)) {
+                Services s = new Services(wal);
+                PersistenceManager pm = new PersistenceManager(wal, new SnapshotStore(snapshotPath),
+                        s.users, s.flights, s.bookings);
+                pm.recover();
+                long t0 = System.nanoTime();
+                pm.snapshot();
+                System.out.printf("n=%,d snapshot written in %d ms (%,d bytes)%n",
+                        n, (System.nanoTime() - t0) / 1_000_000, Files.size(snapshotPath));
+            }
+
+            long withSnapshot = timeRecover(walPath, snapshotPath);
+            System.out.printf("n=%,d startup: log replay %d ms, snapshot %d ms%n", n, replayOnly, withSnapshot);
+        }
+    }
+
+    private static long timeRecover(Path walPath, Path snapshotPath) throws Exception {
+        System.gc();
+        try (WriteAheadLog wal = new WriteAheadLog(walPath, WriteAheadLog.FsyncPolicy.NONE, 10)) {
+            Services s = new Services(wal);
+            PersistenceManager pm = new PersistenceManager(wal,
+                    snapshotPath != null ? new SnapshotStore(snapshotPath) : null, s.users, s.flights, s.bookings);
+            long t0 = System.nanoTime();
+            pm.recover();
+            return (System.nanoTime() - t0) / 1_000_000;
+        }
+    }
+
+    private static void populate(WriteAheadLog wal, int n) {
+        Services s = new Services(wal);
+        int userCount = n / 5;
+        int flightCount = n / 2;
+        int bookingCount = n - userCount - flightCount;
+
+        UserDTO[] users = new UserDTO[userCount];
+        IntStream.range(0, userCount).parallel().forEach(i -> {
+            try {
+                users[i] = s.users.registerUser(new JSONObject()
+                        .put("firstName", "First" + i).put("lastName", "Last" + i)
+                        .put("email", "user" + i + "@example.com").put("password", "Password1"));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        FlightDTO[] flights = new FlightDTO[flightCount];
+        IntStream.range(0, flightCount).parallel().forEach(i -> {
+            try {
+                flights[i] = s.flights.createFlight(new JSONObject()
+                        .put("airlineName", "Airline " + (i % 300))
+                        .put("flightNumber", String.format("F%08d", i))
+                        .put("estDepartureTime", "2030-01-01T10:00:00Z")
+                        .put("estArrivalTime", "2030-01-01T12:00:00Z")
+                        .put("availableSeats", 100));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        IntStream.range(0, bookingCount).parallel().forEach(i -> {
+            try {
+                s.bookings.createBooking(flights[i % flightCount].id, users[i % userCount].id);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    private static final class Services {
+        final UserService users;
+        final FlightService flights;
+        final BookingService bookings;
+
+        Services(WriteAheadLog wal) {
+            SeatInventory seats = new SeatInventory();
+            users = new UserService(wal);
+            flights = new FlightService(seats, wal);
+            bookings = new BookingService(flights, users, seats, wal);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package utec.controllers;
+
+import com.sun.net.httpserver.HttpServer;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import utec.Application;
+import utec.dto.LoginDTO;
+import utec.dto.NewFlightRequestDTO;
+import utec.dto.RegisterUserDTO;
+import utec.server.ExecutorMode;
+import utec.server.ServerConfig;
+import utec.services.ServiceRegistry;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BookingControllerTest {
+    private static HttpServer server;
+    private static final HttpClient client = HttpClient.newHttpClient();
+    private String token;
+    private String flightId;
+
+    @BeforeAll
+    static void start() throws Exception {
+        server = Application.start(new ServerConfig(0, 0, ExecutorMode.VIRTUAL, 2, 100));
+    }
+
+    @AfterAll
+    static void stop() {
+        server.stop(0);
+    }
+
+    @BeforeEach
+    void seed() throws Exception {
+        ServiceRegistry.clearAll();
+        RegisterUserDTO user = new RegisterUserDTO();
+        user.firstName = "Ana";
+        user.lastName = "Pérez";
+        user.email = "ana@example.com";
+        user.password = "secret";
+        ServiceRegistry.USER.registerUser(user);
+        LoginDTO login = new LoginDTO();
+        login.email = user.email;
+        login.password = user.password;
+        token = ServiceRegistry.AUTH.login(login);
+
+        NewFlightRequestDTO flight = new NewFlightRequestDTO();
+        flight.airlineName = "Andes";
+        flight.flightNumber = "AA123";
+        flight.estDepartureTime = "2030-01-01T10:00:00Z";
+        flight.estArrivalTime = "2030-01-01T12:00:00Z";
+        flight.availableSeats = 10;
+        flightId = ServiceRegistry.FLIGHT.createFlight(flight).id;
+    }
+
+    @Test
+    void bookManyRejectsNonIntegerSeats() throws Exception {
+        for (String seats : new String[]{"\"abc\"", "1.5", "true", "{}", "[1]"}) {
+            HttpResponse<String> response = bookMany("{\"items\":[{\"flightId\":\"" + flightId + "\",\"seats\":" + seats + "}]}");
+            assertEquals(400, response.statusCode(), seats);
+        }
+        assertEquals(10, ServiceRegistry.SEATS.available(flightId));
+    }
+
+    @Test
+    void bookManyReservesTheRequestedSeats() throws Exception {
+        HttpResponse<String> response = bookMany("{\"mode\":\"best_effort\",\"items\":[" +
+                "{\"flightId\":\"" + flightId + "\",\"seats\":\"2\"}," +
+                "{\"flightId\":\"" + flightId + "\"}," +
+                "{\"flightId\":\"missing\",\"seats\":1}]}");
+
+        assertEquals(200, response.statusCode(), response.body());
+        JSONObject body = new JSONObject(response.body());
+        assertEquals(3, body.getJSONArray("bookings").length());
+        assertEquals("missing", body.getJSONArray("failures").getJSONObject(0).getString("flightId"));
+        assertEquals(1, body.getJSONArray("failures").getJSONObject(0).getInt("seats"));
+        assertEquals(flightId, body.getJSONArray("bookings").getJSONObject(0).getString("flightId"));
+        assertEquals(36, body.getString("confirmationId").length());
+        assertEquals(7, ServiceRegistry.SEATS.available(flightId));
+    }
+
+    @Test
+    void bookManyListsTheFailuresWhenNothingIsBooked() throws Exception {
+        HttpResponse<String> response = bookMany("{\"mode\":\"best_effort\",\"items\":[" +
+                "{\"flightId\":\"" + flightId + "\",\"seats\":11}," +
+                "{\"flightId\":\"missing\",\"seats\":2}]}");
+
+        assertEquals(400, response.statusCode(), response.body());
+        JSONObject body = new JSONObject(response.body());
+        assertEquals("No seats available", body.getString("error"));
+        assertEquals(2, body.getJSONArray("failures").length());
+        JSONObject missing = body.getJSONArray("failures").getJSONObject(1);
+        assertEquals("missing", missing.getString("flightId"));
+        assertEquals(2, missing.getInt("seats"));
+        assertEquals(10, ServiceRegistry.SEATS.available(flightId));
+    }
+
+    @Test
+    void bookManyValidatesTheRequest() throws Exception {
+        assertEquals(400, bookMany("").statusCode());
+        assertEquals(400, bookMany("{\"items\":[]}").statusCode());
+        assertEquals(400, bookMany("{\"mode\":\"SOME\",\"items\":[{\"flightId\":\"x\"}]}").statusCode());
+        assertEquals(400, bookMany("{\"items\":[{\"seats\":1}]}").statusCode());
+        assertEquals(400, bookMany("{\"items\":[{\"flightId\":\"" + flightId + "\",\"seats\":0}]}").statusCode());
+        assertEquals(400, bookMany("{\"items\":[{\"flightId\":\"" + flightId + "\",\"seats\":1001}]}").statusCode());
+        assertEquals(400, bookMany("{\"items\":[").statusCode());
+        assertEquals(400, bookMany("{\"x\":" + "[".repeat(100) + "]".repeat(100) + "}").statusCode());
+    }
+
+    private HttpResponse<String> bookMany(String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(
+                        URI.create("http://localhost:" + server.getAddress().getPort() + "/flights/book-many"))
+                .header("Authorization", "Bearer " + token)
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
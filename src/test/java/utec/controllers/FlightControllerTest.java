@@ -0,0 +1,276 @@
+package utec.controllers;
+
+import com.sun.net.httpserver.HttpServer;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import utec.Application;
+import utec.dto.NewFlightRequestDTO;
+import utec.server.ExecutorMode;
+import utec.server.ServerConfig;
+import utec.services.ServiceRegistry;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FlightControllerTest {
+    private static HttpServer server;
+    private static final HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeAll
+    static void start() throws Exception {
+        server = Application.start(new ServerConfig(0, 0, ExecutorMode.VIRTUAL, 2, 100));
+    }
+
+    @AfterAll
+    static void stop() {
+        server.stop(0);
+    }
+
+    @BeforeEach
+    void seed() throws Exception {
+        ServiceRegistry.clearAll();
+        for (int i = 0; i < 25; i++) {
+            ServiceRegistry.FLIGHT.createFlight(flight(String.format("AA%03d", i * 10), "Andes"));
+        }
+    }
+
+    @Test
+    void pagesFollowTheCursorUntilTheEnd() throws Exception {
+        List<String> numbers = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            JSONObject page = search("flightNumber=AA&limit=10" + (cursor != null ? "&cursor=" + cursor : ""));
+            JSONArray items = page.getJSONArray("items");
+            assertTrue(items.length() <= 10);
+            for (int i = 0; i < items.length(); i++) numbers.add(items.getJSONObject(i).getString("flightNumber"));
+            cursor = page.optString("nextCursor", null);
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(3, pages);
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 25; i++) expected.add(String.format("AA%03d", i * 10));
+        assertEquals(expected, numbers);
+    }
+
+    @Test
+    void cursorStaysStableWhileFlightsAreAdded() throws Exception {
+        JSONObject first = search("flightNumber=AA&limit=10");
+        String cursor = first.getString("nextCursor");
+        assertEquals("AA090", last(first));
+
+        // Altas antes y después del cursor entre una página y la siguiente
+        ServiceRegistry.FLIGHT.createFlight(flight("AA005", "Andes"));
+        ServiceRegistry.FLIGHT.createFlight(flight("AA095", "Andes"));
+        ServiceRegistry.FLIGHT.createFlight(flight("AA999", "Andes"));
+
+        JSONObject second = search("flightNumber=AA&limit=10&cursor=" + cursor);
+        JSONArray items = second.getJSONArray("items");
+        // Lo anterior al cursor no se repite; lo nuevo posterior aparece en orden
+        assertEquals("AA095", items.getJSONObject(0).getString("flightNumber"));
+        assertEquals("AA100", items.getJSONObject(1).getString("flightNumber"));
+        assertEquals(10, items.length());
+
+        // El mismo cursor vuelve a dar la misma página mientras no haya altas
+        assertEquals(second.toString(), search("flightNumber=AA&limit=10&cursor=" + cursor).toString());
+
+        JSONObject third = search("flightNumber=AA&limit=10&cursor=" + second.getString("nextCursor"));
+        assertEquals("AA999", last(third));
+        assertTrue(third.isNull("nextCursor"));
+    }
+
+    @Test
+    void rejectsInvalidCursors() throws Exception {
+        for (String cursor : new String[]{"!!!", "a", "%25%25"}) {
+            HttpResponse<String> response = get("/flights/search?flightNumber=AA&limit=10&cursor=" + cursor);
+            assertEquals(400, response.statusCode(), cursor);
+            assertEquals("Invalid cursor", new JSONObject(response.body()).getString("error"));
+        }
+        // Los valores se decodifican una sola vez: un nombre con & no corta el query
+        ServiceRegistry.FLIGHT.createFlight(flight("BB100", "Sol & Mar"));
+        JSONArray items = search("airlineName=Sol%20%26%20Mar").getJSONArray("items");
+        assertEquals(1, items.length());
+        assertEquals("BB100", items.getJSONObject(0).getString("flightNumber"));
+
+        // Un cursor vacío es la primera página
+        assertEquals("AA000", search("flightNumber=AA&limit=1&cursor=").getJSONArray("items")
+                .getJSONObject(0).getString("flightNumber"));
+    }
+
+    @Test
+    void limitMustBeBetweenOneAndTheMaximumPage() throws Exception {
+        for (String limit : new String[]{"0", "-1", "1001", "abc", "99999999999"}) {
+            HttpResponse<String> response = get("/flights/search?flightNumber=AA&limit=" + limit);
+            assertEquals(400, response.statusCode(), limit);
+            assertEquals("Invalid limit", new JSONObject(response.body()).getString("error"));
+        }
+        assertEquals(1, search("flightNumber=AA&limit=1").getJSONArray("items").length());
+
+        JSONObject max = search("flightNumber=AA&limit=1000");
+        assertEquals(25, max.getJSONArray("items").length());
+        assertTrue(max.isNull("nextCursor"));
+
+        // Sin limit vienen todos los resultados
+        assertEquals(25, search("flightNumber=AA").getJSONArray("items").length());
+    }
+
+    @Test
+    void createManyReportsEveryInvalidFlightWithItsIndex() throws Exception {
+        String existingId = ServiceRegistry.FLIGHT.findByFlightNumber("AA010").id;
+        HttpResponse<String> response = post("/flights/create-many", inputs(
+                input("BB100", 10), input("AA010", 10), input("BB100", 10), input("bad", 10),
+                input("BB200", 0), input("BB300", 5), input("BB300", 5)));
+
+        assertEquals(400, response.statusCode(), response.body());
+        JSONObject body = new JSONObject(response.body());
+        assertEquals("Invalid flights", body.getString("error"));
+        JSONArray errors = body.getJSONArray("errors");
+        assertEquals(5, errors.length());
+        assertError(errors.getJSONObject(0), 1, "Flight already exists");
+        assertEquals(existingId, errors.getJSONObject(0).getString("id"));
+        // El primero de cada número repetido es válido; se marcan los siguientes
+        assertError(errors.getJSONObject(1), 2, "Duplicate flight number in batch");
+        assertError(errors.getJSONObject(2), 3, "Invalid flight number format");
+        assertError(errors.getJSONObject(3), 4, "Available seats must be greater than zero");
+        assertError(errors.getJSONObject(4), 6, "Duplicate flight number in batch");
+
+        // Todo o nada: ni los válidos del lote se crearon
+        assertNull(ServiceRegistry.FLIGHT.findByFlightNumber("BB100"));
+        assertNull(ServiceRegistry.FLIGHT.findByFlightNumber("BB300"));
+        assertEquals(25, ServiceRegistry.FLIGHT.getAllFlights().size());
+    }
+
+    @Test
+    void createManyCreatesTheWholeBatch() throws Exception {
+        HttpResponse<String> response = post("/flights/create-many", inputs(
+                input("BB100", 10), input("BB200", 20), input("BB300", 30)));
+
+        assertEquals(201, response.statusCode(), response.body());
+        JSONArray ids = new JSONObject(response.body()).getJSONArray("ids");
+        assertEquals(3, ids.length());
+        assertEquals(ids.getString(1), ServiceRegistry.FLIGHT.findByFlightNumber("BB200").id);
+        assertEquals(30, ServiceRegistry.SEATS.available(ids.getString(2)));
+        assertEquals(3, search("flightNumber=BB").getJSONArray("items").length());
+
+        assertEquals(400, post("/flights/create-many", "{\"inputs\":[]}").statusCode());
+        assertEquals(400, post("/flights/create-many", "{\"inputs\":").statusCode());
+    }
+
+    @Test
+    void airlinesListsEachAirlineWithItsFlightCount() throws Exception {
+        ServiceRegistry.FLIGHT.createFlight(flight("SK100", "Sky"));
+        // Misma aerolínea con otra grafía: cuenta para la primera que se vio
+        ServiceRegistry.FLIGHT.createFlight(flight("AA995", "ANDES"));
+        ServiceRegistry.FLIGHT.createFlight(flight("BB100", "aerolíneas del sur"));
+
+        HttpResponse<String> response = get("/flights/airlines");
+        assertEquals(200, response.statusCode(), response.body());
+        JSONArray items = new JSONObject(response.body()).getJSONArray("items");
+        assertEquals(3, items.length());
+        assertAirline(items.getJSONObject(0), "aerolíneas del sur", 1);
+        assertAirline(items.getJSONObject(1), "Andes", 26);
+        assertAirline(items.getJSONObject(2), "Sky", 1);
+
+        // Sin altas la lista no cambia; una alta la invalida
+        String etag = response.headers().firstValue("ETag").orElseThrow();
+        assertEquals(304, get("/flights/airlines", etag).statusCode());
+        ServiceRegistry.FLIGHT.createFlight(flight("SK200", "Sky"));
+        response = get("/flights/airlines", etag);
+        assertEquals(200, response.statusCode());
+        assertAirline(new JSONObject(response.body()).getJSONArray("items").getJSONObject(2), "Sky", 2);
+
+        ServiceRegistry.clearAll();
+        assertEquals(0, new JSONObject(get("/flights/airlines").body()).getJSONArray("items").length());
+    }
+
+    @Test
+    void exactNumberSearchIgnoresCaseAndFiltersByAirline() throws Exception {
+        ServiceRegistry.FLIGHT.createFlight(flight("SK100", "Sky"));
+
+        assertEquals("AA120", last(search("flightNumber=aa120")));
+        assertEquals("AA120", last(search("flightNumber=AA120&airlineName=nde")));
+        assertEquals(0, search("flightNumber=AA120&airlineName=sky").getJSONArray("items").length());
+        assertEquals("SK100", last(search("flightNumber=sK100&airlineName=SKY")));
+        assertEquals(0, search("flightNumber=SK100&airlineName=nueva").getJSONArray("items").length());
+        // Una aerolínea buscada que no existe no se crea
+        assertEquals(2, ServiceRegistry.FLIGHT.getAirlines().size());
+    }
+
+    private static void assertAirline(JSONObject airline, String name, long flights) {
+        assertEquals(name, airline.getString("name"));
+        assertEquals(flights, airline.getLong("flights"));
+    }
+
+    private static void assertError(JSONObject error, int index, String message) {
+        assertEquals(index, error.getInt("index"));
+        assertEquals(message, error.getString("error"));
+    }
+
+    private static String inputs(JSONObject... inputs) {
+        return new JSONObject().put("inputs", new JSONArray(inputs)).toString();
+    }
+
+    private static JSONObject input(String number, int seats) {
+        return new JSONObject()
+                .put("airlineName", "Sky")
+                .put("flightNumber", number)
+                .put("estDepartureTime", "2030-01-01T10:00:00Z")
+                .put("estArrivalTime", "2030-01-01T12:00:00Z")
+                .put("availableSeats", seats);
+    }
+
+    private static HttpResponse<String> post(String path, String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.getAddress().getPort() + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body)).build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static String last(JSONObject page) {
+        JSONArray items = page.getJSONArray("items");
+        return items.getJSONObject(items.length() - 1).getString("flightNumber");
+    }
+
+    private static JSONObject search(String query) throws Exception {
+        HttpResponse<String> response = get("/flights/search?" + query);
+        assertEquals(200, response.statusCode(), response.body());
+        JSONObject body = new JSONObject(response.body());
+        assertNotNull(body.optJSONArray("items"));
+        return body;
+    }
+
+    private static HttpResponse<String> get(String path) throws Exception {
+        return get(path, null);
+    }
+
+    private static HttpResponse<String> get(String path, String ifNoneMatch) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(
+                URI.create("http://localhost:" + server.getAddress().getPort() + path)).GET();
+        if (ifNoneMatch != null) request.header("If-None-Match", ifNoneMatch);
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    static NewFlightRequestDTO flight(String number, String airline) {
+        NewFlightRequestDTO flight = new NewFlightRequestDTO();
+        flight.airlineName = airline;
+        flight.flightNumber = number;
+        flight.estDepartureTime = "2030-01-01T10:00:00Z";
+        flight.estArrivalTime = "2030-01-01T12:00:00Z";
+        flight.availableSeats = 10;
+        return flight;
+    }
+}
@@ -0,0 +1,93 @@
+package utec.json;
+
+import org.junit.jupiter.api.Test;
+import utec.dto.NewFlightRequestDTO;
+import utec.dto.RegisterUserDTO;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JsonReaderTest {
+
+    @Test
+    void readsDtosIgnoringUnknownFields() throws IOException {
+        RegisterUserDTO user = DtoCodec.readRegisterUser(stream(
+                "{\"firstName\":\"Ana\",\"extra\":{\"a\":[1,2,{\"b\":null}]},\"lastName\":\"P\\u00e9rez\"," +
+                        "\"email\":\"ana@example.com\",\"password\":12}"));
+        assertEquals("Ana", user.firstName);
+        assertEquals("Pérez", user.lastName);
+        assertEquals("ana@example.com", user.email);
+        assertEquals("12", user.password);
+
+        NewFlightRequestDTO flight = DtoCodec.readNewFlight(stream("{\"availableSeats\":\"42\",\"flightNumber\":null}"));
+        assertEquals(42, flight.availableSeats);
+        assertNull(flight.flightNumber);
+
+        List<NewFlightRequestDTO> flights = DtoCodec.readNewFlights(stream("{\"inputs\":[{\"availableSeats\":1},{}]}"));
+        assertEquals(2, flights.size());
+        assertNull(DtoCodec.readLogin(stream("  \n")));
+    }
+
+    @Test
+    void rejectsMalformedDocuments() {
+        for (String json : new String[]{"{", "{\"email\":}", "{\"email\":\"a\",}", "{\"email\":\"a\"} x",
+                "[]", "{\"email\":\"\\x\"}", "{\"email\":\"a\u0001\"}", "{\"availableSeats\":\"abc\"}",
+                "{\"availableSeats\":99999999999}"}) {
+            assertThrows(MalformedJsonException.class, () -> DtoCodec.readNewFlight(stream(json)), json);
+        }
+    }
+
+    @Test
+    void deepNestingIsMalformedJson() throws IOException {
+        String deep = "{\"x\":" + "[".repeat(100) + "]".repeat(100) + "}";
+        MalformedJsonException e = assertThrows(MalformedJsonException.class,
+                () -> DtoCodec.readRegisterUser(stream(deep)));
+        assertEquals("JSON nesting too deep", e.getMessage());
+
+        String allowed = "{\"x\":" + "[".repeat(60) + "]".repeat(60) + ",\"firstName\":\"Ana\"}";
+        assertEquals("Ana", DtoCodec.readRegisterUser(stream(allowed)).firstName);
+    }
+
+    @Test
+    void decodesSurrogatePairsSplitAcrossReads() throws IOException {
+        String json = "{\"firstName\":\"a\\uD83D\\uDE00b\"}";
+        // Cada tamaño de lectura corta el par en otro lugar
+        for (int chunk = 1; chunk <= json.length(); chunk++) {
+            assertEquals("a\uD83D\uDE00b", DtoCodec.readRegisterUser(chunked(json, chunk)).firstName, "chunk " + chunk);
+        }
+
+        // El par justo en el borde del buffer de 8 KiB
+        for (int shift = 0; shift < 12; shift++) {
+            String padded = "{\"lastName\":\"" + "x".repeat(8192 - 13 - 6 - 3 + shift) + "\",\"firstName\":\"\\uD83D\\uDE00\"}";
+            assertEquals("\uD83D\uDE00", DtoCodec.readRegisterUser(stream(padded)).firstName, "shift " + shift);
+        }
+    }
+
+    @Test
+    void replacesLoneSurrogates() throws IOException {
+        assertEquals("?\n", DtoCodec.readRegisterUser(stream("{\"firstName\":\"\\uD83D\\n\"}")).firstName);
+        assertEquals("?A", DtoCodec.readRegisterUser(stream("{\"firstName\":\"\\uD83D\\u0041\"}")).firstName);
+        assertEquals("?x", DtoCodec.readRegisterUser(stream("{\"firstName\":\"\\uDE00x\"}")).firstName);
+    }
+
+    private static InputStream stream(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Entrega a lo sumo chunk bytes por lectura
+    private static InputStream chunked(String json, int chunk) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, chunk));
+            }
+        };
+    }
+}
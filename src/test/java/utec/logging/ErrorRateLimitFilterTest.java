@@ -0,0 +1,86 @@
+package utec.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ErrorRateLimitFilterTest {
+    private final LoggerContext context = new LoggerContext();
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+    private final ErrorRateLimitFilter filter = new ErrorRateLimitFilter();
+
+    @BeforeEach
+    void setUp() {
+        filter.setContext(context);
+        filter.setMaxPerInterval(2);
+        filter.setIntervalSeconds(1);
+        filter.start();
+        context.addTurboFilter(filter);
+
+        appender.setContext(context);
+        appender.start();
+        Logger root = context.getLogger(Logger.ROOT_LOGGER_NAME);
+        root.setLevel(Level.DEBUG);
+        root.addAppender(appender);
+    }
+
+    @Test
+    void repeatedWarningsAreLimitedPerLoggerAndFormat() {
+        Logger logger = context.getLogger("utec.test");
+        for (int i = 0; i < 5; i++) {
+            logger.warn("No se pudo reservar {}", i);
+            logger.error("Falla de escritura {}", i);
+            logger.info("Reserva {}", i);
+        }
+        context.getLogger("utec.other").warn("No se pudo reservar {}", 9);
+
+        assertEquals(List.of("No se pudo reservar 0", "Falla de escritura 0", "Reserva 0",
+                "No se pudo reservar 1", "Falla de escritura 1", "Reserva 1",
+                "Reserva 2", "Reserva 3", "Reserva 4", "No se pudo reservar 9"), messages());
+    }
+
+    @Test
+    void theNextIntervalReportsHowManyWereDropped() throws Exception {
+        Logger logger = context.getLogger("utec.test");
+        for (int i = 0; i < 5; i++) logger.warn("No se pudo reservar {}", i);
+        Thread.sleep(1_100);
+        logger.warn("No se pudo reservar {}", 5);
+
+        assertEquals(List.of("No se pudo reservar 0", "No se pudo reservar 1",
+                "Se descartaron 3 eventos repetidos de utec.test: No se pudo reservar {}",
+                "No se pudo reservar 5"), messages());
+        assertEquals(ErrorRateLimitFilter.class.getName(), appender.list.get(2).getLoggerName());
+    }
+
+    @Test
+    void disabledLevelsDoNotCountAndKeysAreBounded() {
+        Logger quiet = context.getLogger("utec.quiet");
+        quiet.setLevel(Level.ERROR);
+        // Los WARN apagados no gastan el cupo ni se informan como descartados
+        for (int i = 0; i < 5; i++) quiet.warn("Apagado {}", i);
+        quiet.setLevel(Level.WARN);
+        quiet.warn("Apagado {}", 5);
+        quiet.warn("Apagado {}", 6);
+
+        // Al llegar al tope de claves se vacía el mapa: los cupos vuelven a empezar
+        filter.setMaxKeys(3);
+        Logger logger = context.getLogger("utec.test");
+        for (int i = 0; i < 3; i++) logger.warn("Uno {}", i);
+        logger.warn("Dos");
+        logger.warn("Uno {}", 3);
+
+        assertEquals(List.of("Apagado 5", "Apagado 6", "Uno 0", "Uno 1", "Dos", "Uno 3"), messages());
+    }
+
+    private List<String> messages() {
+        return appender.list.stream().map(ILoggingEvent::getFormattedMessage).toList();
+    }
+}
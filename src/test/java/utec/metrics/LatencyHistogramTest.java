@@ -0,0 +1,89 @@
+package utec.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+    private static final int LAST = LatencyHistogram.index(Long.MAX_VALUE);
+
+    @Test
+    void smallValuesHaveTheirOwnBucket() {
+        for (int v = 0; v < 32; v++) {
+            assertEquals(v, LatencyHistogram.index(v));
+            assertEquals(v, LatencyHistogram.upperBound(v));
+        }
+        // 32 abre la primera potencia dividida en 32 buckets de ancho 1
+        assertEquals(31, LatencyHistogram.index(31));
+        assertEquals(32, LatencyHistogram.index(32));
+        assertEquals(32, LatencyHistogram.upperBound(32));
+        assertEquals(63, LatencyHistogram.upperBound(LatencyHistogram.index(63)));
+        assertEquals(65, LatencyHistogram.upperBound(LatencyHistogram.index(64)));
+    }
+
+    @Test
+    void everyValueFallsInTheBucketThatCoversIt() {
+        long[] values = new long[200_000];
+        for (int i = 0; i < 100_000; i++) values[i] = i;
+        Random random = new Random(7);
+        for (int i = 100_000; i < values.length; i++) values[i] = random.nextLong(1L << 41);
+
+        for (long v : values) {
+            int i = LatencyHistogram.index(v);
+            assertTrue(LatencyHistogram.upperBound(i) >= v, "upper bound of " + v);
+            assertTrue(i == 0 || LatencyHistogram.upperBound(i - 1) < v, "previous bucket of " + v);
+        }
+        for (int e = 5; e <= 40; e++) {
+            long power = 1L << e;
+            assertEquals(LatencyHistogram.index(power - 1) + 1, LatencyHistogram.index(power), "2^" + e);
+        }
+    }
+
+    @Test
+    void valuesBeyondTheRangeShareTheLastBucket() {
+        long top = (1L << 41) - 1;
+        assertEquals(36 * 32, LatencyHistogram.index(1L << 40));
+        assertEquals((1L << 40) + (1L << 35) - 1, LatencyHistogram.upperBound(36 * 32));
+        assertEquals(LAST, LatencyHistogram.index(top));
+        assertEquals(top, LatencyHistogram.upperBound(LAST));
+        assertEquals(LAST, LatencyHistogram.index(1L << 41));
+        assertEquals(LAST, LatencyHistogram.index(Long.MAX_VALUE));
+
+        // El máximo real acota lo que reporta el último bucket
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1L << 50);
+        histogram.record(-5);
+        assertEquals(top, histogram.snapshot().quantile(1));
+        assertEquals(0, histogram.snapshot().quantile(0.5));
+    }
+
+    @Test
+    void quantilesAreWithinTheBucketWidthOfTheExactValue() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Random random = new Random(42);
+        long[] samples = new long[100_000];
+        for (int i = 0; i < samples.length; i++) {
+            // Log-normal alrededor de 1 ms, con cola larga
+            samples[i] = (long) Math.exp(13.8 + 1.5 * random.nextGaussian());
+            histogram.record(samples[i]);
+        }
+        Arrays.sort(samples);
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(samples.length, snapshot.count());
+        assertEquals(Arrays.stream(samples).sum(), snapshot.sumNanos());
+        for (double q : new double[]{0.01, 0.1, 0.5, 0.9, 0.99, 0.999, 1}) {
+            long exact = samples[(int) Math.ceil(q * samples.length) - 1];
+            long estimate = snapshot.quantile(q);
+            double error = (double) (estimate - exact) / exact;
+            // Nunca por debajo; por encima a lo sumo el ancho relativo de un bucket (1/32, ~3%)
+            assertTrue(error >= 0 && error <= 1.0 / 32, "q=" + q + " exact=" + exact + " estimate=" + estimate);
+        }
+        assertEquals(samples[samples.length - 1], snapshot.quantile(1));
+        assertEquals(0, new LatencyHistogram().snapshot().quantile(0.5));
+    }
+}
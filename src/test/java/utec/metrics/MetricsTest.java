@@ -0,0 +1,118 @@
+package utec.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetricsTest {
+    private static final Pattern SAMPLE = Pattern.compile("[a-z_]+(\\{[a-z_]+=\"[^\"]*\"(,[a-z_]+=\"[^\"]*\")*})? -?[0-9.E-]+");
+
+    @Test
+    void routeCountersAndErrorsByStatus() {
+        RouteMetrics route = Metrics.route("GET /metrics-test/counters");
+        assertSame(route, Metrics.route("GET /metrics-test/counters"));
+        route.completed(route.started(), 200);
+        route.completed(route.started(), 404);
+        route.completed(route.started(), 404);
+        route.completed(route.started(), 999);
+        route.started();
+
+        String text = Metrics.prometheus();
+        String labels = "{route=\"GET /metrics-test/counters\"";
+        assertEquals("5", value(text, "utec_http_requests_total" + labels + "}"));
+        assertEquals("1", value(text, "utec_http_requests_in_flight" + labels + "}"));
+        assertEquals("2", value(text, "utec_http_errors_total" + labels + ",status=\"404\"}"));
+        assertEquals("1", value(text, "utec_http_errors_total" + labels + ",status=\"unknown\"}"));
+        assertFalse(text.contains("utec_http_errors_total" + labels + ",status=\"200\"}"));
+        assertEquals("4", value(text, "utec_http_request_duration_seconds_count" + labels + "}"));
+    }
+
+    @Test
+    void summariesHaveQuantilesSumAndCount() {
+        RouteMetrics route = Metrics.route("GET /metrics-test/summary");
+        for (int i = 1; i <= 1000; i++) route.latency().record(i * 1_000_000L);
+        long t = route.record(Stage.SERVICE, System.nanoTime());
+        route.record(Stage.SERIALIZE, t);
+
+        String text = Metrics.prometheus();
+        String labels = "{route=\"GET /metrics-test/summary\"";
+        String name = "utec_http_request_duration_seconds";
+        double[] expected = {0.5, 0.9, 0.99, 0.999};
+        for (int i = 0; i < expected.length; i++) {
+            double q = Double.parseDouble(value(text, name + labels + ",quantile=\"" + expected[i] + "\"}"));
+            assertTrue(q >= expected[i] && q <= expected[i] * (1 + 1.0 / 32), expected[i] + " -> " + q);
+        }
+        assertEquals(500.5, Double.parseDouble(value(text, name + "_sum" + labels + "}")), 1e-9);
+        assertEquals("1000", value(text, name + "_count" + labels + "}"));
+
+        for (String stage : new String[]{"service", "serialize"}) {
+            String stageLabels = labels + ",stage=\"" + stage + "\"";
+            assertNotNull(value(text, "utec_stage_duration_seconds" + stageLabels + ",quantile=\"0.99\"}"));
+            assertEquals("1", value(text, "utec_stage_duration_seconds_count" + stageLabels + "}"));
+        }
+        assertFalse(text.contains(labels + ",stage=\"json_parse\""), "stages never recorded are omitted");
+    }
+
+    @Test
+    void cachesAndGaugesAreExposed() {
+        CacheMetrics cache = Metrics.cache("metrics-test");
+        cache.hit();
+        cache.hit();
+        cache.miss();
+        cache.entries(12);
+        Metrics.gauge("utec_metrics_test_gauge", "Valor de prueba.", () -> 7);
+        Metrics.gauge("utec_metrics_test_gauge", "Valor de prueba.", () -> 8);
+
+        String text = Metrics.prometheus();
+        assertEquals("2", value(text, "utec_cache_hits_total{cache=\"metrics-test\"}"));
+        assertEquals("1", value(text, "utec_cache_misses_total{cache=\"metrics-test\"}"));
+        assertEquals("12", value(text, "utec_cache_entries{cache=\"metrics-test\"}"));
+        assertEquals("8", value(text, "utec_metrics_test_gauge"));
+        assertTrue(text.contains("# HELP utec_metrics_test_gauge Valor de prueba.\n# TYPE utec_metrics_test_gauge gauge\n"));
+    }
+
+    @Test
+    void everyFamilyIsDeclaredOnceBeforeItsSamples() {
+        Metrics.route("GET /metrics-test/format").completed(Metrics.route("GET /metrics-test/format").started(), 500);
+        Metrics.cache("metrics-test-format").hit();
+
+        Set<String> declared = new HashSet<>();
+        String help = null;
+        for (String line : Metrics.prometheus().split("\n")) {
+            if (line.startsWith("# HELP ")) {
+                help = line.split(" ")[2];
+                assertTrue(declared.add(help), "declared twice: " + help);
+            } else if (line.startsWith("# TYPE ")) {
+                String[] parts = line.split(" ");
+                assertEquals(help, parts[2], "TYPE right after its HELP");
+                assertTrue(Set.of("counter", "gauge", "summary").contains(parts[3]), line);
+            } else {
+                assertTrue(SAMPLE.matcher(line).matches(), line);
+                String series = line.split("[{ ]")[0];
+                assertTrue(declared.contains(series) || declared.contains(series.replaceAll("_(sum|count)$", "")),
+                        "sample before its family: " + line);
+            }
+        }
+        for (String family : new String[]{"utec_http_requests_total", "utec_http_errors_total",
+                "utec_http_requests_in_flight", "utec_http_request_duration_seconds", "utec_stage_duration_seconds",
+                "utec_cache_hits_total", "utec_cache_misses_total", "utec_cache_evictions_total", "utec_cache_entries"}) {
+            assertTrue(declared.contains(family), family);
+        }
+    }
+
+    // Valor de la serie con ese nombre y labels exactos, o null si no está
+    private static String value(String text, String series) {
+        for (String line : text.split("\n")) {
+            if (line.startsWith(series + " ")) return line.substring(series.length() + 1);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,236 @@
+package utec.persistence;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import utec.dto.NewFlightRequestDTO;
+import utec.dto.RegisterUserDTO;
+import utec.dtos.BookingDTO;
+import utec.dtos.FlightDTO;
+import utec.dtos.UserDTO;
+import utec.repository.ShardedRepositories;
+import utec.services.BookingService;
+import utec.services.FlightService;
+import utec.services.SeatInventory;
+import utec.services.UserService;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PersistenceManagerTest {
+    @TempDir
+    Path dir;
+
+    /**
+     * Servicios completos sobre el log de dir, como los arma ServiceRegistry.
+     */
+    private static class Node implements AutoCloseable {
+        final WriteAheadLog wal;
+        final ShardedRepositories repositories = new ShardedRepositories(8);
+        final SeatInventory seats = new SeatInventory(4);
+        final UserService users;
+        final FlightService flights;
+        final BookingService bookings;
+        final PersistenceManager persistence;
+
+        Node(Path dir) throws Exception {
+            this(dir, new WriteAheadLog(dir.resolve("wal.log"), WriteAheadLog.FsyncPolicy.NONE, 10));
+        }
+
+        Node(Path dir, WriteAheadLog wal) throws Exception {
+            this.wal = wal;
+            users = new UserService(repositories, wal);
+            flights = new FlightService(seats, repositories, wal);
+            bookings = new BookingService(flights, users, seats, wal);
+            persistence = new PersistenceManager(wal, new SnapshotStore(dir.resolve("wal.log.snapshot")),
+                    users, flights, bookings);
+            persistence.recover();
+        }
+
+        @Override
+        public void close() {
+            persistence.close();
+        }
+    }
+
+    @Test
+    void replaysUsersFlightsAndBookings() throws Exception {
+        String userId;
+        String flightId;
+        String bookingId;
+        try (Node node = new Node(dir)) {
+            userId = register(node).id;
+            flightId = createFlight(node, "AA123", 10).id;
+            bookingId = node.bookings.createBooking(flightId, userId).id;
+            node.bookings.createBookings(userId, Map.of(flightId, 2), BookingService.BatchMode.ALL_OR_NOTHING);
+        }
+
+        try (Node node = new Node(dir)) {
+            assertNotNull(node.users.getUserById(userId));
+            assertEquals(flightId, node.flights.findByFlightNumber("AA123").id);
+            assertEquals(flightId, node.bookings.getBooking(bookingId).flightId);
+            assertEquals(3, node.bookings.getAllBookings().size());
+            assertEquals(7, node.seats.available(flightId));
+            assertEquals(1, node.flights.searchFlights("AA1", null, null, 20).items().size());
+        }
+    }
+
+    @Test
+    void restoresSnapshotAndLogWrittenAfterIt() throws Exception {
+        String userId;
+        String first;
+        String second;
+        try (Node node = new Node(dir)) {
+            userId = register(node).id;
+            first = createFlight(node, "AA123", 5).id;
+            node.bookings.createBooking(first, userId);
+            node.persistence.snapshot();
+            second = createFlight(node, "BB456", 5).id;
+            node.bookings.createBooking(first, userId);
+            node.bookings.createBooking(second, userId);
+        }
+
+        try (Node node = new Node(dir)) {
+            assertEquals(2, node.flights.getAllFlights().size());
+            assertEquals(3, node.bookings.getAllBookings().size());
+            assertEquals(3, node.seats.available(first));
+            assertEquals(4, node.seats.available(second));
+        }
+    }
+
+    @Test
+    void ignoresEverythingBeforeTheLastClear() throws Exception {
+        String flightId;
+        String userId;
+        try (Node node = new Node(dir)) {
+            userId = register(node).id;
+            flightId = createFlight(node, "AA123", 5).id;
+            node.wal.append(WalRecord.cleared(), () -> node.repositories.clear());
+            // Reserva escrita después del CLEARED sobre un vuelo ya borrado
+            node.wal.append(WalRecord.booking(booking("b1", flightId, userId)), () -> { });
+        }
+
+        try (Node node = new Node(dir)) {
+            assertNull(node.flights.getFlightById(flightId));
+            assertNull(node.bookings.getBooking("b1"));
+            assertEquals(0, node.bookings.getAllBookings().size());
+        }
+    }
+
+    @Test
+    void bookingRejectedAfterItsFlightVanishedIsNotReplayed() throws Exception {
+        Path log = dir.resolve("wal.log");
+        String userId;
+        String flightId;
+        // El vuelo desaparece (clearAll concurrente) entre la validación y la publicación
+        Node[] current = new Node[1];
+        WriteAheadLog racing = new WriteAheadLog(log, WriteAheadLog.FsyncPolicy.NONE, 10) {
+            @Override
+            public void append(WalRecord record, Runnable apply) {
+                super.append(record, record.type() == WalRecord.Type.BOOKING_CREATED ? () -> {
+                    current[0].repositories.clear();
+                    apply.run();
+                } : apply);
+            }
+        };
+        try (Node node = new Node(dir, racing)) {
+            current[0] = node;
+            userId = register(node).id;
+            flightId = createFlight(node, "AA123", 5).id;
+            Exception e = assertThrows(Exception.class, () -> node.bookings.createBooking(flightId, userId));
+            assertEquals("Flight not found", e.getMessage());
+            assertEquals(5, node.seats.available(flightId));
+        }
+
+        try (WriteAheadLog wal = new WriteAheadLog(log, WriteAheadLog.FsyncPolicy.NONE, 10)) {
+            List<WalRecord.Type> types = wal.open().stream().map(WalRecord::type).toList();
+            assertEquals(List.of(WalRecord.Type.USER_REGISTERED, WalRecord.Type.FLIGHT_CREATED,
+                    WalRecord.Type.BOOKING_CREATED, WalRecord.Type.BOOKING_REJECTED), types);
+        }
+        try (Node node = new Node(dir)) {
+            // El vuelo se vuelve a cargar del log; la reserva anulada no
+            assertNotNull(node.flights.getFlightById(flightId));
+            assertEquals(0, node.bookings.getAllBookings().size());
+            assertEquals(5, node.seats.available(flightId));
+        }
+    }
+
+    @Test
+    void moreBookingsThanSeatsLeaveTheFlightSoldOut() throws Exception {
+        String flightId;
+        try (Node node = new Node(dir)) {
+            String userId = register(node).id;
+            flightId = createFlight(node, "AA123", 2).id;
+            List<WalRecord> records = List.of(
+                    WalRecord.booking(booking("b1", flightId, userId)),
+                    WalRecord.booking(booking("b2", flightId, userId)),
+                    WalRecord.booking(booking("b3", flightId, userId)));
+            node.wal.appendAll(records, () -> { });
+        }
+
+        try (Node node = new Node(dir)) {
+            assertEquals(3, node.bookings.getAllBookings().size());
+            assertEquals(0, node.seats.available(flightId));
+        }
+    }
+
+    @Test
+    void replaysFieldsLongerThan64Kb() throws Exception {
+        // Más de 64 KB en UTF-8, con caracteres de 2, 3 y 4 bytes y un \0
+        String airline = "Ñandú ✈ 🛫\0".repeat(5_000);
+        String flightId;
+        try (Node node = new Node(dir)) {
+            NewFlightRequestDTO request = new NewFlightRequestDTO();
+            request.airlineName = airline;
+            request.flightNumber = "AA123";
+            request.estDepartureTime = "2030-01-01T10:00:00Z";
+            request.estArrivalTime = "2030-01-01T12:00:00Z";
+            request.availableSeats = 3;
+            flightId = node.flights.createFlight(request).id;
+            createFlight(node, "BB456", 3);
+        }
+
+        try (Node node = new Node(dir)) {
+            FlightDTO flight = node.flights.findByFlightNumber("AA123");
+            assertEquals(flightId, flight.id);
+            assertEquals(airline, flight.airlineName);
+            assertNotNull(node.flights.findByFlightNumber("BB456"));
+        }
+    }
+
+    private static UserDTO register(Node node) throws Exception {
+        RegisterUserDTO request = new RegisterUserDTO();
+        request.firstName = "Ana";
+        request.lastName = "Pérez";
+        request.email = "ana@example.com";
+        request.password = "secret";
+        return node.users.registerUser(request);
+    }
+
+    private static FlightDTO createFlight(Node node, String number, int seats) throws Exception {
+        NewFlightRequestDTO request = new NewFlightRequestDTO();
+        request.airlineName = "Andes";
+        request.flightNumber = number;
+        request.estDepartureTime = "2030-01-01T10:00:00Z";
+        request.estArrivalTime = "2030-01-01T12:00:00Z";
+        request.availableSeats = seats;
+        return node.flights.createFlight(request);
+    }
+
+    private static BookingDTO booking(String id, String flightId, String userId) {
+        BookingDTO booking = new BookingDTO();
+        booking.id = id;
+        booking.bookingDate = "2030-01-01T00:00:00Z";
+        booking.flightId = flightId;
+        booking.flightNumber = "AA123";
+        booking.customerId = userId;
+        booking.customerFirstName = "Ana";
+        booking.customerLastName = "Pérez";
+        return booking;
+    }
+}
@@ -0,0 +1,182 @@
+package utec.repository;
+
+import org.junit.jupiter.api.Test;
+import utec.dtos.FlightDTO;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShardedRepositoriesTest {
+
+    // Cada implementación del SPI que viene con el proyecto
+    private static List<Repositories> implementations() {
+        return List.of(new ShardedRepositories(1), new ShardedRepositories(8),
+                new ShardedRepositories(8, true));
+    }
+
+    @Test
+    void flightsFollowTheRepositoryContract() {
+        for (Repositories repositories : implementations()) {
+            Repository<FlightDTO> flights = repositories.flights();
+            FlightDTO first = flight(UUID.randomUUID().toString(), "AA100", 1);
+            String id = first.id;
+
+            assertNull(flights.putIfAbsent(id, first));
+            assertEquals("AA100", flights.putIfAbsent(id, flight(id, "BB200", 1)).flightNumber);
+            assertTrue(flights.containsKey(id));
+            assertSameFlight(first, flights.get(id));
+
+            FlightDTO second = flight(id, "AA100", 2);
+            flights.put(id, second);
+            assertEquals(2, flights.get(id).version);
+            assertFalse(flights.remove(id, first), "stale value");
+            FlightDTO renamed = flight(id, "AA100", 2);
+            renamed.airlineName = "Sky";
+            assertFalse(flights.remove(id, renamed), "same version, other fields");
+            assertTrue(flights.containsKey(id));
+
+            // Vuelos con id que no es UUID también se guardan (fuera del heap van aparte)
+            flights.put("legacy-1", flight("legacy-1", "CC300", 1));
+            assertEquals(2, flights.size());
+            assertEquals(Set.of("AA100", "CC300"), numbers(flights.values()));
+
+            assertTrue(flights.remove(id, flights.get(id)));
+            assertNull(flights.get(id));
+            assertEquals(1, flights.size());
+            repositories.clear();
+            assertEquals(0, flights.size());
+            assertFalse(flights.containsKey("legacy-1"));
+        }
+    }
+
+    @Test
+    void indexesFollowTheRepositoryContract() {
+        for (Repositories repositories : implementations()) {
+            Repository<String> emails = repositories.userEmails();
+            for (int i = 0; i < 1000; i++) assertNull(emails.putIfAbsent("user" + i + "@example.com", "id-" + i));
+            assertEquals("id-7", emails.putIfAbsent("user7@example.com", "other"));
+            assertEquals(1000, emails.size());
+            assertEquals(1000, new HashSet<>(emails.values()).size());
+            assertFalse(emails.remove("user7@example.com", "other"));
+            assertTrue(emails.remove("user7@example.com", "id-7"));
+            assertEquals(999, emails.size());
+            emails.clear();
+            assertEquals(List.of(), emails.values());
+        }
+    }
+
+    @Test
+    void concurrentPutIfAbsentHasOneWinnerPerKey() throws Exception {
+        for (Repositories repositories : implementations()) {
+            Repository<FlightDTO> flights = repositories.flights();
+            List<String> ids = new ArrayList<>();
+            for (int i = 0; i < 500; i++) ids.add(UUID.randomUUID().toString());
+            AtomicInteger wins = new AtomicInteger();
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                threads.add(Thread.ofPlatform().start(() -> {
+                    for (String id : ids) {
+                        if (flights.putIfAbsent(id, flight(id, "AA100", 1)) == null) wins.incrementAndGet();
+                    }
+                }));
+            }
+            for (Thread thread : threads) thread.join();
+            assertEquals(ids.size(), wins.get());
+            assertEquals(ids.size(), flights.size());
+        }
+    }
+
+    @Test
+    void atomicallyHoldsOffWritesToItsKeys() throws Exception {
+        for (Repositories repositories : implementations()) {
+            String id = UUID.randomUUID().toString();
+            CountDownLatch inside = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            Thread holder = Thread.ofPlatform().start(() -> repositories.atomically(() -> {
+                inside.countDown();
+                await(release);
+                return null;
+            }, id, "AA100"));
+            assertTrue(inside.await(5, TimeUnit.SECONDS));
+
+            Thread writer = Thread.ofPlatform().start(() -> repositories.flights().put(id, flight(id, "AA100", 1)));
+            Thread clearer = Thread.ofPlatform().start(repositories::clear);
+            writer.join(100);
+            clearer.join(100);
+            assertTrue(writer.isAlive() && clearer.isAlive(), "writes wait for atomically");
+            assertNull(repositories.flights().get(id));
+
+            release.countDown();
+            holder.join();
+            writer.join();
+            clearer.join();
+        }
+    }
+
+    @Test
+    void keysOfAShardSpreadOverTheBucketsOfItsMap() {
+        ShardLocks locks = new ShardLocks(64);
+        int[] perShard = new int[locks.size()];
+        Set<Integer> buckets = new HashSet<>();
+        for (int i = 0; i < 64_000; i++) {
+            String key = UUID.nameUUIDFromBytes(Integer.toString(i).getBytes()).toString();
+            int shard = locks.shard(key);
+            perShard[shard]++;
+            if (shard == 0) {
+                // Bucket en una tabla de 1024 de ConcurrentHashMap (spread del hash)
+                int h = key.hashCode();
+                buckets.add((h ^ (h >>> 16)) & 1023);
+            }
+        }
+        for (int count : perShard) assertTrue(count > 700 && count < 1300, "shard with " + count + " keys");
+        assertTrue(buckets.size() > 500, buckets.size() + " buckets used");
+        assertEquals(0, new ShardLocks(1).shard("any"));
+    }
+
+    private static void assertSameFlight(FlightDTO expected, FlightDTO actual) {
+        assertEquals(expected.id, actual.id);
+        assertEquals(expected.flightNumber, actual.flightNumber);
+        assertEquals(expected.airlineName, actual.airlineName);
+        assertEquals(expected.estDepartureTime, actual.estDepartureTime);
+        assertEquals(expected.estArrivalTime, actual.estArrivalTime);
+        assertEquals(expected.availableSeats, actual.availableSeats);
+        assertEquals(expected.version, actual.version);
+    }
+
+    private static Set<String> numbers(List<FlightDTO> flights) {
+        Set<String> numbers = new HashSet<>();
+        for (FlightDTO flight : flights) numbers.add(flight.flightNumber);
+        return numbers;
+    }
+
+    private static FlightDTO flight(String id, String number, long version) {
+        FlightDTO flight = new FlightDTO();
+        flight.id = id;
+        flight.flightNumber = number;
+        flight.airlineName = "Andes";
+        flight.estDepartureTime = "2030-01-01T10:00:00Z";
+        flight.estArrivalTime = "2030-01-01T12:00:00Z";
+        flight.availableSeats = 100;
+        flight.version = version;
+        return flight;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package utec.server;
+
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdmissionHandlerTest {
+    private static final long TARGET_NANOS = 20_000_000;
+
+    private HttpServer server;
+
+    @AfterEach
+    void stop() {
+        if (server != null) server.stop(0);
+    }
+
+    @Test
+    void slowRequestBodiesDoNotShrinkTheLimit() throws Exception {
+        ConcurrencyLimit limit = new ConcurrencyLimit(8, 2, 16, TARGET_NANOS);
+        start(new AdmissionHandler(new BodyLimitHandler(exchange -> {
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        }, 1024), null, limit));
+
+        for (int i = 0; i < 5; i++) {
+            // El cliente tarda en mandar el body bastante más que la latencia objetivo
+            assertTrue(post(60).startsWith("HTTP/1.1 200"));
+        }
+        assertEquals(8, limit.limit());
+    }
+
+    @Test
+    void slowHandlersShrinkTheLimit() throws Exception {
+        ConcurrencyLimit limit = new ConcurrencyLimit(8, 2, 16, TARGET_NANOS);
+        start(new AdmissionHandler(exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            try {
+                Thread.sleep(60);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        }, null, limit));
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(post(0).startsWith("HTTP/1.1 204"));
+        }
+        assertTrue(limit.limit() < 8, "limit " + limit.limit());
+    }
+
+    @Test
+    void limitRejectsBeyondItAndRecoversWhenFast() {
+        ConcurrencyLimit limit = new ConcurrencyLimit(4, 2, 5, TARGET_NANOS);
+        for (int i = 0; i < 4; i++) assertTrue(limit.tryAcquire());
+        assertFalse(limit.tryAcquire());
+        assertEquals(4, limit.inFlight());
+
+        // Requests rápidos con el límite en uso lo suben de a uno, hasta el máximo
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < 4; i++) limit.release(1_000);
+            for (int i = 0; i < 4; i++) assertTrue(limit.tryAcquire());
+        }
+        assertEquals(5, limit.limit());
+    }
+
+    @Test
+    void concurrencyIsCappedByDefaultAndZeroTurnsItOff() {
+        AdmissionConfig admission = ServerConfig.from(new String[0]).admission();
+        assertEquals(AdmissionConfig.DEFAULT_MAX_CONCURRENCY, admission.maxConcurrency());
+        assertTrue(admission.maxConcurrency() > 0);
+        assertEquals(64, admission.minConcurrency());
+        assertEquals(AdmissionConfig.DEFAULT, new ServerConfig(0, 0, ExecutorMode.VIRTUAL, 2, 100).admission());
+
+        assertEquals(0, ServerConfig.from(new String[]{"--max-concurrency=0"}).admission().maxConcurrency());
+        assertEquals(1, ServerConfig.from(new String[]{"--max-concurrency=8"}).admission().minConcurrency());
+        assertThrows(IllegalArgumentException.class, () -> ServerConfig.from(new String[]{"--max-concurrency=-1"}));
+    }
+
+    @Test
+    void limitStartingAtTheCapOnlyGoesDownToTheFloor() throws Exception {
+        ConcurrencyLimit limit = new ConcurrencyLimit(16, 4, 16, TARGET_NANOS);
+        // Sin latencia alta se comporta como un tope fijo
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < 16; i++) assertTrue(limit.tryAcquire());
+            assertFalse(limit.tryAcquire());
+            for (int i = 0; i < 16; i++) limit.release(1_000);
+        }
+        assertEquals(16, limit.limit());
+
+        for (int i = 0; i < 30; i++) {
+            Thread.sleep(TARGET_NANOS / 1_000_000 + 1);
+            assertTrue(limit.tryAcquire());
+            limit.release(2 * TARGET_NANOS);
+        }
+        assertEquals(4, limit.limit());
+    }
+
+    @Test
+    void tokenBucketsAllowTheBurstThenAskToWait() {
+        TokenBuckets buckets = new TokenBuckets(1, 3);
+        for (int i = 0; i < 3; i++) assertEquals(0, buckets.tryAcquire("a"));
+        long wait = buckets.tryAcquire("a");
+        assertTrue(wait > 0 && wait <= 1_000_000_000L, "wait " + wait);
+        // Cada cliente tiene su propio balde
+        assertEquals(0, buckets.tryAcquire("b"));
+    }
+
+    private void start(HttpHandler handler) throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", handler);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+    }
+
+    // POST de un body de 10 bytes que se manda bodyDelayMillis después de los headers
+    private String post(long bodyDelayMillis) throws Exception {
+        try (Socket socket = new Socket("127.0.0.1", server.getAddress().getPort())) {
+            OutputStream out = socket.getOutputStream();
+            out.write(("POST / HTTP/1.1\r\nHost: localhost\r\nContent-Length: 10\r\nConnection: close\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            Thread.sleep(bodyDelayMillis);
+            out.write("0123456789".getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            InputStream in = socket.getInputStream();
+            return new String(in.readAllBytes(), StandardCharsets.US_ASCII);
+        }
+    }
+}
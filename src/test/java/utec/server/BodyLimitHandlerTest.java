@@ -0,0 +1,142 @@
+package utec.server;
+
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import utec.json.DtoCodec;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BodyLimitHandlerTest {
+    private static final int LIMIT = 1024;
+    private static final Pattern CONTENT_LENGTH = Pattern.compile("(?i)content-length: (\\d+)");
+
+    private HttpServer server;
+
+    @AfterEach
+    void stop() {
+        if (server != null) server.stop(0);
+    }
+
+    @Test
+    void contentLengthOverTheLimitIsRejectedWithoutReadingIt() throws Exception {
+        AtomicBoolean called = new AtomicBoolean();
+        start(new BodyLimitHandler(exchange -> {
+            called.set(true);
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        }, LIMIT));
+
+        // Se anuncia un body que nunca se manda: la respuesta completa llega igual, sin esperarlo
+        String response = send("Content-Length: " + (LIMIT + 1) + "\r\n", new byte[0]);
+        assertTrue(response.startsWith("HTTP/1.1 413"), response);
+        assertTrue(response.contains("Connection: close"), response);
+        assertTrue(response.endsWith("{\"error\":\"Request body too large\"}"), response);
+        assertFalse(called.get());
+    }
+
+    @Test
+    void chunkedBodyOverTheLimitIsRejectedWhileTheHandlerReadsIt() throws Exception {
+        AtomicBoolean called = new AtomicBoolean();
+        start(new BodyLimitHandler(exchange -> {
+            called.set(true);
+            DtoCodec.readNewFlight(exchange.getRequestBody());
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        }, LIMIT));
+
+        String json = "{\"airlineName\":\"" + "x".repeat(2 * LIMIT) + "\"}";
+        String response = send("Transfer-Encoding: chunked\r\n", chunked(json, 256));
+        assertTrue(response.startsWith("HTTP/1.1 413"), response);
+        assertTrue(response.contains("Connection: close"), response);
+        assertTrue(called.get());
+    }
+
+    @Test
+    void bodiesWithinTheLimitReachTheHandler() throws Exception {
+        start(new BodyLimitHandler(echo(), LIMIT));
+
+        String body = "y".repeat(LIMIT);
+        String response = send("Transfer-Encoding: chunked\r\n", chunked(body, 100));
+        assertTrue(response.startsWith("HTTP/1.1 200"), response);
+        assertTrue(response.endsWith(body), response);
+
+        response = send("Content-Length: " + LIMIT + "\r\n", body.getBytes(StandardCharsets.US_ASCII));
+        assertTrue(response.startsWith("HTTP/1.1 200"), response);
+    }
+
+    @Test
+    void overTheLimitAfterTheResponseStartedClosesTheExchange() throws Exception {
+        start(new BodyLimitHandler(exchange -> {
+            exchange.sendResponseHeaders(200, 0);
+            exchange.getRequestBody().readAllBytes();
+            exchange.getResponseBody().write("unreachable".getBytes(StandardCharsets.US_ASCII));
+            exchange.close();
+        }, LIMIT));
+
+        String response = send("Transfer-Encoding: chunked\r\n", chunked("z".repeat(2 * LIMIT), 512));
+        // Ya no se puede cambiar el status: se corta la respuesta en curso
+        assertTrue(response.startsWith("HTTP/1.1 200"), response);
+        assertFalse(response.contains("unreachable"), response);
+    }
+
+    private static HttpHandler echo() {
+        return exchange -> {
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        };
+    }
+
+    private void start(HttpHandler handler) throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", handler);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+    }
+
+    private static byte[] chunked(String body, int chunkSize) {
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < body.length(); i += chunkSize) {
+            String chunk = body.substring(i, Math.min(body.length(), i + chunkSize));
+            out.append(Integer.toHexString(chunk.length())).append("\r\n").append(chunk).append("\r\n");
+        }
+        return out.append("0\r\n\r\n").toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    // Lee la respuesta hasta su Content-Length, o hasta que el servidor cierre si no lo trae
+    private String send(String headers, byte[] body) throws Exception {
+        try (Socket socket = new Socket("127.0.0.1", server.getAddress().getPort())) {
+            socket.setSoTimeout(5_000);
+            OutputStream out = socket.getOutputStream();
+            out.write(("POST / HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n" + headers + "\r\n")
+                    .getBytes(StandardCharsets.US_ASCII));
+            out.write(body);
+            out.flush();
+
+            InputStream in = socket.getInputStream();
+            StringBuilder head = new StringBuilder();
+            while (head.indexOf("\r\n\r\n") < 0) {
+                int b = in.read();
+                if (b < 0) return head.toString();
+                head.append((char) b);
+            }
+            Matcher length = CONTENT_LENGTH.matcher(head);
+            byte[] content = length.find() ? in.readNBytes(Integer.parseInt(length.group(1))) : in.readAllBytes();
+            return head + new String(content, StandardCharsets.US_ASCII);
+        }
+    }
+}
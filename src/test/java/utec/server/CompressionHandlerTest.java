@@ -0,0 +1,137 @@
+package utec.server;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompressionHandlerTest {
+    private static final String BIG = "{\"items\":[" + "{\"id\":\"abc\"},".repeat(500) + "{}]}";
+    private static final String SMALL = "{\"id\":\"abc\"}";
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private HttpServer server;
+    private volatile long version = 1;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", new CompressionHandler(exchange -> {
+            if (ETags.notModified(exchange, ETags.of(version))) return;
+            byte[] body = (exchange.getRequestURI().getPath().equals("/small") ? SMALL : BIG)
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        }, 256, 6));
+        server.start();
+    }
+
+    @AfterEach
+    void stop() {
+        server.stop(0);
+    }
+
+    @Test
+    void negotiatesEncoding() {
+        assertEquals(Compressor.Encoding.GZIP, CompressionHandler.negotiate("gzip, deflate"));
+        assertEquals(Compressor.Encoding.DEFLATE, CompressionHandler.negotiate("gzip;q=0.5, deflate"));
+        assertEquals(Compressor.Encoding.DEFLATE, CompressionHandler.negotiate("deflate, gzip;q=0"));
+        assertEquals(Compressor.Encoding.GZIP, CompressionHandler.negotiate("*"));
+        assertNull(CompressionHandler.negotiate("br, *;q=0"));
+        assertNull(CompressionHandler.negotiate("identity"));
+        assertNull(CompressionHandler.negotiate(null));
+    }
+
+    @Test
+    void compressesLargeBodiesAccordingToAcceptEncoding() throws Exception {
+        HttpResponse<byte[]> gzip = get("/", "gzip", null);
+        assertEquals("gzip", gzip.headers().firstValue("Content-Encoding").orElse(null));
+        assertEquals(BIG, new String(new GZIPInputStream(new ByteArrayInputStream(gzip.body())).readAllBytes(),
+                StandardCharsets.UTF_8));
+
+        HttpResponse<byte[]> deflate = get("/", "deflate", null);
+        assertEquals("deflate", deflate.headers().firstValue("Content-Encoding").orElse(null));
+        assertEquals(BIG, inflate(deflate.body()));
+
+        HttpResponse<byte[]> identity = get("/", null, null);
+        assertFalse(identity.headers().firstValue("Content-Encoding").isPresent());
+        assertEquals(BIG, new String(identity.body(), StandardCharsets.UTF_8));
+
+        HttpResponse<byte[]> small = get("/small", "gzip", null);
+        assertFalse(small.headers().firstValue("Content-Encoding").isPresent());
+        assertEquals(SMALL, new String(small.body(), StandardCharsets.UTF_8));
+
+        for (HttpResponse<byte[]> response : List.of(gzip, deflate, identity, small)) {
+            assertEquals("Accept-Encoding", response.headers().firstValue("Vary").orElse(null));
+        }
+    }
+
+    @Test
+    void everyCodingCarriesTheSameWeakETagAndRevalidates() throws Exception {
+        HttpResponse<byte[]> gzip = get("/", "gzip", null);
+        String etag = gzip.headers().firstValue("ETag").orElseThrow();
+        // Débil: gzip, deflate e identity son la misma versión pero no los mismos bytes
+        assertTrue(etag.startsWith("W/\""), etag);
+        assertEquals(etag, get("/", null, null).headers().firstValue("ETag").orElse(null));
+        assertEquals(etag, get("/", "deflate", null).headers().firstValue("ETag").orElse(null));
+
+        HttpResponse<byte[]> notModified = get("/", null, etag);
+        assertEquals(304, notModified.statusCode());
+        assertEquals(0, notModified.body().length);
+        assertEquals("Accept-Encoding", notModified.headers().firstValue("Vary").orElse(null));
+        assertEquals(etag, notModified.headers().firstValue("ETag").orElse(null));
+        assertEquals(304, get("/", "gzip", etag.substring(2)).statusCode());
+
+        version++;
+        HttpResponse<byte[]> changed = get("/", "gzip", etag);
+        assertEquals(200, changed.statusCode());
+        assertFalse(etag.equals(changed.headers().firstValue("ETag").orElse(null)));
+    }
+
+    @Test
+    void matchesIfNoneMatchLists() {
+        String etag = ETags.of(7);
+        String opaque = etag.substring(2);
+        assertTrue(ETags.matches(etag, etag));
+        assertTrue(ETags.matches(opaque, etag));
+        assertTrue(ETags.matches("\"other\", " + etag, etag));
+        assertTrue(ETags.matches("*", etag));
+        assertFalse(ETags.matches("\"other\"", etag));
+        assertFalse(ETags.matches(ETags.of(8), etag));
+        assertFalse(ETags.matches("\"a," + opaque.substring(1) + "\"", etag));
+    }
+
+    private HttpResponse<byte[]> get(String path, String acceptEncoding, String ifNoneMatch) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(
+                URI.create("http://127.0.0.1:" + server.getAddress().getPort() + path));
+        if (acceptEncoding != null) request.header("Accept-Encoding", acceptEncoding);
+        if (ifNoneMatch != null) request.header("If-None-Match", ifNoneMatch);
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private static String inflate(byte[] body) throws IOException {
+        try (InputStream in = new InflaterInputStream(new ByteArrayInputStream(body))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package utec.server;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExecutorModeTest {
+    private HttpServer server;
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void stop() {
+        release.countDown();
+        if (server != null) {
+            server.stop(0);
+            ((ExecutorService) server.getExecutor()).shutdownNow();
+        }
+    }
+
+    @Test
+    void parsesModes() {
+        assertEquals(ExecutorMode.VIRTUAL, ExecutorMode.parse(null));
+        assertEquals(ExecutorMode.POOL, ExecutorMode.parse("fixed"));
+        assertEquals(ExecutorMode.WORK_STEALING, ExecutorMode.parse("work_stealing"));
+    }
+
+    @Test
+    void saturatedPoolAnswers503WithoutBlockingTheDispatcher() throws Exception {
+        CountDownLatch running = new CountDownLatch(1);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", new OverloadHandler(exchange -> {
+            running.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        }));
+        server.setExecutor(ExecutorMode.POOL.create(1, 1));
+        server.start();
+
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder(
+                URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/")).build();
+        // Uno ocupa el único hilo y otro la cola
+        List<CompletableFuture<HttpResponse<String>>> admitted = new ArrayList<>();
+        admitted.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        admitted.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+        waitForQueue(server);
+
+        // Con CallerRunsPolicy estos quedarían bloqueados en el dispatcher hasta liberar el hilo
+        for (int i = 0; i < 3; i++) {
+            HttpResponse<String> rejected = client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                    .get(5, TimeUnit.SECONDS);
+            assertEquals(503, rejected.statusCode());
+            assertEquals("1", rejected.headers().firstValue("Retry-After").orElse(null));
+        }
+
+        release.countDown();
+        for (CompletableFuture<HttpResponse<String>> response : admitted) {
+            assertEquals(204, response.get(5, TimeUnit.SECONDS).statusCode());
+        }
+    }
+
+    private static void waitForQueue(HttpServer server) throws InterruptedException {
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) server.getExecutor();
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (executor.getQueue().isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(1, executor.getQueue().size());
+    }
+}
@@ -0,0 +1,125 @@
+package utec.server;
+
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RouterTest {
+    private final HttpHandler users = exchange -> { };
+    private final HttpHandler register = exchange -> { };
+    private final HttpHandler user = exchange -> { };
+    private final HttpHandler me = exchange -> { };
+    private final HttpHandler booking = exchange -> { };
+    private final Router router = new Router()
+            .add("GET", "/users", users)
+            .add("POST", "/users/register", register)
+            .add("GET", "/users/{id}", user)
+            .add("GET", "/users/me", me)
+            .add("GET", "/flights/book/{id}", booking)
+            .add("DELETE", "/flights/book/{id}", booking);
+
+    private HttpServer server;
+
+    @AfterEach
+    void stop() {
+        if (server != null) server.stop(0);
+    }
+
+    @Test
+    void resolvesLiteralsBeforeParameters() {
+        String[] values = new String[router.maxParams()];
+        assertSame(me, router.find("GET", "/users/me", values).handler());
+        assertSame(user, router.find("GET", "/users/42", values).handler());
+        assertEquals("42", values[0]);
+        assertArrayEquals(new String[]{"id"}, router.find("GET", "/users/42", values).params());
+        // El literal gana aunque no tenga el método: 405, no el parámetro
+        Router.Route postOnly = router.find("GET", "/users/register", values);
+        assertNotNull(postOnly);
+        assertNull(postOnly.handler());
+        assertSame(users, router.find("GET", "/users", values).handler());
+    }
+
+    @Test
+    void unknownPathsAndMethods() {
+        String[] values = new String[router.maxParams()];
+        assertNull(router.find("GET", "/nope", values));
+        assertNull(router.find("GET", "/users/42/extra", values));
+        assertNull(router.find("GET", "/users/", values), "empty parameter");
+        assertNull(router.find("GET", "", values));
+        assertNull(router.find("GET", "users", values));
+
+        Router.Route route = router.find("PUT", "/flights/book/7", values);
+        assertNotNull(route);
+        assertNull(route.handler());
+    }
+
+    @Test
+    void rejectsInvalidRegistrations() {
+        assertThrows(IllegalArgumentException.class, () -> router.add("GET", "users", users));
+        assertThrows(IllegalArgumentException.class, () -> router.add("GET", "/users/{id}", users));
+        assertThrows(IllegalArgumentException.class, () -> router.add("GET", "/users/{userId}/bookings", users));
+    }
+
+    @Test
+    void manyLiteralSiblingsStayReachable() {
+        Router wide = new Router();
+        HttpHandler[] handlers = new HttpHandler[200];
+        for (int i = 0; i < handlers.length; i++) {
+            handlers[i] = exchange -> { };
+            wide.add("GET", "/r" + i + "/x", handlers[i]);
+        }
+        for (int i = 0; i < handlers.length; i++) {
+            assertSame(handlers[i], wide.find("GET", "/r" + i + "/x", new String[0]).handler());
+        }
+        assertNull(wide.find("GET", "/r200/x", new String[0]));
+    }
+
+    @Test
+    void answers404And405AndPassesPathParameters() throws Exception {
+        Router routes = new Router()
+                .add("GET", "/flights/book/{id}", exchange -> {
+                    byte[] body = Router.pathParam(exchange, "id").getBytes(StandardCharsets.UTF_8);
+                    exchange.sendResponseHeaders(200, body.length);
+                    exchange.getResponseBody().write(body);
+                    exchange.close();
+                })
+                .add("DELETE", "/flights/book/{id}", exchange -> { });
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", routes);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+        HttpClient client = HttpClient.newHttpClient();
+        String base = "http://127.0.0.1:" + server.getAddress().getPort();
+
+        HttpResponse<String> found = client.send(HttpRequest.newBuilder(URI.create(base + "/flights/book/b-1")).build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, found.statusCode());
+        assertEquals("b-1", found.body());
+
+        HttpResponse<String> missing = client.send(HttpRequest.newBuilder(URI.create(base + "/flights/nope")).build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(404, missing.statusCode());
+        assertEquals("{\"error\":\"Not found\"}", missing.body());
+
+        HttpResponse<String> wrongMethod = client.send(HttpRequest.newBuilder(URI.create(base + "/flights/book/b-1"))
+                .POST(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(405, wrongMethod.statusCode());
+        assertEquals("DELETE, GET", wrongMethod.headers().firstValue("Allow").orElse(null));
+    }
+}
@@ -0,0 +1,93 @@
+package utec.services;
+
+import org.junit.jupiter.api.Test;
+import utec.dtos.FlightDTO;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AirlineDictionaryTest {
+    private final AirlineDictionary airlines = new AirlineDictionary();
+
+    @Test
+    void codesFollowArrivalOrderAndIgnoreCase() {
+        assertEquals(0, airlines.add(flight("Sky")));
+        assertEquals(1, airlines.add(flight("Andes")));
+        assertEquals(0, airlines.add(flight("SKY")));
+        assertEquals(1, airlines.add(flight("andes")));
+
+        assertEquals(0, airlines.find("sky"));
+        assertEquals(1, airlines.find("ANDES"));
+        // find no crea la aerolínea
+        assertEquals(-1, airlines.find("LATAM"));
+        assertEquals(-1, airlines.find("LATAM"));
+        assertEquals(2, airlines.add(flight("LATAM")));
+    }
+
+    @Test
+    void flightsWithTheSameSpellingShareTheName() {
+        FlightDTO first = flight(new String("Sky Airline"));
+        FlightDTO same = flight(new String("Sky Airline"));
+        FlightDTO other = flight("SKY AIRLINE");
+        airlines.add(first);
+        airlines.add(same);
+        airlines.add(other);
+
+        assertSame(first.airlineName, same.airlineName);
+        // Otra grafía conserva la suya
+        assertEquals("SKY AIRLINE", other.airlineName);
+        assertNotSame(first.airlineName, other.airlineName);
+    }
+
+    @Test
+    void listCountsFlightsSortedByName() {
+        for (String name : new String[]{"Sky", "andes", "SKY", "Avianca", "ANDES", "sky"}) airlines.add(flight(name));
+
+        assertEquals(List.of(new AirlineCount("andes", 2), new AirlineCount("Avianca", 1), new AirlineCount("Sky", 3)),
+                airlines.list());
+        airlines.clear();
+        assertEquals(List.of(), airlines.list());
+        assertEquals(-1, airlines.find("Sky"));
+        assertEquals(0, airlines.add(flight("Avianca")));
+    }
+
+    @Test
+    void matchingResolvesASubstringToTheCodesThatContainIt() {
+        int sky = airlines.add(flight("Sky Airline"));
+        int andes = airlines.add(flight("Andes"));
+        int avianca = airlines.add(flight("Avianca"));
+
+        boolean[] codes = airlines.matching("an");
+        assertTrue(AirlineDictionary.matches(codes, andes));
+        assertTrue(AirlineDictionary.matches(codes, avianca));
+        assertFalse(AirlineDictionary.matches(codes, sky));
+        assertNull(airlines.matching("latam"));
+
+        // Una aerolínea creada después del arreglo queda fuera de él
+        int latam = airlines.add(flight("LATAM"));
+        assertFalse(AirlineDictionary.matches(codes, latam));
+        assertTrue(AirlineDictionary.matches(airlines.matching("a"), latam));
+    }
+
+    @Test
+    void containsChecksOneCode() {
+        int sky = airlines.add(flight("Sky Airline"));
+        assertTrue(airlines.contains(sky, "airl"));
+        assertTrue(airlines.contains(sky, ""));
+        assertFalse(airlines.contains(sky, "andes"));
+        assertFalse(airlines.contains(-1, "sky"));
+        assertFalse(airlines.contains(sky + 1, "sky"));
+    }
+
+    private static FlightDTO flight(String airline) {
+        FlightDTO flight = new FlightDTO();
+        flight.airlineName = airline;
+        return flight;
+    }
+}
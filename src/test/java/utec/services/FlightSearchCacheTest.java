@@ -0,0 +1,212 @@
+package utec.services;
+
+import org.junit.jupiter.api.Test;
+import utec.dto.NewFlightRequestDTO;
+import utec.dtos.FlightDTO;
+import utec.metrics.Metrics;
+import utec.persistence.WriteAheadLog;
+import utec.repository.ShardedRepositories;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FlightSearchCacheTest {
+    private final FlightSearchCache cache = new FlightSearchCache(16, 1000, Metrics.cache("test-search"));
+    private final Map<String, FlightDTO> flights = new ConcurrentHashMap<>();
+
+    @Test
+    void onlyMatchingAddsArePatchedIntoAnEntry() {
+        FlightSearchCache.Query query = FlightSearchCache.Query.of("aa", null);
+        FlightSearchCache.Result result = result(flight("AA100", "Andes"), flight("AA200", "Andes"));
+        cache.put(query, result, cache.generation());
+        assertSame(result, cache.get(query));
+
+        cache.add(flight("BB100", "Andes"));
+        assertSame(result, cache.get(query));
+
+        cache.add(flight("AA150", "Sky"));
+        FlightSearchCache.Result patched = cache.get(query);
+        assertEquals(List.of("AA100", "AA150", "AA200"), List.of(patched.numbers()));
+        assertEquals(List.of("id-AA100", "id-AA150", "id-AA200"), List.of(patched.ids()));
+        // La entrada quedó reemplazada: la próxima lectura no vuelve a copiar
+        assertSame(patched, cache.get(query));
+        assertEquals(2, result.size(), "the previous result is not modified");
+    }
+
+    @Test
+    void severalAddsAreMergedInOrder() {
+        FlightSearchCache.Query query = FlightSearchCache.Query.of(null, "andes");
+        cache.put(query, result(flight("AA200", "Andes"), flight("AA400", "Andes")), cache.generation());
+        for (String number : new String[]{"AA500", "AA100", "CC100", "AA300", "AA250"}) {
+            cache.add(flight(number, number.startsWith("CC") ? "Sky" : "Andes Air"));
+        }
+        assertEquals(List.of("AA100", "AA200", "AA250", "AA300", "AA400", "AA500"),
+                List.of(cache.get(query).numbers()));
+        assertEquals(List.of("AA100", "AA200"), FlightSearchCache.page(cache.get(query), null, 2, flights::get)
+                .items().stream().map(f -> f.flightNumber).toList());
+    }
+
+    @Test
+    void resultComputedBeforeAnAddIsRevalidatedAgainstIt() {
+        FlightSearchCache.Query query = FlightSearchCache.Query.of(null, "sky");
+        long generation = cache.generation();
+        FlightSearchCache.Result result = result(flight("AA100", "Sky"));
+        // Alta concurrente con la búsqueda: el resultado calculado puede no tenerla
+        cache.add(flight("AA300", "Sky Airline"));
+        cache.put(query, result, generation);
+        assertEquals(List.of("AA100", "AA300"), List.of(cache.get(query).numbers()));
+
+        // ...o puede tenerla ya: no se repite
+        generation = cache.generation();
+        FlightSearchCache.Result withIt = result(flights.get("id-AA100"), flights.get("id-AA300"),
+                flight("AA400", "Sky"));
+        cache.add(flights.get("id-AA400"));
+        cache.put(query, withIt, generation);
+        assertSame(withIt, cache.get(query));
+
+        generation = cache.generation();
+        cache.add(flight("AA500", "Andes"));
+        cache.put(query, result, generation);
+        assertSame(result, cache.get(query));
+    }
+
+    @Test
+    void tooManyAddsBatchesAndClearInvalidateEverything() {
+        FlightSearchCache.Query query = FlightSearchCache.Query.of("ZZ", null);
+        FlightSearchCache.Result result = result(flight("ZZ100", "Andes"));
+
+        cache.put(query, result, cache.generation());
+        for (int i = 0; i < 2000; i++) cache.add(flight("AA" + i, "Andes"));
+        assertNull(cache.get(query), "older than the recent adds ring");
+
+        cache.put(query, result, cache.generation());
+        List<FlightDTO> batch = new ArrayList<>();
+        for (int i = 0; i < 300; i++) batch.add(flight("BB" + i, "Andes"));
+        cache.addAll(batch);
+        assertNull(cache.get(query));
+
+        cache.put(query, result, cache.generation());
+        cache.addAll(batch.subList(0, 10));
+        assertSame(result, cache.get(query));
+        long generation = cache.generation();
+        cache.clear();
+        assertNull(cache.get(query));
+        cache.put(query, result, generation);
+        assertNull(cache.get(query), "computed before clear");
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedEntries() throws Exception {
+        FlightSearchCache.Query hot = FlightSearchCache.Query.of("HOT", null);
+        cache.put(hot, result(flight("HOT100", "Andes")), cache.generation());
+        for (int i = 0; i < 40; i++) {
+            Thread.sleep(2);
+            assertNotNull(cache.get(hot));
+            cache.put(FlightSearchCache.Query.of("Q" + i, null), result(flight("Q" + i, "Andes")),
+                    cache.generation());
+        }
+        assertNotNull(cache.get(hot));
+        assertTrue(Metrics.cache("test-search").entries() <= 16);
+        assertNull(cache.get(FlightSearchCache.Query.of("Q0", null)));
+    }
+
+    @Test
+    void pagesResolveFlightsById() {
+        FlightSearchCache.Result result = result(flight("AA100", "Andes"), flight("AA200", "Andes"),
+                flight("AA300", "Andes"));
+        FlightPage first = FlightSearchCache.page(result, null, 2, flights::get);
+        assertEquals(List.of("AA100", "AA200"), first.items().stream().map(f -> f.flightNumber).toList());
+        assertEquals("AA200", first.nextAfter());
+        FlightPage second = FlightSearchCache.page(result, "AA200", 2, flights::get);
+        assertEquals(List.of("AA300"), second.items().stream().map(f -> f.flightNumber).toList());
+        assertNull(second.nextAfter());
+        assertEquals(2, FlightSearchCache.page(result, "AA150", 5, flights::get).items().size());
+    }
+
+    @Test
+    void concurrentCreatesNeverLeaveAStaleCachedSearch() throws Exception {
+        FlightService service = new FlightService(new SeatInventory());
+        AtomicBoolean done = new AtomicBoolean();
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < 3; r++) {
+            readers.add(Thread.ofPlatform().start(() -> {
+                while (!done.get()) {
+                    service.searchFlights("AA", null, null, 20);
+                    service.searchFlights(null, "andes", null, 20);
+                }
+            }));
+        }
+        for (int i = 0; i < 2000; i++) {
+            String number = String.format("%s%03d", i < 1000 ? "AA" : "AB", i % 1000);
+            service.createFlight(request(number, i % 2 == 0 ? "Andes" : "Sky"));
+            if (i % 100 == 0) {
+                assertEquals(Math.min(i + 1, 1000), service.searchFlights("AA", null).size());
+            }
+        }
+        done.set(true);
+        for (Thread reader : readers) reader.join();
+
+        assertEquals(1000, service.searchFlights("AA", null).size());
+        assertEquals(1000, service.searchFlights(null, "ANDES").size());
+        assertEquals(500, service.searchFlights("AB", "sky").size());
+    }
+
+    @Test
+    void cachedSearchesDoNotKeepOffHeapFlightsAlive() throws Exception {
+        FlightService service = new FlightService(new SeatInventory(), new ShardedRepositories(8, true),
+                WriteAheadLog.disabled());
+        for (int i = 0; i < 100; i++) service.createFlight(request(String.format("AA%03d", i), "Andes"));
+        long hits = Metrics.cache("flight-search").hits();
+
+        List<FlightDTO> first = service.searchFlights("AA0", null, null, 100).items();
+        List<FlightDTO> second = service.searchFlights("AA0", null, null, 100).items();
+        assertEquals(hits + 1, Metrics.cache("flight-search").hits());
+        assertEquals(first.size(), second.size());
+        // Cada página arma sus vuelos desde el repositorio: el cache no guarda los de la anterior
+        assertNotSame(first.get(0), second.get(0));
+
+        WeakReference<FlightDTO> flight = new WeakReference<>(second.get(0));
+        first = null;
+        second = null;
+        for (int i = 0; i < 20 && flight.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(flight.get());
+        assertEquals(100, service.searchFlights("AA0", null).size());
+    }
+
+    private FlightDTO flight(String number, String airline) {
+        FlightDTO flight = new FlightDTO();
+        flight.id = "id-" + number;
+        flight.flightNumber = number;
+        flight.airlineName = airline;
+        flights.put(flight.id, flight);
+        return flight;
+    }
+
+    private static FlightSearchCache.Result result(FlightDTO... flights) {
+        return FlightSearchCache.Result.of(List.of(flights));
+    }
+
+    private static NewFlightRequestDTO request(String number, String airline) {
+        NewFlightRequestDTO request = new NewFlightRequestDTO();
+        request.airlineName = airline;
+        request.flightNumber = number;
+        request.estDepartureTime = "2030-01-01T10:00:00Z";
+        request.estArrivalTime = "2030-01-01T12:00:00Z";
+        request.availableSeats = 10;
+        return request;
+    }
+}
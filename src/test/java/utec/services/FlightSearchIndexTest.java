@@ -0,0 +1,112 @@
+package utec.services;
+
+import org.junit.jupiter.api.Test;
+import utec.dtos.FlightDTO;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FlightSearchIndexTest {
+    private static final String[] AIRLINES = {"Andes", "LATAM", "Sky Airline", "Avianca", "JetSMART"};
+
+    private final Map<String, FlightDTO> flights = new HashMap<>();
+    private final List<FlightDTO> all = new ArrayList<>();
+
+    @Test
+    void rebuiltAndIncrementalIndexesMatchAFullScan() {
+        Random random = new Random(7);
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < 3000; i++) {
+            FlightDTO flight = new FlightDTO();
+            flight.id = "id-" + i;
+            flight.airlineName = AIRLINES[random.nextInt(AIRLINES.length)];
+            flight.flightNumber = "" + (char) ('A' + random.nextInt(4)) + (char) ('A' + random.nextInt(4)) +
+                    String.format("%03d", i % 1000);
+            if (!seen.add(flight.flightNumber)) continue;
+            flights.put(flight.id, flight);
+            all.add(flight);
+        }
+
+        AirlineDictionary rebuiltAirlines = new AirlineDictionary();
+        for (FlightDTO flight : all) rebuiltAirlines.add(flight);
+        FlightSearchIndex rebuilt = new FlightSearchIndex(flights::get, rebuiltAirlines);
+        rebuilt.rebuild(all);
+
+        AirlineDictionary incrementalAirlines = new AirlineDictionary();
+        FlightSearchIndex incremental = new FlightSearchIndex(flights::get, incrementalAirlines);
+        int half = all.size() / 2;
+        for (FlightDTO flight : all.subList(0, half)) incremental.add(flight, incrementalAirlines.add(flight));
+        List<FlightDTO> rest = all.subList(half, all.size());
+        incremental.addAll(rest, rest.stream().mapToInt(incrementalAirlines::add).toArray());
+        for (FlightDTO flight : all) {
+            assertEquals(incrementalAirlines.find(flight.airlineName), incremental.airline(flight.flightNumber));
+            assertEquals(rebuiltAirlines.find(flight.airlineName), rebuilt.airline(flight.flightNumber));
+        }
+        assertEquals(-1, rebuilt.airline("ZZ999"));
+
+        String[] numbers = {null, "", "A", "ab", "BA0", "CD12", "DD999", "99", "ZZ", "a1"};
+        String[] airlines = {null, "", "an", "LATAM", "sky", "a", "nope"};
+        for (String number : numbers) {
+            for (String airline : airlines) {
+                List<String> expected = scan(number, airline);
+                assertEquals(expected, pages(rebuilt, number, airline), number + "/" + airline);
+                assertEquals(expected, pages(incremental, number, airline), number + "/" + airline);
+            }
+        }
+    }
+
+    @Test
+    void skipsFlightsRemovedFromTheRepository() {
+        for (int i = 0; i < 3; i++) {
+            FlightDTO flight = new FlightDTO();
+            flight.id = "id-" + i;
+            flight.airlineName = "Andes";
+            flight.flightNumber = "AA00" + i;
+            flights.put(flight.id, flight);
+            all.add(flight);
+        }
+        FlightSearchIndex index = new FlightSearchIndex(flights::get, new AirlineDictionary());
+        index.rebuild(all);
+        flights.remove("id-1");
+
+        assertEquals(List.of("AA000", "AA002"), numbers(index.search("AA", null, null, 10)));
+        index.clear();
+        assertEquals(List.of(), index.search(null, null, null, 10));
+    }
+
+    // Todas las páginas de a 7, siguiendo el cursor
+    private static List<String> pages(FlightSearchIndex index, String number, String airline) {
+        List<String> result = new ArrayList<>();
+        String after = null;
+        while (true) {
+            List<String> page = numbers(index.search(number, airline, after, 7));
+            result.addAll(page);
+            if (page.size() < 7) return result;
+            after = page.getLast();
+        }
+    }
+
+    private List<String> scan(String number, String airline) {
+        return all.stream()
+                .filter(f -> number == null || f.flightNumber.toUpperCase(Locale.ROOT)
+                        .contains(number.toUpperCase(Locale.ROOT)))
+                .filter(f -> airline == null || f.airlineName.toUpperCase(Locale.ROOT)
+                        .contains(airline.toUpperCase(Locale.ROOT)))
+                .map(f -> f.flightNumber)
+                .sorted(Comparator.naturalOrder())
+                .toList();
+    }
+
+    private static List<String> numbers(List<FlightDTO> flights) {
+        return flights.stream().map(f -> f.flightNumber).toList();
+    }
+}
@@ -0,0 +1,79 @@
+package utec.services;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import utec.dto.NewFlightRequestDTO;
+import utec.dtos.FlightDTO;
+import utec.persistence.WriteAheadLog;
+import utec.repository.ShardedRepositories;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FlightServiceTest {
+
+    @Test
+    void createFlightsIsAllOrNothingWhenANumberExists() throws Exception {
+        FlightService service = new FlightService(new SeatInventory());
+        String existingId = service.createFlight(request("AA100")).id;
+
+        FlightAlreadyExistsException e = assertThrows(FlightAlreadyExistsException.class,
+                () -> service.createFlights(List.of(request("BB100"), request("BB200"), request("AA100"),
+                        request("BB300"))));
+        assertEquals("AA100", e.getFlightNumber());
+        assertEquals(existingId, e.getExistingId());
+
+        // Los números reservados antes del conflicto se liberan
+        assertFalse(service.existsFlightNumber("BB100"));
+        assertFalse(service.existsFlightNumber("BB200"));
+        assertFalse(service.existsFlightNumber("BB300"));
+        assertEquals(1, service.getAllFlights().size());
+
+        List<FlightDTO> created = service.createFlights(List.of(request("BB100"), request("BB200")));
+        assertEquals(List.of("BB100", "BB200"), created.stream().map(f -> f.flightNumber).toList());
+        assertEquals(2, service.searchFlights("BB", null).size());
+    }
+
+    @Test
+    void createFlightsRejectsNumbersRepeatedInTheBatch() {
+        FlightService service = new FlightService(new SeatInventory());
+        FlightAlreadyExistsException e = assertThrows(FlightAlreadyExistsException.class,
+                () -> service.createFlights(List.of(request("CC100"), request("CC200"), request("CC100"))));
+        assertEquals("CC100", e.getFlightNumber());
+        assertFalse(service.existsFlightNumber("CC100"));
+        assertFalse(service.existsFlightNumber("CC200"));
+        assertTrue(service.getAllFlights().isEmpty());
+    }
+
+    @Test
+    void createFlightsReleasesTheNumbersWhenTheLogFails(@TempDir Path dir) {
+        // Log habilitado pero sin abrir: append falla después de reservar los números
+        WriteAheadLog wal = new WriteAheadLog(dir.resolve("wal.log"), WriteAheadLog.FsyncPolicy.NONE, 1);
+        FlightService service = new FlightService(new SeatInventory(), new ShardedRepositories(4), wal);
+
+        assertThrows(IllegalStateException.class,
+                () -> service.createFlights(List.of(request("DD100"), request("DD200"))));
+        assertFalse(service.existsFlightNumber("DD100"));
+        assertFalse(service.existsFlightNumber("DD200"));
+        assertTrue(service.getAllFlights().isEmpty());
+        assertTrue(service.searchFlights("DD", null).isEmpty());
+
+        assertThrows(IllegalStateException.class, () -> service.createFlight(request("DD100")));
+        assertFalse(service.existsFlightNumber("DD100"));
+    }
+
+    private static NewFlightRequestDTO request(String number) {
+        NewFlightRequestDTO request = new NewFlightRequestDTO();
+        request.airlineName = "Andes";
+        request.flightNumber = number;
+        request.estDepartureTime = "2030-01-01T10:00:00Z";
+        request.estArrivalTime = "2030-01-01T12:00:00Z";
+        request.availableSeats = 10;
+        return request;
+    }
+}
@@ -0,0 +1,108 @@
+package utec.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SeatInventoryTest {
+
+    @Test
+    void reservesAllOrNothing() {
+        SeatInventory seats = new SeatInventory(8);
+        seats.register("f", 100);
+
+        assertTrue(seats.tryReserve("f", 60));
+        assertFalse(seats.tryReserve("f", 41));
+        assertEquals(40, seats.available("f"));
+        assertTrue(seats.tryReserve("f", 40));
+        assertFalse(seats.tryReserve("f"));
+
+        seats.release("f", 3);
+        assertEquals(3, seats.available("f"));
+        assertFalse(seats.tryReserve("missing"));
+    }
+
+    @Test
+    void concurrentMultiSeatReservesDoNotBothFail() throws Exception {
+        int threads = 2;
+        int rounds = 2000;
+        CyclicBarrier barrier = new CyclicBarrier(threads);
+        AtomicIntegerArray wins = new AtomicIntegerArray(rounds);
+        SeatInventory[] inventories = new SeatInventory[rounds];
+        for (int r = 0; r < rounds; r++) {
+            inventories[r] = new SeatInventory(8);
+            // Stock para una sola de las dos reservas, repartido en franjas
+            inventories[r].register("f", 64);
+        }
+
+        runAll(threads, () -> {
+            for (int r = 0; r < rounds; r++) {
+                barrier.await();
+                if (inventories[r].tryReserve("f", 64)) wins.incrementAndGet(r);
+            }
+        });
+
+        for (int r = 0; r < rounds; r++) {
+            assertEquals(1, wins.get(r), "round " + r);
+            assertEquals(0, inventories[r].available("f"));
+        }
+    }
+
+    @Test
+    void concurrentReservesNeitherOversellNorFailWithStockLeft() throws Exception {
+        int seatCount = 20_000;
+        SeatInventory seats = new SeatInventory(8);
+        seats.register("f", seatCount);
+        AtomicInteger sold = new AtomicInteger();
+        AtomicInteger smallestFailure = new AtomicInteger(Integer.MAX_VALUE);
+
+        runAll(8, () -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            while (true) {
+                int n = 1 + random.nextInt(6);
+                if (!seats.tryReserve("f", n)) {
+                    smallestFailure.accumulateAndGet(n, Math::min);
+                    return;
+                }
+                sold.addAndGet(n);
+            }
+        });
+
+        // Sin devoluciones el stock solo baja: si una reserva de n falló, al final quedan menos de n
+        assertEquals(seatCount - sold.get(), seats.available("f"));
+        assertTrue(sold.get() <= seatCount);
+        assertTrue(seats.available("f") < smallestFailure.get(),
+                "left " + seats.available("f") + " seats after failing to reserve " + smallestFailure.get());
+    }
+
+    private interface Task {
+        void run() throws Exception;
+    }
+
+    private static void runAll(int count, Task task) throws Exception {
+        List<Thread> threads = new ArrayList<>();
+        List<Throwable> errors = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                try {
+                    task.run();
+                } catch (Throwable e) {
+                    synchronized (errors) {
+                        errors.add(e);
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) thread.join();
+        if (!errors.isEmpty()) throw new AssertionError(errors.get(0));
+    }
+}